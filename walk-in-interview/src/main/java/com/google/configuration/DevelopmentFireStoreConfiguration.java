@@ -1,13 +1,11 @@
 package com.google.configuration;
 
-import javax.annotation.Nullable;
-
 /** Class that specify the configuration details for firestore during development phase. */
 public final class DevelopmentFireStoreConfiguration implements FireStoreConfiguration {
     private static final String PROJECT_ID = "google.com:walk-in-interview";
 
-    @Nullable
-    private static DevelopmentFireStoreConfiguration developmentFireStoreConfiguration = null;
+    private static final DevelopmentFireStoreConfiguration developmentFireStoreConfiguration =
+            new DevelopmentFireStoreConfiguration();
 
     private DevelopmentFireStoreConfiguration() {}
 
@@ -17,9 +15,6 @@ public final class DevelopmentFireStoreConfiguration implements FireStoreConfigu
      * @return Configuration details of the cloud firestore database.
      */
     public static DevelopmentFireStoreConfiguration getFireStoreConfiguration() {
-        if (developmentFireStoreConfiguration == null) {
-            developmentFireStoreConfiguration = new DevelopmentFireStoreConfiguration();
-        }
         return developmentFireStoreConfiguration;
     }
 
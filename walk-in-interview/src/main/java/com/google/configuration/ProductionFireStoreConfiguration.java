@@ -1,14 +1,12 @@
 package com.google.configuration;
 
-import javax.annotation.Nullable;
-
 /** Class that specify the configuration details for firestore during production phase. */
 public final class ProductionFireStoreConfiguration implements FireStoreConfiguration {
     private static final String PROJECT_ID = "";
     // TODO(issue/16): create a cloud firestore project for production phase.
 
-    @Nullable
-    private static ProductionFireStoreConfiguration productionFireStoreConfiguration = null;
+    private static final ProductionFireStoreConfiguration productionFireStoreConfiguration =
+            new ProductionFireStoreConfiguration();
 
     private ProductionFireStoreConfiguration() {}
 
@@ -18,9 +16,6 @@ public final class ProductionFireStoreConfiguration implements FireStoreConfigur
      * @return Configuration details of the cloud firestore database.
      */
     public static ProductionFireStoreConfiguration getFireStoreConfiguration() {
-        if (productionFireStoreConfiguration == null) {
-            productionFireStoreConfiguration = new ProductionFireStoreConfiguration();
-        }
         return productionFireStoreConfiguration;
     }
 
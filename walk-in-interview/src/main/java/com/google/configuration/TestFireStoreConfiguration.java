@@ -1,14 +1,12 @@
 package com.google.configuration;
 
-import javax.annotation.Nullable;
-
 /** Class that specify the configuration details for firestore during testing phase. */
 public final class TestFireStoreConfiguration implements FireStoreConfiguration {
     private static final String PROJECT_ID = "";
     // TODO(issue/16): create a cloud firestore project for test phase.
 
-    @Nullable
-    private static TestFireStoreConfiguration testFireStoreConfiguration = null;
+    private static final TestFireStoreConfiguration testFireStoreConfiguration =
+            new TestFireStoreConfiguration();
 
     private TestFireStoreConfiguration() {}
 
@@ -18,9 +16,6 @@ public final class TestFireStoreConfiguration implements FireStoreConfiguration
      * @return Configuration details of the cloud firestore database.
      */
     public static TestFireStoreConfiguration getFireStoreConfiguration() {
-        if (testFireStoreConfiguration == null) {
-            testFireStoreConfiguration = new TestFireStoreConfiguration();
-        }
         return testFireStoreConfiguration;
     }
 
@@ -0,0 +1,346 @@
+package com.google.job.data;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the registered {@link ActiveJobsListener}s in sync with the ACTIVE job posts in the database.
+ * The whole set is reloaded when it is older than {@link #RELOAD_INTERVAL_MILLIS}, and writes made
+ * through this process are applied incrementally in between.
+ *
+ * Only the first load is waited for. Once the listeners hold a set, a stale one keeps being served while
+ * the next one loads in the background, and no reload is needed at all while the changes come from a live
+ * source such as the {@link ActiveJobsReplica}. Reloads are handed to the listeners on the reload executor,
+ * without holding the lock, so that neither the writers nor the Firestore callback threads wait for them.
+ * A listener that is added, or that has to start over after a reload, is handed the held set without holding
+ * the lock as well, and the changes applied in the meantime are replayed to it afterwards.
+ */
+final class ActiveJobsFeed {
+    private static final Logger log = Logger.getLogger(ActiveJobsFeed.class.getName());
+
+    static final long RELOAD_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /** A load of the whole set, with the incremental changes applied while it runs. */
+    private static final class Load {
+        private final SettableApiFuture<Void> future = SettableApiFuture.create();
+        private final long startedAtMillis;
+        // Guarded by the lock of the feed; replayed once the load is done, as it may have missed them
+        private final List<Change> changes = new ArrayList<>();
+        // Guarded by the lock of the feed; seeded with the previous set, so they start over once the load is done
+        private final Set<ActiveJobsListener> addedListeners = new HashSet<>();
+
+        private Load(long startedAtMillis) {
+            this.startedAtMillis = startedAtMillis;
+        }
+    }
+
+    /** A listener being handed the held set outside the lock, with the changes applied meanwhile. */
+    private static final class Seeding {
+        // Guarded by the lock of the feed; replayed once the listener holds the set
+        private final List<Change> changes = new ArrayList<>();
+        // Guarded by the lock of the feed; whether a reload was published meanwhile, so that the set is outdated
+        private boolean stale = false;
+    }
+
+    /** An incremental change: a job post that is now ACTIVE, or one that is no longer when the job is null. */
+    private static final class Change {
+        private final String jobId;
+        @Nullable
+        private final Job job;
+
+        private Change(String jobId, @Nullable Job job) {
+            this.jobId = jobId;
+            this.job = job;
+        }
+
+        private void applyTo(Map<String, Job> jobsById) {
+            if (job == null) {
+                jobsById.remove(jobId);
+            } else {
+                jobsById.put(jobId, job);
+            }
+        }
+
+        private void applyTo(ActiveJobsListener listener) {
+            if (job == null) {
+                listener.onRemove(jobId);
+            } else {
+                listener.onUpsert(jobId, job);
+            }
+        }
+    }
+
+    private final Supplier<ApiFuture<Map<String, Job>>> loader;
+    private final BooleanSupplier liveUpdates;
+    private final Executor reloadExecutor;
+    private final List<ActiveJobsListener> listeners = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+
+    // Guarded by lock; the set the listeners hold, so that a listener added later starts from it
+    private Map<String, Job> jobsById = new HashMap<>();
+
+    // Guarded by lock; when the set the listeners hold was started loading, 0 until the first load is done
+    private long loadedAtMillis = 0;
+
+    // Guarded by lock; oldest first
+    private final List<Load> runningLoads = new ArrayList<>();
+
+    // Guarded by lock; the listeners that are not in listeners yet, as they are still being handed the held set
+    private final Map<ActiveJobsListener, Seeding> seedingListeners = new HashMap<>();
+
+    /**
+     * @param loader Loads all the ACTIVE job posts by their cloud firestore id.
+     * @param liveUpdates Whether every change currently reaches the feed as it happens, so that the set
+     *                    does not go stale and is not reloaded.
+     * @param reloadExecutor Hands the reloaded sets to the listeners, one at a time.
+     */
+    ActiveJobsFeed(Supplier<ApiFuture<Map<String, Job>>> loader, BooleanSupplier liveUpdates,
+                   Executor reloadExecutor) {
+        this.loader = loader;
+        this.liveUpdates = liveUpdates;
+        this.reloadExecutor = reloadExecutor;
+    }
+
+    /**
+     * Registers a listener, which starts from the set the other listeners hold. The set is handed to it
+     * without holding the lock, so that writers are not held up while it builds its index.
+     */
+    void addListener(ActiveJobsListener listener) {
+        Seeding seeding = new Seeding();
+        ImmutableMap<String, Job> heldJobsById;
+        synchronized (lock) {
+            heldJobsById = ImmutableMap.copyOf(jobsById);
+            seedingListeners.put(listener, seeding);
+
+            for (Load load : runningLoads) {
+                load.addedListeners.add(listener);
+            }
+        }
+
+        seed(listener, seeding, heldJobsById);
+    }
+
+    /**
+     * Unregisters a listener. It receives no change once this returns, and starts over from the held set if
+     * it is registered again.
+     */
+    void removeListener(ActiveJobsListener listener) {
+        synchronized (lock) {
+            listeners.remove(listener);
+            seedingListeners.remove(listener);
+        }
+    }
+
+    /**
+     * Returns the job post as the listeners hold it.
+     *
+     * @param jobId Cloud Firestore id of the job post.
+     * @return The job post, or null if it is not held as ACTIVE.
+     */
+    @Nullable
+    Job getJob(String jobId) {
+        synchronized (lock) {
+            return jobsById.get(jobId);
+        }
+    }
+
+    /**
+     * Loads the listeners if they have never been loaded, and starts reloading them in the background if
+     * their data is too old while no live source keeps it up to date.
+     *
+     * @return Future that completes once the listeners hold a set of job posts.
+     */
+    ApiFuture<Void> ensureLoaded() {
+        return ensureLoaded(System.currentTimeMillis());
+    }
+
+    /**
+     * Same as {@link #ensureLoaded()}, at the given time.
+     *
+     * @param nowMillis The current time in milliseconds since the epoch.
+     * @return Future that completes once the listeners hold a set of job posts.
+     */
+    ApiFuture<Void> ensureLoaded(long nowMillis) {
+        // Asked before taking the lock, as the live source takes its own lock to answer and then the lock of
+        // the feed to apply its changes
+        boolean live = liveUpdates.getAsBoolean();
+
+        Load load;
+        boolean loaded;
+        synchronized (lock) {
+            loaded = loadedAtMillis != 0;
+            if (loaded && (live || !runningLoads.isEmpty()
+                    || nowMillis - loadedAtMillis < RELOAD_INTERVAL_MILLIS)) {
+                return ApiFutures.immediateFuture(null);
+            }
+
+            if (!loaded && !runningLoads.isEmpty()) {
+                return runningLoads.get(runningLoads.size() - 1).future;
+            }
+
+            load = startLoad(nowMillis);
+        }
+
+        ApiFutures.addCallback(loader.get(), new ApiFutureCallback<Map<String, Job>>() {
+            @Override
+            public void onSuccess(Map<String, Job> activeJobsById) {
+                reloadExecutor.execute(() -> publish(load, activeJobsById));
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                synchronized (lock) {
+                    runningLoads.remove(load);
+                }
+
+                log.log(Level.WARNING, "could not load the active job posts", t);
+                load.future.setException(t);
+            }
+        }, MoreExecutors.directExecutor());
+
+        // Readers keep being served the stale set in the meantime
+        return loaded ? ApiFutures.immediateFuture(null) : load.future;
+    }
+
+    /**
+     * Replaces the set the listeners hold with one read from a live source, in the background.
+     *
+     * @param activeJobsById All the ACTIVE job posts by their cloud firestore id.
+     */
+    void reload(Map<String, Job> activeJobsById) {
+        Load load;
+        synchronized (lock) {
+            load = startLoad(System.currentTimeMillis());
+        }
+
+        reloadExecutor.execute(() -> publish(load, activeJobsById));
+    }
+
+    /** Applies a job post that is now ACTIVE. */
+    void upsert(String jobId, Job job) {
+        apply(new Change(jobId, job));
+    }
+
+    /** Applies a job post that is no longer ACTIVE. */
+    void remove(String jobId) {
+        apply(new Change(jobId, /* job= */ null));
+    }
+
+    // Only called while holding the lock
+    private Load startLoad(long nowMillis) {
+        Load load = new Load(nowMillis);
+        runningLoads.add(load);
+        return load;
+    }
+
+    /** Hands a loaded set to the listeners, unless a newer one has already been. Runs on the reload executor. */
+    private void publish(Load load, Map<String, Job> activeJobsById) {
+        synchronized (lock) {
+            if (load.startedAtMillis < loadedAtMillis) {
+                runningLoads.remove(load);
+                load.future.set(null);
+                return;
+            }
+        }
+
+        // Changes applied meanwhile may be lost by a listener, so they are replayed below
+        List<ActiveJobsListener> reloadedListeners = new ArrayList<>(listeners);
+        for (ActiveJobsListener listener : reloadedListeners) {
+            listener.onReload(activeJobsById);
+        }
+
+        Map<ActiveJobsListener, Seeding> reseededListeners = new HashMap<>();
+        ImmutableMap<String, Job> heldJobsById;
+        synchronized (lock) {
+            jobsById = new HashMap<>(activeJobsById);
+            // A listener added meanwhile started from the previous set, and one removed meanwhile is left alone
+            reloadedListeners.retainAll(listeners);
+            reloadedListeners.removeAll(load.addedListeners);
+            for (Change change : load.changes) {
+                change.applyTo(jobsById);
+                reloadedListeners.forEach(change::applyTo);
+            }
+
+            // The others start over from the new set, outside the lock like the reloaded ones
+            for (Seeding seeding : seedingListeners.values()) {
+                seeding.stale = true;
+            }
+            for (ActiveJobsListener listener : listeners) {
+                if (!reloadedListeners.contains(listener)) {
+                    listeners.remove(listener);
+                    reseededListeners.put(listener, new Seeding());
+                }
+            }
+            seedingListeners.putAll(reseededListeners);
+            heldJobsById = reseededListeners.isEmpty() ? ImmutableMap.of() : ImmutableMap.copyOf(jobsById);
+
+            loadedAtMillis = load.startedAtMillis;
+            runningLoads.remove(load);
+        }
+
+        reseededListeners.forEach((listener, seeding) -> seed(listener, seeding, heldJobsById));
+        load.future.set(null);
+    }
+
+    /**
+     * Hands the held set to a listener outside the lock, then replays the changes applied meanwhile and
+     * registers it. Starts over if a reload was published meanwhile, and gives up if the listener was removed.
+     */
+    private void seed(ActiveJobsListener listener, Seeding seeding, Map<String, Job> heldJobsById) {
+        Seeding currentSeeding = seeding;
+        Map<String, Job> seedJobsById = heldJobsById;
+        while (true) {
+            listener.onReload(seedJobsById);
+
+            synchronized (lock) {
+                if (seedingListeners.get(listener) != currentSeeding) {
+                    return;
+                }
+
+                if (!currentSeeding.stale) {
+                    seedingListeners.remove(listener);
+                    currentSeeding.changes.forEach(change -> change.applyTo(listener));
+                    listeners.add(listener);
+                    return;
+                }
+
+                currentSeeding = new Seeding();
+                seedingListeners.put(listener, currentSeeding);
+                seedJobsById = ImmutableMap.copyOf(jobsById);
+            }
+        }
+    }
+
+    private void apply(Change change) {
+        synchronized (lock) {
+            change.applyTo(jobsById);
+            listeners.forEach(change::applyTo);
+            for (Seeding seeding : seedingListeners.values()) {
+                seeding.changes.add(change);
+            }
+
+            for (Load load : runningLoads) {
+                load.changes.add(change);
+            }
+        }
+    }
+}
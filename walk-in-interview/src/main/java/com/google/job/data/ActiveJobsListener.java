@@ -0,0 +1,28 @@
+package com.google.job.data;
+
+import java.util.Map;
+
+/** Listener for changes to the set of ACTIVE job posts, used to keep in-memory indexes up to date. */
+public interface ActiveJobsListener {
+    /**
+     * Replaces all the job posts seen so far.
+     *
+     * @param activeJobsById All the ACTIVE job posts by their cloud firestore id.
+     */
+    void onReload(Map<String, Job> activeJobsById);
+
+    /**
+     * Adds a job post that is now ACTIVE, or replaces its previous version.
+     *
+     * @param jobId Cloud Firestore id of the job post.
+     * @param job The ACTIVE job post.
+     */
+    void onUpsert(String jobId, Job job);
+
+    /**
+     * Removes a job post that is no longer ACTIVE. Does nothing if the job post was not seen before.
+     *
+     * @param jobId Cloud Firestore id of the job post.
+     */
+    void onRemove(String jobId);
+}
@@ -0,0 +1,308 @@
+package com.google.job.data;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.EventListener;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Live in-memory replica of the ACTIVE job posts, kept up to date by a snapshot listener on the query that
+ * selects them. Each snapshot only carries the documents that changed. The view is split into
+ * {@link #SHARD_COUNT} immutable shards by job id, and only the shards holding a changed document are copied;
+ * the others are shared with the previous view. The new view is then published with a single volatile write,
+ * so that readers always see a whole snapshot and never need a lock.
+ *
+ * The changes are also passed on to a {@link ActiveJobsListener} on the listener executor, outside the lock,
+ * so that the in-memory indexes follow the replica instead of waiting for their next reload, without holding
+ * up the next snapshot.
+ */
+final class ActiveJobsReplica {
+    private static final Logger log = Logger.getLogger(ActiveJobsReplica.class.getName());
+
+    /** How long to wait before listening again after the listener failed. */
+    static final long RETRY_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    /** Number of shards of a view, so that a snapshot of a few changes copies a few small maps only. */
+    static final int SHARD_COUNT = 256;
+
+    /** The ACTIVE job posts as of one snapshot. It never changes once published. */
+    static final class View {
+        // Indexed by getShard(jobId); unchanged shards are shared between views
+        private final List<ImmutableMap<String, VersionedJob>> shards;
+        private final int size;
+        private final long readTimeMillis;
+
+        private View(List<ImmutableMap<String, VersionedJob>> shards, long readTimeMillis) {
+            this.shards = Collections.unmodifiableList(shards);
+            this.size = shards.stream().mapToInt(ImmutableMap::size).sum();
+            this.readTimeMillis = readTimeMillis;
+        }
+
+        /**
+         * Returns an ACTIVE job post, with the version it was read at.
+         *
+         * @param jobId Cloud Firestore id of the job post.
+         * @return The job post, or null if it is not ACTIVE.
+         */
+        @Nullable
+        VersionedJob getJob(String jobId) {
+            return shards.get(getShard(jobId)).get(jobId);
+        }
+
+        /** Returns the number of ACTIVE job posts. */
+        int size() {
+            return size;
+        }
+
+        /** Returns the ACTIVE job posts by their cloud firestore id. Copies all the shards into one map. */
+        ImmutableMap<String, Job> getJobsById() {
+            ImmutableMap.Builder<String, Job> jobsById = ImmutableMap.builder();
+            for (ImmutableMap<String, VersionedJob> shard : shards) {
+                shard.forEach((jobId, versionedJob) -> jobsById.put(jobId, versionedJob.getJob()));
+            }
+            return jobsById.build();
+        }
+
+        /** Returns the time the database was read at, in milliseconds since the epoch. */
+        long getReadTimeMillis() {
+            return readTimeMillis;
+        }
+    }
+
+    private final Function<EventListener<QuerySnapshot>, ListenerRegistration> subscriber;
+    private final ActiveJobsListener changeListener;
+    private final Executor listenerExecutor;
+
+    // null until the first snapshot
+    @Nullable
+    private volatile View view;
+
+    // How long the last snapshot took to reach this instance; only meaningful while in sync
+    private volatile long lastSnapshotLagMillis = 0;
+
+    // Whether the listener has delivered its first snapshot and has not failed since
+    private volatile boolean inSync = false;
+
+    // Guarded by this; null when not listening
+    @Nullable
+    private ListenerRegistration registration;
+
+    // Guarded by this; tells the events of the current registration from the ones of a replaced one
+    private int generation = 0;
+
+    // Guarded by this
+    private boolean started = false;
+    private boolean awaitingFirstSnapshot = false;
+    private long lastAttemptMillis = 0;
+
+    /**
+     * @param subscriber Attaches the listener to the query of the ACTIVE job posts.
+     * @param changeListener Receives the changes of every snapshot once they are applied.
+     * @param listenerExecutor Passes the changes on to the change listener. It must run its tasks one at a
+     *                         time and in order, so that the listener sees the snapshots in order.
+     */
+    ActiveJobsReplica(Function<EventListener<QuerySnapshot>, ListenerRegistration> subscriber,
+                      ActiveJobsListener changeListener, Executor listenerExecutor) {
+        this.subscriber = subscriber;
+        this.changeListener = changeListener;
+        this.listenerExecutor = listenerExecutor;
+    }
+
+    /** Starts listening. Does nothing if it is already started. */
+    synchronized void start() {
+        if (started) {
+            return;
+        }
+
+        started = true;
+        listen(System.currentTimeMillis());
+    }
+
+    /** Stops listening. The last view is kept, but is no longer fresh. */
+    synchronized void stop() {
+        started = false;
+        inSync = false;
+        generation++;
+
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+    }
+
+    /**
+     * Returns the latest view if it is at most the staleness behind the database, or null otherwise.
+     * Listens again if the listener failed more than {@link #RETRY_INTERVAL_MILLIS} ago.
+     *
+     * @param maxStalenessMillis How far behind the database the view may be.
+     * @param nowMillis The current time in milliseconds since the epoch.
+     * @return The view, or null if there is none or it is too stale.
+     */
+    @Nullable
+    View getFreshView(long maxStalenessMillis, long nowMillis) {
+        if (!inSync) {
+            retryIfDue(nowMillis);
+        }
+
+        View current = view;
+        if (current == null) {
+            return null;
+        }
+
+        long lagMillis = getLagMillis(nowMillis);
+        return lagMillis >= 0 && lagMillis <= maxStalenessMillis ? current : null;
+    }
+
+    /**
+     * Returns how far behind the database the replica is, in milliseconds. While the listener is in sync,
+     * it is how long the last snapshot took to arrive; otherwise it is how old the last view is.
+     * Returns -1 until the first snapshot.
+     */
+    long getLagMillis(long nowMillis) {
+        View current = view;
+        if (current == null) {
+            return -1;
+        }
+
+        return inSync ? lastSnapshotLagMillis : Math.max(0, nowMillis - current.getReadTimeMillis());
+    }
+
+    /**
+     * Applies the changes of one snapshot and publishes the new view.
+     *
+     * @param upserts Job posts that were added to or changed within the ACTIVE ones, with their versions.
+     * @param removals Ids of the job posts that are no longer ACTIVE.
+     * @param complete Whether the upserts are all the ACTIVE job posts, as in the first snapshot of a listener,
+     *                 so that the ones missing from them are removed as well.
+     * @param readTimeMillis Time the snapshot was read at.
+     * @param receivedAtMillis Time the snapshot reached this instance.
+     */
+    synchronized void apply(Map<String, VersionedJob> upserts, Set<String> removals, boolean complete,
+                            long readTimeMillis, long receivedAtMillis) {
+        View previous = view;
+        List<ImmutableMap<String, VersionedJob>> shards = new ArrayList<>(SHARD_COUNT);
+        if (complete || previous == null) {
+            shards.addAll(Collections.nCopies(SHARD_COUNT, ImmutableMap.of()));
+        } else {
+            shards.addAll(previous.shards);
+        }
+
+        // Only the shards holding a change are copied
+        Map<Integer, Map<String, VersionedJob>> changedShards = new HashMap<>();
+        for (Map.Entry<String, VersionedJob> upsert : upserts.entrySet()) {
+            getChangedShard(changedShards, shards, upsert.getKey()).put(upsert.getKey(), upsert.getValue());
+        }
+        for (String jobId : removals) {
+            getChangedShard(changedShards, shards, jobId).remove(jobId);
+        }
+        changedShards.forEach((shard, jobsById) -> shards.set(shard, ImmutableMap.copyOf(jobsById)));
+
+        view = new View(shards, readTimeMillis);
+        lastSnapshotLagMillis = Math.max(0, receivedAtMillis - readTimeMillis);
+        inSync = true;
+
+        if (complete) {
+            // The changes made while the listener was away are unknown, so the listener starts over
+            ImmutableMap<String, Job> activeJobsById = view.getJobsById();
+            listenerExecutor.execute(() -> changeListener.onReload(activeJobsById));
+        } else {
+            ImmutableMap<String, Job> upserted =
+                    ImmutableMap.copyOf(Maps.transformValues(upserts, VersionedJob::getJob));
+            List<String> removed = new ArrayList<>(removals);
+            listenerExecutor.execute(() -> {
+                upserted.forEach(changeListener::onUpsert);
+                removed.forEach(changeListener::onRemove);
+            });
+        }
+    }
+
+    /** Returns the shard a job post belongs to. */
+    private static int getShard(String jobId) {
+        return Math.floorMod(jobId.hashCode(), SHARD_COUNT);
+    }
+
+    /** Returns the mutable copy of the shard of a job post, copying it on its first change. */
+    private static Map<String, VersionedJob> getChangedShard(Map<Integer, Map<String, VersionedJob>> changedShards,
+                                                             List<ImmutableMap<String, VersionedJob>> shards,
+                                                             String jobId) {
+        return changedShards.computeIfAbsent(getShard(jobId), shard -> new HashMap<>(shards.get(shard)));
+    }
+
+    // Only called while holding the lock
+    private void listen(long nowMillis) {
+        lastAttemptMillis = nowMillis;
+        awaitingFirstSnapshot = true;
+        int listenerGeneration = ++generation;
+
+        try {
+            registration = subscriber.apply((snapshot, error) -> onEvent(listenerGeneration, snapshot, error));
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "replica: could not listen to the active job posts", e);
+            registration = null;
+        }
+    }
+
+    private synchronized void retryIfDue(long nowMillis) {
+        if (started && registration == null && nowMillis - lastAttemptMillis >= RETRY_INTERVAL_MILLIS) {
+            listen(nowMillis);
+        }
+    }
+
+    private synchronized void onEvent(int listenerGeneration, @Nullable QuerySnapshot snapshot,
+                                      @Nullable FirestoreException error) {
+        if (listenerGeneration != generation) {
+            return;
+        }
+
+        if (error != null || snapshot == null) {
+            // The listener does not recover by itself once it has reported an error
+            log.log(Level.WARNING, "replica: the listener of the active job posts failed", error);
+            inSync = false;
+            registration = null;
+            return;
+        }
+
+        Map<String, VersionedJob> upserts = new HashMap<>();
+        Set<String> removals = new HashSet<>();
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            QueryDocumentSnapshot document = change.getDocument();
+            Optional<Job> job = change.getType() == DocumentChange.Type.REMOVED
+                    ? Optional.empty()
+                    : JobDocumentMapper.toValidJob(document);
+
+            if (job.isPresent()) {
+                upserts.put(document.getId(), new VersionedJob(job.get(), document.getUpdateTime()));
+            } else {
+                removals.add(document.getId());
+            }
+        }
+
+        boolean complete = awaitingFirstSnapshot;
+        awaitingFirstSnapshot = false;
+        apply(upserts, removals, complete, toMillis(snapshot.getReadTime()), System.currentTimeMillis());
+    }
+
+    private static long toMillis(Timestamp timestamp) {
+        return TimeUnit.SECONDS.toMillis(timestamp.getSeconds()) + TimeUnit.NANOSECONDS.toMillis(timestamp.getNanos());
+    }
+}
@@ -0,0 +1,188 @@
+package com.google.job.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.utils.GeoUtils;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of the ACTIVE job posts that aggregates them into map clusters.
+ * The job posts are bucketed by the prefixes of their geohash, one level per geohash precision, so that
+ * a map view is answered with the cells of the level that fits its zoom, whatever the number of job posts.
+ */
+final class ClusterIndex implements ActiveJobsListener {
+    static final int MAX_ZOOM = 22;
+
+    private static final int MIN_PRECISION = 1;
+    private static final int MAX_PRECISION = 8;
+
+    /** Clusters are kept about this wide on the map, in pixels, so that they do not overlap. */
+    private static final int CLUSTER_SIZE_PIXELS = 64;
+
+    /** Width of the whole world at zoom 0, in pixels. */
+    private static final int WORLD_SIZE_PIXELS = 256;
+
+    // Guarded by this
+    private final Map<String, Job> jobsById = new HashMap<>();
+
+    // Rebuilt lazily after a change; null when out of date
+    @Nullable
+    private volatile Snapshot snapshot;
+
+    /** Running totals of the job posts in one cell. */
+    private static final class Aggregate {
+        private final String geohash;
+        private long count = 0;
+        private double latitudeSum = 0;
+        private double longitudeSum = 0;
+        private double minLatitude = Double.MAX_VALUE;
+        private double maxLatitude = -Double.MAX_VALUE;
+        private double minLongitude = Double.MAX_VALUE;
+        private double maxLongitude = -Double.MAX_VALUE;
+        @Nullable
+        private String sampleJobId;
+
+        private Aggregate(String geohash) {
+            this.geohash = geohash;
+        }
+
+        private void add(String jobId, Location location) {
+            count++;
+            latitudeSum += location.getLatitude();
+            longitudeSum += location.getLongitude();
+            minLatitude = Math.min(minLatitude, location.getLatitude());
+            maxLatitude = Math.max(maxLatitude, location.getLatitude());
+            minLongitude = Math.min(minLongitude, location.getLongitude());
+            maxLongitude = Math.max(maxLongitude, location.getLongitude());
+
+            // The smallest id, so that the sample does not change from one rebuild to the next
+            if (sampleJobId == null || jobId.compareTo(sampleJobId) < 0) {
+                sampleJobId = jobId;
+            }
+        }
+
+        /** Returns whether any of the job posts may be in the bounds. */
+        private boolean intersects(double south, double west, double north, double east) {
+            return minLatitude <= north && maxLatitude >= south && minLongitude <= east && maxLongitude >= west;
+        }
+
+        private JobCluster toJobCluster() {
+            return new JobCluster(geohash, count, latitudeSum / count, longitudeSum / count, sampleJobId);
+        }
+    }
+
+    /** The cells of every level, by geohash, indexed by the precision of the level. */
+    private static final class Snapshot {
+        private final List<List<Aggregate>> aggregatesByPrecision;
+
+        private Snapshot(Map<String, Job> jobsById) {
+            List<Map<String, Aggregate>> levels = new ArrayList<>();
+            for (int precision = 0; precision <= MAX_PRECISION; precision++) {
+                levels.add(new HashMap<>());
+            }
+
+            for (Map.Entry<String, Job> entry : jobsById.entrySet()) {
+                Location location = entry.getValue().getJobLocation();
+                String geohash = GeoUtils.encodeGeohash(location.getLatitude(), location.getLongitude(), MAX_PRECISION);
+
+                for (int precision = MIN_PRECISION; precision <= MAX_PRECISION; precision++) {
+                    String cell = geohash.substring(0, precision);
+                    levels.get(precision).computeIfAbsent(cell, Aggregate::new).add(entry.getKey(), location);
+                }
+            }
+
+            ImmutableList.Builder<List<Aggregate>> aggregatesByPrecision = ImmutableList.builder();
+            for (Map<String, Aggregate> level : levels) {
+                List<Aggregate> aggregates = new ArrayList<>(level.values());
+                aggregates.sort(Comparator.comparing(aggregate -> aggregate.geohash));
+                aggregatesByPrecision.add(ImmutableList.copyOf(aggregates));
+            }
+
+            this.aggregatesByPrecision = aggregatesByPrecision.build();
+        }
+    }
+
+    /**
+     * Returns the clusters of the job posts in the map view. Each cluster is a geohash cell, of the precision
+     * whose cells are about {@link #CLUSTER_SIZE_PIXELS} wide at the zoom.
+     *
+     * @param south Southern latitude of the view.
+     * @param west Western longitude of the view.
+     * @param north Northern latitude of the view.
+     * @param east Eastern longitude of the view.
+     * @param zoom Zoom level of the map, from 0 for the whole world to {@link #MAX_ZOOM}.
+     * @return The clusters that have job posts in the view, ordered by geohash.
+     */
+    List<JobCluster> getClusters(double south, double west, double north, double east, int zoom) {
+        List<Aggregate> aggregates = getSnapshot().aggregatesByPrecision.get(getPrecision(zoom));
+
+        ImmutableList.Builder<JobCluster> clusters = ImmutableList.builder();
+        for (Aggregate aggregate : aggregates) {
+            if (aggregate.intersects(south, west, north, east)) {
+                clusters.add(aggregate.toJobCluster());
+            }
+        }
+
+        return clusters.build();
+    }
+
+    @Override
+    public synchronized void onReload(Map<String, Job> activeJobsById) {
+        jobsById.clear();
+        jobsById.putAll(activeJobsById);
+        snapshot = null;
+    }
+
+    @Override
+    public synchronized void onUpsert(String jobId, Job job) {
+        jobsById.put(jobId, job);
+        snapshot = null;
+    }
+
+    @Override
+    public synchronized void onRemove(String jobId) {
+        if (jobsById.remove(jobId) != null) {
+            snapshot = null;
+        }
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (snapshot == null) {
+                snapshot = new Snapshot(jobsById);
+            }
+
+            return snapshot;
+        }
+    }
+
+    /** Returns the most precise level whose cells are at least as wide as a cluster at the zoom. */
+    static int getPrecision(int zoom) {
+        double clusterWidthDegrees = 360.0 / WORLD_SIZE_PIXELS * CLUSTER_SIZE_PIXELS / Math.pow(2, zoom);
+
+        for (int precision = MAX_PRECISION; precision > MIN_PRECISION; precision--) {
+            if (getCellWidthDegrees(precision) >= clusterWidthDegrees) {
+                return precision;
+            }
+        }
+
+        return MIN_PRECISION;
+    }
+
+    /** Returns the width of the geohash cells of the precision, in degrees of longitude. */
+    private static double getCellWidthDegrees(int precision) {
+        // Longitude takes the first of the alternating bits, so it gets the extra one of an odd count
+        int longitudeBits = (precision * 5 + 1) / 2;
+        return 360.0 / Math.pow(2, longitudeBits);
+    }
+}
@@ -0,0 +1,95 @@
+package com.google.job.data;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of the ACTIVE job posts that answers which of them an applicant is eligible for.
+ * A job post is eligible when all of its requirements are among the applicant's, which is checked with
+ * the requirement bit masks: {@code (jobMask & ~applicantMask) == 0}.
+ */
+final class EligibilityIndex implements ActiveJobsListener {
+    // Guarded by this
+    private final Map<String, Job> jobsById = new HashMap<>();
+
+    // Rebuilt lazily after a change; null when out of date
+    @Nullable
+    private volatile Snapshot snapshot;
+
+    /** Parallel arrays of the indexed job posts, scanned without touching the requirements maps. */
+    private static final class Snapshot {
+        private final long[] requirementsMasks;
+        private final Job[] jobs;
+
+        private Snapshot(Map<String, Job> jobsById) {
+            this.requirementsMasks = new long[jobsById.size()];
+            this.jobs = new Job[jobsById.size()];
+
+            int i = 0;
+            for (Job job : jobsById.values()) {
+                requirementsMasks[i] = job.getRequirementsMask();
+                jobs[i] = job;
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Returns the job posts the applicant is eligible for.
+     *
+     * @param applicantMask Bit mask of the requirements the applicant has, see {@link Requirement#getBitMask()}.
+     * @return The eligible job posts.
+     */
+    List<Job> findEligible(long applicantMask) {
+        Snapshot current = getSnapshot();
+
+        long missingRequirements = ~applicantMask;
+        ImmutableList.Builder<Job> eligibleJobs = ImmutableList.builder();
+        for (int i = 0; i < current.requirementsMasks.length; i++) {
+            if ((current.requirementsMasks[i] & missingRequirements) == 0) {
+                eligibleJobs.add(current.jobs[i]);
+            }
+        }
+
+        return eligibleJobs.build();
+    }
+
+    @Override
+    public synchronized void onReload(Map<String, Job> activeJobsById) {
+        jobsById.clear();
+        jobsById.putAll(activeJobsById);
+        snapshot = null;
+    }
+
+    @Override
+    public synchronized void onUpsert(String jobId, Job job) {
+        jobsById.put(jobId, job);
+        snapshot = null;
+    }
+
+    @Override
+    public synchronized void onRemove(String jobId) {
+        if (jobsById.remove(jobId) != null) {
+            snapshot = null;
+        }
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (snapshot == null) {
+                snapshot = new Snapshot(jobsById);
+            }
+
+            return snapshot;
+        }
+    }
+}
@@ -2,7 +2,11 @@ package com.google.job.data;
 
 /** Enumeration for filters that can be applied to the job listings. */
 public enum Filter {
-    SALARY("SALARY");
+    SALARY("SALARY"),
+    // Nearest first from the place set with JobQuery#setLocation
+    DISTANCE("DISTANCE"),
+    // Best match first for the text set with JobQuery#setSearchText
+    RELEVANCE("RELEVANCE");
 
     private final String filterId;
 
@@ -0,0 +1,264 @@
+package com.google.job.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.utils.GeoUtils;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * In-memory grid index of the ACTIVE job posts by location, that answers which of them are nearest to a place.
+ * The job posts are bucketed into cells of {@link #CELL_SIZE_DEGREES} degrees, and a query only looks at the
+ * cells around the place, nearest ring first, until no unseen job post can be nearer than the ones found.
+ */
+final class GeoIndex implements ActiveJobsListener {
+    /** About 1.1km in Singapore, so that a walking distance query only looks at a few cells. */
+    static final double CELL_SIZE_DEGREES = 0.01;
+
+    /** Distances are compared in whole centimeters, so that the order of a page token is unambiguous. */
+    private static final Comparator<NearbyJob> NEAREST_FIRST = Comparator
+            .comparingLong(NearbyJob::getDistanceCentimeters)
+            .thenComparing(NearbyJob::getJobId);
+
+    // Guarded by this
+    private final Map<String, Job> jobsById = new HashMap<>();
+
+    // Rebuilt lazily after a change; null when out of date
+    @Nullable
+    private volatile Snapshot snapshot;
+
+    /** A job post found near a place, with its distance to it. */
+    static final class NearbyJob {
+        private final String jobId;
+        private final Job job;
+        private final long distanceCentimeters;
+
+        NearbyJob(String jobId, Job job, long distanceCentimeters) {
+            this.jobId = jobId;
+            this.job = job;
+            this.distanceCentimeters = distanceCentimeters;
+        }
+
+        /** Returns the cloud firestore id of the job post. */
+        String getJobId() {
+            return jobId;
+        }
+
+        /** Returns the job post. */
+        Job getJob() {
+            return job;
+        }
+
+        /** Returns the distance from the place to the job post, in whole centimeters. */
+        long getDistanceCentimeters() {
+            return distanceCentimeters;
+        }
+    }
+
+    /** The job posts of one cell of the grid. */
+    private static final class Cell {
+        private final int row;
+        private final int column;
+        private final List<String> jobIds = new ArrayList<>();
+        private final List<Job> jobs = new ArrayList<>();
+
+        private Cell(int row, int column) {
+            this.row = row;
+            this.column = column;
+        }
+    }
+
+    /** The non-empty cells of the grid, and the rows and columns they span. */
+    private static final class Snapshot {
+        private final Map<Long, Cell> cellsByKey = new HashMap<>();
+        private int minRow = Integer.MAX_VALUE;
+        private int maxRow = Integer.MIN_VALUE;
+        private int minColumn = Integer.MAX_VALUE;
+        private int maxColumn = Integer.MIN_VALUE;
+
+        private Snapshot(Map<String, Job> jobsById) {
+            for (Map.Entry<String, Job> entry : jobsById.entrySet()) {
+                Location location = entry.getValue().getJobLocation();
+                int row = getRow(location.getLatitude());
+                int column = getColumn(location.getLongitude());
+
+                Cell cell = cellsByKey.computeIfAbsent(getKey(row, column), key -> new Cell(row, column));
+                cell.jobIds.add(entry.getKey());
+                cell.jobs.add(entry.getValue());
+
+                minRow = Math.min(minRow, row);
+                maxRow = Math.max(maxRow, row);
+                minColumn = Math.min(minColumn, column);
+                maxColumn = Math.max(maxColumn, column);
+            }
+        }
+    }
+
+    /**
+     * Returns the job posts nearest to the place, nearest first. Ties are broken by job id.
+     *
+     * @param latitude Latitude of the place.
+     * @param longitude Longitude of the place.
+     * @param maxDistanceMeters Job posts further than this are left out.
+     * @param filter Job posts that do not match it are left out.
+     * @param after Only the job posts after this one in the nearest first order are returned, or null for all.
+     * @param limit The maximum number of job posts returned.
+     * @return The nearest job posts.
+     */
+    List<NearbyJob> findNearest(double latitude, double longitude, double maxDistanceMeters, Predicate<Job> filter,
+                                @Nullable NearbyJob after, int limit) {
+        Snapshot current = getSnapshot();
+        if (current.cellsByKey.isEmpty() || limit <= 0) {
+            return ImmutableList.of();
+        }
+
+        int centerRow = getRow(latitude);
+        int centerColumn = getColumn(longitude);
+
+        // Only the rings that overlap the non-empty cells are walked
+        int firstRing = Math.max(0, Math.max(
+                Math.max(current.minRow - centerRow, centerRow - current.maxRow),
+                Math.max(current.minColumn - centerColumn, centerColumn - current.maxColumn)));
+        int lastRing = Math.max(
+                Math.max(Math.abs(current.minRow - centerRow), Math.abs(current.maxRow - centerRow)),
+                Math.max(Math.abs(current.minColumn - centerColumn), Math.abs(current.maxColumn - centerColumn)));
+
+        // The nearest job posts found so far, furthest on top so that it is the one replaced
+        PriorityQueue<NearbyJob> nearest = new PriorityQueue<>(limit, NEAREST_FIRST.reversed());
+        double cellSizeMeters = getMinCellSizeMeters(latitude);
+        for (int ring = firstRing; ring <= lastRing; ring++) {
+            // The place is in the center cell, so a cell of this ring is at least this far from it
+            double minDistanceMeters = Math.max(0, ring - 1) * cellSizeMeters;
+            if (minDistanceMeters > maxDistanceMeters) {
+                break;
+            }
+
+            // Nor can any of them be nearer than the furthest of the job posts found, once there are enough
+            if (nearest.size() == limit
+                    && Math.round(minDistanceMeters * 100) > nearest.peek().getDistanceCentimeters()) {
+                break;
+            }
+
+            for (Cell cell : getRingCells(current, centerRow, centerColumn, ring)) {
+                for (int i = 0; i < cell.jobs.size(); i++) {
+                    Job job = cell.jobs.get(i);
+                    Location location = job.getJobLocation();
+                    double distanceMeters = GeoUtils.distanceMeters(
+                            latitude, longitude, location.getLatitude(), location.getLongitude());
+                    if (distanceMeters > maxDistanceMeters || !filter.test(job)) {
+                        continue;
+                    }
+
+                    NearbyJob nearbyJob = new NearbyJob(cell.jobIds.get(i), job, Math.round(distanceMeters * 100));
+                    if (after != null && NEAREST_FIRST.compare(nearbyJob, after) <= 0) {
+                        continue;
+                    }
+
+                    if (nearest.size() < limit) {
+                        nearest.add(nearbyJob);
+                    } else if (NEAREST_FIRST.compare(nearbyJob, nearest.peek()) < 0) {
+                        nearest.poll();
+                        nearest.add(nearbyJob);
+                    }
+                }
+            }
+        }
+
+        List<NearbyJob> found = new ArrayList<>(nearest);
+        found.sort(NEAREST_FIRST);
+        return ImmutableList.copyOf(found);
+    }
+
+    @Override
+    public synchronized void onReload(Map<String, Job> activeJobsById) {
+        jobsById.clear();
+        jobsById.putAll(activeJobsById);
+        snapshot = null;
+    }
+
+    @Override
+    public synchronized void onUpsert(String jobId, Job job) {
+        jobsById.put(jobId, job);
+        snapshot = null;
+    }
+
+    @Override
+    public synchronized void onRemove(String jobId) {
+        if (jobsById.remove(jobId) != null) {
+            snapshot = null;
+        }
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (snapshot == null) {
+                snapshot = new Snapshot(jobsById);
+            }
+
+            return snapshot;
+        }
+    }
+
+    /** Returns the non-empty cells that are the number of cells away from the center cell, in either direction. */
+    private static List<Cell> getRingCells(Snapshot current, int centerRow, int centerColumn, int ring) {
+        List<Cell> cells = new ArrayList<>();
+        int firstRow = Math.max(centerRow - ring, current.minRow);
+        int lastRow = Math.min(centerRow + ring, current.maxRow);
+        int firstColumn = Math.max(centerColumn - ring, current.minColumn);
+        int lastColumn = Math.min(centerColumn + ring, current.maxColumn);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            if (Math.abs(row - centerRow) == ring) {
+                // The top and bottom sides of the ring
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    addCell(cells, current, row, column);
+                }
+            } else {
+                // The left and right sides
+                addCell(cells, current, row, centerColumn - ring);
+                addCell(cells, current, row, centerColumn + ring);
+            }
+        }
+
+        return cells;
+    }
+
+    private static void addCell(List<Cell> cells, Snapshot current, int row, int column) {
+        Cell cell = current.cellsByKey.get(getKey(row, column));
+        if (cell != null) {
+            cells.add(cell);
+        }
+    }
+
+    private static long getKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    private static int getRow(double latitude) {
+        return (int) Math.floor(latitude / CELL_SIZE_DEGREES);
+    }
+
+    private static int getColumn(double longitude) {
+        return (int) Math.floor(longitude / CELL_SIZE_DEGREES);
+    }
+
+    /**
+     * Returns a lower bound of the width and the height of the cells around the latitude. Cells get narrower
+     * away from the equator, so the bound is taken one degree further from it.
+     */
+    private static double getMinCellSizeMeters(double latitude) {
+        double furthestLatitude = Math.min(90, Math.abs(latitude) + 1);
+        return CELL_SIZE_DEGREES * GeoUtils.METERS_PER_DEGREE * Math.cos(Math.toRadians(furthestLatitude));
+    }
+}
@@ -0,0 +1,154 @@
+package com.google.job.data;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces the changes to the applicants' interested lists. The changes an applicant makes within
+ * {@code windowMillis} of the first one are merged, so that only the last change to each job is kept,
+ * and written together. A job that ends the window as it was before its first change is not written at all,
+ * so every added job was not in the list and every removed job was in it, as the callers saw the list; the
+ * writer can then keep a count of the list without reading it. The writes of an applicant are made one after
+ * the other, in the order of the changes.
+ */
+final class InterestedJobsWriter {
+    /** Writes the merged changes to an applicant's interested list. */
+    interface Flusher {
+        /**
+         * @param applicantId The applicant's userId.
+         * @param addedJobIds Ids of the jobs to add to the interested list, none of which is in it.
+         * @param removedJobIds Ids of the jobs to remove from the interested list, all of which are in it.
+         * @return Future that completes once the changes are durable.
+         */
+        ApiFuture<Void> write(String applicantId, Set<String> addedJobIds, Set<String> removedJobIds);
+    }
+
+    private final ScheduledExecutorService scheduler;
+    private final long windowMillis;
+    private final Flusher flusher;
+    private final Object lock = new Object();
+
+    // Guarded by lock; the changes waiting for the end of their window, by applicant
+    private final Map<String, PendingChanges> pendingChangesByApplicant = new HashMap<>();
+
+    // Guarded by lock; the last write of each applicant that has not completed yet
+    private final Map<String, ApiFuture<Void>> lastWriteByApplicant = new HashMap<>();
+
+    /**
+     * @param scheduler Runs the writes once their window is over.
+     * @param windowMillis How long the changes of an applicant are collected before they are written.
+     * @param flusher Writes the merged changes.
+     */
+    InterestedJobsWriter(ScheduledExecutorService scheduler, long windowMillis, Flusher flusher) {
+        this.scheduler = scheduler;
+        this.windowMillis = windowMillis;
+        this.flusher = flusher;
+    }
+
+    /**
+     * Adds the job to the applicant's interested list, or removes it.
+     *
+     * @param applicantId The applicant's userId.
+     * @param jobId The job id.
+     * @param interested Whether the job should be in the interested list.
+     * @return Future that completes once the change is durable, together with the changes it was merged with.
+     */
+    ApiFuture<Void> update(String applicantId, String jobId, boolean interested) {
+        synchronized (lock) {
+            PendingChanges pendingChanges = pendingChangesByApplicant.get(applicantId);
+            if (pendingChanges == null) {
+                pendingChanges = new PendingChanges();
+                pendingChangesByApplicant.put(applicantId, pendingChanges);
+                scheduler.schedule(() -> flush(applicantId), windowMillis, TimeUnit.MILLISECONDS);
+            }
+
+            // Only the last change to a job matters, so that toggling it back and forth writes it once at most
+            pendingChanges.wasInterestedByJobId.putIfAbsent(jobId, !interested);
+            pendingChanges.interestedByJobId.put(jobId, interested);
+
+            SettableApiFuture<Void> durable = SettableApiFuture.create();
+            pendingChanges.callers.add(durable);
+            return durable;
+        }
+    }
+
+    /** Writes the pending changes of the applicant, once its previous write has completed. */
+    private void flush(String applicantId) {
+        PendingChanges pendingChanges;
+        ApiFuture<Void> write;
+        synchronized (lock) {
+            pendingChanges = pendingChangesByApplicant.remove(applicantId);
+            if (pendingChanges == null) {
+                return;
+            }
+
+            ApiFuture<Void> previousWrite = lastWriteByApplicant.get(applicantId);
+            // The changes are written whether or not the previous ones were
+            ApiFuture<Void> previousWriteDone = previousWrite == null
+                    ? ApiFutures.immediateFuture(null)
+                    : ApiFutures.catching(previousWrite, Throwable.class, t -> null, MoreExecutors.directExecutor());
+
+            Set<String> addedJobIds = pendingChanges.getJobIds(/* interested= */ true);
+            Set<String> removedJobIds = pendingChanges.getJobIds(/* interested= */ false);
+            write = ApiFutures.transformAsync(
+                previousWriteDone,
+                ignored -> flusher.write(applicantId, addedJobIds, removedJobIds),
+                MoreExecutors.directExecutor()
+            );
+            lastWriteByApplicant.put(applicantId, write);
+        }
+
+        ApiFutures.addCallback(write, new ApiFutureCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                done();
+                pendingChanges.callers.forEach(caller -> caller.set(null));
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                done();
+                pendingChanges.callers.forEach(caller -> caller.setException(t));
+            }
+
+            private void done() {
+                synchronized (lock) {
+                    lastWriteByApplicant.remove(applicantId, write);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    /** The changes of an applicant within a window, and the callers waiting for them. */
+    private static final class PendingChanges {
+        // In the order the jobs were first changed
+        private final Map<String, Boolean> interestedByJobId = new LinkedHashMap<>();
+        // Whether each job was in the list before its first change of the window
+        private final Map<String, Boolean> wasInterestedByJobId = new HashMap<>();
+        private final List<SettableApiFuture<Void>> callers = new ArrayList<>();
+
+        private Set<String> getJobIds(boolean interested) {
+            ImmutableSet.Builder<String> jobIds = ImmutableSet.builder();
+            interestedByJobId.forEach((jobId, jobInterested) -> {
+                if (jobInterested == interested && wasInterestedByJobId.get(jobId) != interested) {
+                    jobIds.add(jobId);
+                }
+            });
+
+            return jobIds.build();
+        }
+    }
+}
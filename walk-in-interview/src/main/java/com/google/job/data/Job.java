@@ -1,11 +1,13 @@
 package com.google.job.data;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.gson.annotations.JsonAdapter;
 
 import javax.annotation.Nullable;
 import java.util.*;
 
 /** Class for a job post. */
+@JsonAdapter(JobTypeAdapter.class)
 public final class Job {
     private final String jobId;
     // TODO(issue/25): merge the account stuff into job post.
@@ -130,22 +132,7 @@ public final class Job {
         }
 
         public JobBuilder setRequirements(Map<String, Boolean> requirements) {
-            Map<String, Boolean> inputRequirementsMap = new HashMap<>(requirements);
-            Set<String> requirementsSet = new HashSet<>(Requirement.getAllRequirementIds());
-
-            // Removes redundant requirement
-            inputRequirementsMap.entrySet().removeIf(entry -> !requirementsSet.contains(entry.getKey()));
-
-            // Checks if requirement missing and adds accordingly
-            for (String requirement: requirementsSet) {
-                if (inputRequirementsMap.containsKey(requirement)) {
-                    continue;
-                }
-
-                inputRequirementsMap.put(requirement, false);
-            }
-
-            this.requirements = ImmutableMap.copyOf(inputRequirementsMap);
+            this.requirements = normalizeRequirements(requirements);
             return this;
         }
 
@@ -188,6 +175,31 @@ public final class Job {
         }
     }
 
+    /**
+     * Returns the requirements with only the known requirement ids, each of them set.
+     *
+     * @param requirements Requirements by stable id.
+     * @return The requirements with redundant ids removed and missing ones set to false.
+     */
+    static Map<String, Boolean> normalizeRequirements(Map<String, Boolean> requirements) {
+        Map<String, Boolean> inputRequirementsMap = new HashMap<>(requirements);
+        Set<String> requirementsSet = new HashSet<>(Requirement.getAllRequirementIds());
+
+        // Removes redundant requirement
+        inputRequirementsMap.entrySet().removeIf(entry -> !requirementsSet.contains(entry.getKey()));
+
+        // Checks if requirement missing and adds accordingly
+        for (String requirement: requirementsSet) {
+            if (inputRequirementsMap.containsKey(requirement)) {
+                continue;
+            }
+
+            inputRequirementsMap.put(requirement, false);
+        }
+
+        return ImmutableMap.copyOf(inputRequirementsMap);
+    }
+
     /** Returns the id for the job post. */
     public String getJobId() {
         return jobId;
@@ -223,6 +235,15 @@ public final class Job {
         return requirements;
     }
 
+    /**
+     * Returns the bit mask of the requirements of the job post, see {@link Requirement#getBitMask()}.
+     * It is computed from the requirements, so that eligibility can be checked in memory without the map.
+     * Package-private, so that it is not a bean property the cloud firestore mapper would write.
+     */
+    long getRequirementsMask() {
+        return Requirement.getRequirementsMask(requirements);
+    }
+
     /** Returns the date when the job post will expire. */
     public long getPostExpiryTimestamp() {
         return postExpiryTimestamp;
@@ -0,0 +1,98 @@
+package com.google.job.data;
+
+/** Class that represents the ACTIVE job posts of one map cell, drawn as a single marker. */
+public final class JobCluster {
+    private final String geohash;
+    private final long count;
+    private final double latitude;
+    private final double longitude;
+    private final String sampleJobId;
+
+    /**
+     * @param geohash Geohash of the cell.
+     * @param count Number of job posts in the cell.
+     * @param latitude Mean latitude of the job posts.
+     * @param longitude Mean longitude of the job posts.
+     * @param sampleJobId Cloud Firestore id of one of the job posts, shown when the cell is opened.
+     */
+    public JobCluster(String geohash, long count, double latitude, double longitude, String sampleJobId) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count should be positive");
+        }
+
+        if (sampleJobId.isEmpty()) {
+            throw new IllegalArgumentException("Sample job Id should be an non-empty string");
+        }
+
+        this.geohash = geohash;
+        this.count = count;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.sampleJobId = sampleJobId;
+    }
+
+    /** Returns the geohash of the cell. */
+    public String getGeohash() {
+        return geohash;
+    }
+
+    /** Returns the number of job posts in the cell. */
+    public long getCount() {
+        return count;
+    }
+
+    /** Returns the latitude of the centroid of the job posts. */
+    public double getLatitude() {
+        return latitude;
+    }
+
+    /** Returns the longitude of the centroid of the job posts. */
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /** Returns the id of one of the job posts. */
+    public String getSampleJobId() {
+        return sampleJobId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JobCluster that = (JobCluster) o;
+        return count == that.count &&
+                Double.compare(latitude, that.latitude) == 0 &&
+                Double.compare(longitude, that.longitude) == 0 &&
+                geohash.equals(that.geohash) &&
+                sampleJobId.equals(that.sampleJobId);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+
+        int c = geohash.hashCode();
+        result = 31 * result + c;
+
+        c = Long.hashCode(count);
+        result = 31 * result + c;
+
+        c = Double.hashCode(latitude);
+        result = 31 * result + c;
+
+        c = Double.hashCode(longitude);
+        result = 31 * result + c;
+
+        c = sampleJobId.hashCode();
+        result = 31 * result + c;
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JobCluster{geohash=%s, count=%d, latitude=%f, longitude=%f, sampleJobId=%s}",
+                geohash, count, latitude, longitude, sampleJobId);
+    }
+}
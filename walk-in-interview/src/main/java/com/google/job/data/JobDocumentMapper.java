@@ -0,0 +1,291 @@
+package com.google.job.data;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Maps job posts to and from their cloud firestore documents.
+ * The document layout is the one written by the firestore bean mapper, including the derived
+ * {@code jobPay.annualMax} field that queries depend on.
+ */
+final class JobDocumentMapper {
+    private static final Logger log = Logger.getLogger(JobDocumentMapper.class.getName());
+
+    private static final String JOB_ID_FIELD = "jobId";
+    private static final String JOB_STATUS_FIELD = "jobStatus";
+    private static final String JOB_TITLE_FIELD = "jobTitle";
+    private static final String JOB_LOCATION_FIELD = "jobLocation";
+    private static final String JOB_DESCRIPTION_FIELD = "jobDescription";
+    private static final String JOB_PAY_FIELD = "jobPay";
+    private static final String REQUIREMENTS_FIELD = "requirements";
+    private static final String POST_EXPIRY_TIMESTAMP_FIELD = "postExpiryTimestamp";
+    private static final String JOB_DURATION_FIELD = "jobDuration";
+
+    private static final String ADDRESS_FIELD = "address";
+    private static final String POSTAL_CODE_FIELD = "postalCode";
+    private static final String REGION_FIELD = "region";
+    private static final String LATITUDE_FIELD = "latitude";
+    private static final String LONGITUDE_FIELD = "longitude";
+
+    private static final String MIN_FIELD = "min";
+    private static final String MAX_FIELD = "max";
+    private static final String PAYMENT_FREQUENCY_FIELD = "paymentFrequency";
+    private static final String ANNUAL_MAX_FIELD = "annualMax";
+
+    private JobDocumentMapper() {}
+
+    /**
+     * Converts the document to a job post.
+     *
+     * @param document Document of the job post.
+     * @return The job post, or empty if the document does not exist.
+     * @throws IllegalArgumentException If the document is not a valid job post.
+     */
+    static Optional<Job> toJob(DocumentSnapshot document) throws IllegalArgumentException {
+        Map<String, Object> data = document.getData();
+        if (data == null) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(toJob(data));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid job post document: " + document.getId(), e);
+        }
+    }
+
+    /**
+     * Converts the document to a job post, skipping it if it is not a valid job post.
+     * Used when reading many documents, so that one malformed document does not fail the others.
+     *
+     * @param document Document of the job post.
+     * @return The job post, or empty if the document does not exist or is not a valid job post.
+     */
+    static Optional<Job> toValidJob(DocumentSnapshot document) {
+        try {
+            return toJob(document);
+        } catch (IllegalArgumentException e) {
+            log.log(Level.WARNING, "skipping malformed job post", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Converts the document data to a job post.
+     *
+     * @param data Fields of the document.
+     * @return The job post.
+     * @throws IllegalArgumentException If the data is not a valid job post.
+     */
+    static Job toJob(Map<String, Object> data) throws IllegalArgumentException {
+        Job.JobBuilder jobBuilder = Job.newBuilder();
+
+        String jobId = getValue(data, JOB_ID_FIELD, String.class);
+        if (jobId != null) {
+            jobBuilder.setJobId(jobId);
+        }
+
+        String jobStatus = getValue(data, JOB_STATUS_FIELD, String.class);
+        if (jobStatus != null) {
+            jobBuilder.setJobStatus(JobStatus.getFromId(jobStatus));
+        }
+
+        String jobTitle = getValue(data, JOB_TITLE_FIELD, String.class);
+        if (jobTitle != null) {
+            jobBuilder.setJobTitle(jobTitle);
+        }
+
+        Map<String, Object> location = getMap(data, JOB_LOCATION_FIELD);
+        if (location != null) {
+            jobBuilder.setLocation(toLocation(location));
+        }
+
+        String jobDescription = getValue(data, JOB_DESCRIPTION_FIELD, String.class);
+        if (jobDescription != null) {
+            jobBuilder.setJobDescription(jobDescription);
+        }
+
+        Map<String, Object> jobPay = getMap(data, JOB_PAY_FIELD);
+        if (jobPay != null) {
+            jobBuilder.setJobPay(toJobPayment(jobPay));
+        }
+
+        Map<String, Object> requirements = getMap(data, REQUIREMENTS_FIELD);
+        if (requirements != null) {
+            Map<String, Boolean> requirementsMap = new HashMap<>();
+            for (String requirementId : requirements.keySet()) {
+                Boolean value = getValue(requirements, requirementId, Boolean.class);
+                if (value != null) {
+                    requirementsMap.put(requirementId, value);
+                }
+            }
+            jobBuilder.setRequirements(requirementsMap);
+        }
+
+        Number postExpiryTimestamp = getValue(data, POST_EXPIRY_TIMESTAMP_FIELD, Number.class);
+        if (postExpiryTimestamp != null) {
+            jobBuilder.setPostExpiry(postExpiryTimestamp.longValue());
+        }
+
+        String jobDuration = getValue(data, JOB_DURATION_FIELD, String.class);
+        if (jobDuration != null) {
+            jobBuilder.setJobDuration(JobDuration.getFromId(jobDuration));
+        }
+
+        return jobBuilder.build();
+    }
+
+    /**
+     * Converts the job post to the fields of its document.
+     *
+     * @param job The job post.
+     * @return Fields of the document.
+     */
+    static Map<String, Object> toDocument(Job job) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(JOB_ID_FIELD, job.getJobId());
+        data.put(JOB_STATUS_FIELD, job.getJobStatus().getStatusId());
+        data.put(JOB_TITLE_FIELD, job.getJobTitle());
+        data.put(JOB_LOCATION_FIELD, toLocationData(job.getJobLocation()));
+        data.put(JOB_DESCRIPTION_FIELD, job.getJobDescription());
+        data.put(JOB_PAY_FIELD, toJobPayData(job.getJobPay()));
+        data.put(REQUIREMENTS_FIELD, job.getRequirements());
+        data.put(POST_EXPIRY_TIMESTAMP_FIELD, job.getPostExpiryTimestamp());
+        data.put(JOB_DURATION_FIELD, job.getJobDuration().getDurationId());
+
+        return data;
+    }
+
+    /**
+     * Converts the patch to the top-level fields it sets, so that they can be written without reading the
+     * document first. A nested field, such as the location, is written as a whole along with its derived fields.
+     *
+     * @param jobPatch The patch of the job post.
+     * @return Fields to update, by field name.
+     */
+    static Map<String, Object> toDocument(JobPatch jobPatch) {
+        Map<String, Object> data = new HashMap<>();
+        if (jobPatch.getJobStatus() != null) {
+            data.put(JOB_STATUS_FIELD, jobPatch.getJobStatus().getStatusId());
+        }
+        if (jobPatch.getJobTitle() != null) {
+            data.put(JOB_TITLE_FIELD, jobPatch.getJobTitle());
+        }
+        if (jobPatch.getJobLocation() != null) {
+            data.put(JOB_LOCATION_FIELD, toLocationData(jobPatch.getJobLocation()));
+        }
+        if (jobPatch.getJobDescription() != null) {
+            data.put(JOB_DESCRIPTION_FIELD, jobPatch.getJobDescription());
+        }
+        if (jobPatch.getJobPay() != null) {
+            data.put(JOB_PAY_FIELD, toJobPayData(jobPatch.getJobPay()));
+        }
+        if (jobPatch.getRequirements() != null) {
+            data.put(REQUIREMENTS_FIELD, jobPatch.getRequirements());
+        }
+        if (jobPatch.getPostExpiryTimestamp() != null) {
+            data.put(POST_EXPIRY_TIMESTAMP_FIELD, jobPatch.getPostExpiryTimestamp());
+        }
+        if (jobPatch.getJobDuration() != null) {
+            data.put(JOB_DURATION_FIELD, jobPatch.getJobDuration().getDurationId());
+        }
+
+        return data;
+    }
+
+    private static Map<String, Object> toLocationData(Location location) {
+        Map<String, Object> locationData = new HashMap<>();
+        locationData.put(ADDRESS_FIELD, location.getAddress());
+        locationData.put(POSTAL_CODE_FIELD, location.getPostalCode());
+        locationData.put(REGION_FIELD, location.getRegion().getRegionId());
+        locationData.put(LATITUDE_FIELD, location.getLatitude());
+        locationData.put(LONGITUDE_FIELD, location.getLongitude());
+
+        return locationData;
+    }
+
+    private static Map<String, Object> toJobPayData(JobPayment jobPay) {
+        Map<String, Object> jobPayData = new HashMap<>();
+        jobPayData.put(MIN_FIELD, jobPay.getMin());
+        jobPayData.put(MAX_FIELD, jobPay.getMax());
+        jobPayData.put(PAYMENT_FREQUENCY_FIELD, jobPay.getPaymentFrequency().getFrequencyId());
+        jobPayData.put(ANNUAL_MAX_FIELD, jobPay.getAnnualMax());
+
+        return jobPayData;
+    }
+
+    /** Missing fields keep the default values of {@link Location#Location()}, as with the bean mapper. */
+    private static Location toLocation(Map<String, Object> data) throws IllegalArgumentException {
+        Location defaults = new Location();
+
+        String address = getValue(data, ADDRESS_FIELD, String.class);
+        String postalCode = getValue(data, POSTAL_CODE_FIELD, String.class);
+        String region = getValue(data, REGION_FIELD, String.class);
+        Number latitude = getValue(data, LATITUDE_FIELD, Number.class);
+        Number longitude = getValue(data, LONGITUDE_FIELD, Number.class);
+
+        return new Location(
+                address == null ? defaults.getAddress() : address,
+                postalCode == null ? defaults.getPostalCode() : postalCode,
+                region == null ? defaults.getRegion() : SingaporeRegion.getFromId(region),
+                latitude == null ? defaults.getLatitude() : latitude.doubleValue(),
+                longitude == null ? defaults.getLongitude() : longitude.doubleValue());
+    }
+
+    /** Missing fields keep the default values of {@link JobPayment#JobPayment()}, as with the bean mapper. */
+    private static JobPayment toJobPayment(Map<String, Object> data) throws IllegalArgumentException {
+        JobPayment defaults = new JobPayment();
+
+        Number min = getValue(data, MIN_FIELD, Number.class);
+        Number max = getValue(data, MAX_FIELD, Number.class);
+        String paymentFrequency = getValue(data, PAYMENT_FREQUENCY_FIELD, String.class);
+
+        return new JobPayment(
+                min == null ? defaults.getMin() : toInt(min, MIN_FIELD),
+                max == null ? defaults.getMax() : toInt(max, MAX_FIELD),
+                paymentFrequency == null
+                        ? defaults.getPaymentFrequency() : PaymentFrequency.getFromId(paymentFrequency));
+    }
+
+    private static int toInt(Number value, String field) throws IllegalArgumentException {
+        long longValue = value.longValue();
+        if (longValue < Integer.MIN_VALUE || longValue > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Field %s is out of range: %d", field, longValue));
+        }
+
+        return (int) longValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private static Map<String, Object> getMap(Map<String, Object> data, String field) throws IllegalArgumentException {
+        return (Map<String, Object>) getValue(data, field, Map.class);
+    }
+
+    /**
+     * Returns the value of the field, or null if it is missing.
+     *
+     * @throws IllegalArgumentException If the value is not of the expected type.
+     */
+    @Nullable
+    private static <T> T getValue(Map<String, Object> data, String field, Class<T> type)
+            throws IllegalArgumentException {
+        Object value = data.get(field);
+        if (value == null) {
+            return null;
+        }
+
+        if (!type.isInstance(value)) {
+            throw new IllegalArgumentException(String.format("Field %s should be a %s but is %s",
+                    field, type.getSimpleName(), value.getClass().getSimpleName()));
+        }
+
+        return type.cast(value);
+    }
+}
@@ -3,28 +3,28 @@ package com.google.job.data;
 import java.util.*;
 import org.apache.commons.lang3.Range;
 import com.google.common.collect.ImmutableList;
+import com.google.gson.annotations.JsonAdapter;
 
 /** Class that represents the details of a page to show jobs. */
+@JsonAdapter(JobPageTypeAdapter.class)
 public final class JobPage {
     private final List<Job> jobList;
-    private final long totalCount;
     private final Range<Integer> range;
+    private final String nextPageToken;
 
     private volatile int hashCode;
 
     // For serialization
     public JobPage() {
-        this(/* jobList= */ ImmutableList.of(), /* totalCount= */0,
-                Range.between(/* inclusive= */ 0, /* inclusive= */ 0));
+        this(/* jobList= */ ImmutableList.of(), Range.between(/* inclusive= */ 0, /* inclusive= */ 0));
     }
 
-    public JobPage(List<Job> jobList, long totalCount, Range<Integer> range) throws IllegalArgumentException {
-        if (totalCount < 0 || totalCount < jobList.size()) {
-            throw new IllegalArgumentException("totalCount should not be negative or less than jobList size");
-        }
+    public JobPage(List<Job> jobList, Range<Integer> range) throws IllegalArgumentException {
+        this(jobList, range, /* nextPageToken= */ "");
+    }
 
-        if (range.getMinimum() < 0 || range.getMaximum() > totalCount ||
-                range.getMaximum() < range.getMinimum()) {
+    public JobPage(List<Job> jobList, Range<Integer> range, String nextPageToken) throws IllegalArgumentException {
+        if (range.getMinimum() < 0 || range.getMaximum() < range.getMinimum()) {
             throw new IllegalArgumentException("range should not have invalid max/min values");
         }
 
@@ -37,8 +37,8 @@ public final class JobPage {
         }
 
         this.jobList = jobList;
-        this.totalCount = totalCount;
         this.range = range;
+        this.nextPageToken = nextPageToken;
     }
 
     /** Returns list of jobs. */
@@ -47,19 +47,24 @@ public final class JobPage {
     }
 
     /**
-     * Returns totalCount, which is the total number of jobs that fit the params.
-     * e.g., viewing 30-70 out of 100 (then total count will be 100).
+     * Returns the range, which indicates which jobs we are seeing.
+     * e.g., viewing 30-70 (then range will be 30-70).
      */
-    public long getTotalCount() {
-        return totalCount;
+    public Range<Integer> getRange() {
+        return range;
+    }
+
+    /** Returns the cursor for fetching the page after this one, or an empty string if this is the last page. */
+    public String getNextPageToken() {
+        return nextPageToken;
     }
 
     /**
-     * Returns the range, which indicates which jobs we are seeing.
-     * e.g., viewing 30-70 out of 100 (then range will be 30-70).
+     * Returns whether there are more jobs after this page.
+     * The total number of matching jobs is not counted, as that would read every one of them.
      */
-    public Range<Integer> getRange() {
-        return range;
+    public boolean hasMore() {
+        return !nextPageToken.isEmpty();
     }
 
     @Override
@@ -68,8 +73,8 @@ public final class JobPage {
         if (o == null || getClass() != o.getClass()) return false;
         JobPage that = (JobPage) o;
         return this.jobList.equals(that.jobList) &&
-                this.totalCount == that.totalCount &&
-                this.range.equals(that.range);
+                this.range.equals(that.range) &&
+                this.nextPageToken.equals(that.nextPageToken);
     }
 
     /**
@@ -88,10 +93,10 @@ public final class JobPage {
         int c = jobList.hashCode();
         result = 31 * result + c;
 
-        c = ((Long) totalCount).hashCode();
+        c = range.hashCode();
         result = 31 * result + c;
 
-        c = range.hashCode();
+        c = nextPageToken.hashCode();
         result = 31 * result + c;
 
         this.hashCode = result;
@@ -101,7 +106,7 @@ public final class JobPage {
 
     @Override
     public String toString() {
-        return String.format("JobPage{jobList=%s, totalCount=%d, range=%s}",
-                jobList, totalCount, range);
+        return String.format("JobPage{jobList=%s, range=%s, nextPageToken=%s}",
+                jobList, range, nextPageToken);
     }
 }
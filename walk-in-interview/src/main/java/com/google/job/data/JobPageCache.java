@@ -0,0 +1,188 @@
+package com.google.job.data;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded LRU cache of job listing pages keyed by their {@link JobQuery}.
+ * A page is served as is while it is fresh. For a while after that it is still served, but a refresh is
+ * started in the background (stale-while-revalidate). When a reload fails, a page that is not too old is
+ * served instead of the error (stale-if-error).
+ */
+final class JobPageCache {
+    private static final Logger log = Logger.getLogger(JobPageCache.class.getName());
+
+    static final int MAX_SIZE = 500;
+    static final long FRESH_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    static final long STALE_WHILE_REVALIDATE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    static final long STALE_IF_ERROR_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    /** A cached page and when it was loaded. */
+    private static final class Entry {
+        private final JobPage jobPage;
+        private final long loadedAtMillis;
+
+        private Entry(JobPage jobPage, long loadedAtMillis) {
+            this.jobPage = jobPage;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+    }
+
+    // Guarded by this; in access order so that the least recently used page is evicted first
+    private final Map<JobQuery, Entry> entries = new LinkedHashMap<JobQuery, Entry>(
+            /* initialCapacity= */ 16, /* loadFactor= */ 0.75f, /* accessOrder= */ true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<JobQuery, Entry> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    // Guarded by this; loads in flight, so that concurrent misses and refreshes share one query
+    private final Map<JobQuery, ApiFuture<JobPage>> pendingLoads = new HashMap<>();
+
+    // Guarded by this; bumped on every invalidation so that loads started before it are not stored
+    private long generation = 0;
+
+    // Guarded by this
+    private long hitCount = 0;
+    private long staleHitCount = 0;
+    private long missCount = 0;
+    private long staleIfErrorCount = 0;
+
+    /**
+     * Returns the page for the query, from the cache when possible.
+     *
+     * @param jobQuery The job query. It is copied, so later changes to it do not affect the cache.
+     * @param loader Loads the page from the database. Failures should be reported through the future.
+     * @return Future of the page.
+     */
+    synchronized ApiFuture<JobPage> get(JobQuery jobQuery, Supplier<ApiFuture<JobPage>> loader) {
+        JobQuery key = jobQuery.copy();
+        long now = System.currentTimeMillis();
+
+        Entry entry = entries.get(key);
+        long age = entry == null ? Long.MAX_VALUE : now - entry.loadedAtMillis;
+
+        if (age < FRESH_MILLIS) {
+            hitCount++;
+            return ApiFutures.immediateFuture(entry.jobPage);
+        }
+
+        if (age < FRESH_MILLIS + STALE_WHILE_REVALIDATE_MILLIS) {
+            staleHitCount++;
+            load(key, loader);
+            return ApiFutures.immediateFuture(entry.jobPage);
+        }
+
+        missCount++;
+        ApiFuture<JobPage> loadFuture = load(key, loader);
+        if (age >= STALE_IF_ERROR_MILLIS) {
+            return loadFuture;
+        }
+
+        return ApiFutures.catching(
+            loadFuture,
+            Exception.class,
+            e -> {
+                log.log(Level.WARNING, "serving stale job page for " + key, e);
+                synchronized (this) {
+                    staleIfErrorCount++;
+                }
+                return entry.jobPage;
+            },
+            MoreExecutors.directExecutor()
+        );
+    }
+
+    /**
+     * Drops the cached pages that may contain job posts of the region, and stops sharing the loads of such
+     * pages that are in flight, so that a request made after a write never gets a page read before it.
+     */
+    synchronized void invalidateRegion(SingaporeRegion region) {
+        generation++;
+
+        if (region == SingaporeRegion.ENTIRE) {
+            entries.clear();
+            pendingLoads.clear();
+            return;
+        }
+
+        entries.keySet().removeIf(key ->
+                key.getRegion() == region || key.getRegion() == SingaporeRegion.ENTIRE);
+        pendingLoads.keySet().removeIf(key ->
+                key.getRegion() == region || key.getRegion() == SingaporeRegion.ENTIRE);
+    }
+
+    /** Drops all the cached pages, and stops sharing the loads in flight. */
+    synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        pendingLoads.clear();
+    }
+
+    /** Returns the number of requests served from a fresh page. */
+    synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /** Returns the number of requests served from a stale page while it was being refreshed. */
+    synchronized long getStaleHitCount() {
+        return staleHitCount;
+    }
+
+    /** Returns the number of requests that had to wait for the database. */
+    synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /** Returns the number of requests served from a stale page because the database failed. */
+    synchronized long getStaleIfErrorCount() {
+        return staleIfErrorCount;
+    }
+
+    /** Starts loading the page unless it is already being loaded. Must hold the lock. */
+    private ApiFuture<JobPage> load(JobQuery key, Supplier<ApiFuture<JobPage>> loader) {
+        ApiFuture<JobPage> pendingLoad = pendingLoads.get(key);
+        if (pendingLoad != null) {
+            return pendingLoad;
+        }
+
+        long loadGeneration = generation;
+        ApiFuture<JobPage> loadFuture = loader.get();
+        pendingLoads.put(key, loadFuture);
+
+        ApiFutures.addCallback(loadFuture, new ApiFutureCallback<JobPage>() {
+            @Override
+            public void onSuccess(JobPage jobPage) {
+                synchronized (JobPageCache.this) {
+                    pendingLoads.remove(key, loadFuture);
+
+                    // The page may already be out of date if a write invalidated the cache meanwhile
+                    if (generation == loadGeneration) {
+                        entries.put(key, new Entry(jobPage, System.currentTimeMillis()));
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                log.log(Level.WARNING, "unable to load job page for " + key, t);
+                synchronized (JobPageCache.this) {
+                    pendingLoads.remove(key, loadFuture);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+
+        return loadFuture;
+    }
+}
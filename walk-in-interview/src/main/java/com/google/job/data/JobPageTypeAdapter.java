@@ -0,0 +1,123 @@
+package com.google.job.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.apache.commons.lang3.Range;
+
+import java.io.IOException;
+
+/**
+ * Json adapter for {@link JobPage}. The range is written as its {@code minimum} and {@code maximum} only,
+ * and {@code hasMore} is written for the pages to show a next button, but is derived from the next page token.
+ * The page is read back through the constructor, so that the input is validated.
+ */
+final class JobPageTypeAdapter extends TypeAdapter<JobPage> {
+    private static final String JOB_LIST_FIELD = "jobList";
+    private static final String HAS_MORE_FIELD = "hasMore";
+    private static final String RANGE_FIELD = "range";
+    private static final String RANGE_MINIMUM_FIELD = "minimum";
+    private static final String RANGE_MAXIMUM_FIELD = "maximum";
+    private static final String NEXT_PAGE_TOKEN_FIELD = "nextPageToken";
+
+    private final JobTypeAdapter jobAdapter = new JobTypeAdapter();
+
+    @Override
+    public void write(JsonWriter out, JobPage jobPage) throws IOException {
+        if (jobPage == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+
+        out.name(JOB_LIST_FIELD).beginArray();
+        for (Job job : jobPage.getJobList()) {
+            jobAdapter.write(out, job);
+        }
+        out.endArray();
+
+        out.name(RANGE_FIELD).beginObject();
+        out.name(RANGE_MINIMUM_FIELD).value(jobPage.getRange().getMinimum());
+        out.name(RANGE_MAXIMUM_FIELD).value(jobPage.getRange().getMaximum());
+        out.endObject();
+
+        out.name(NEXT_PAGE_TOKEN_FIELD).value(jobPage.getNextPageToken());
+        out.name(HAS_MORE_FIELD).value(jobPage.hasMore());
+        out.endObject();
+    }
+
+    /** @throws IllegalArgumentException If the page is invalid. */
+    @Override
+    public JobPage read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        JobPage defaults = new JobPage();
+        ImmutableList.Builder<Job> jobList = ImmutableList.builder();
+        Range<Integer> range = defaults.getRange();
+        String nextPageToken = defaults.getNextPageToken();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case JOB_LIST_FIELD:
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        jobList.add(jobAdapter.read(in));
+                    }
+                    in.endArray();
+                    break;
+                case RANGE_FIELD:
+                    range = readRange(in, range);
+                    break;
+                case NEXT_PAGE_TOKEN_FIELD:
+                    nextPageToken = in.nextString();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return new JobPage(jobList.build(), range, nextPageToken);
+    }
+
+    private static Range<Integer> readRange(JsonReader in, Range<Integer> defaultRange) throws IOException {
+        int minimum = defaultRange.getMinimum();
+        int maximum = defaultRange.getMaximum();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case RANGE_MINIMUM_FIELD:
+                    minimum = in.nextInt();
+                    break;
+                case RANGE_MAXIMUM_FIELD:
+                    maximum = in.nextInt();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return Range.between(minimum, maximum);
+    }
+}
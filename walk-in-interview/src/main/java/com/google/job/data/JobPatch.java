@@ -0,0 +1,282 @@
+package com.google.job.data;
+
+import com.google.gson.annotations.JsonAdapter;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Class for an edit of some fields of a job post. Fields that are not set keep their current values,
+ * and a field that is set replaces the current value as a whole.
+ */
+@JsonAdapter(JobPatchTypeAdapter.class)
+public final class JobPatch {
+    @Nullable
+    private final JobStatus jobStatus;
+    @Nullable
+    private final String jobTitle;
+    @Nullable
+    private final Location jobLocation;
+    @Nullable
+    private final String jobDescription;
+    @Nullable
+    private final JobPayment jobPay;
+    @Nullable
+    private final Map<String, Boolean> requirements;
+    @Nullable
+    private final Long postExpiryTimestamp;
+    @Nullable
+    private final JobDuration jobDuration;
+
+    private volatile int hashCode;
+
+    private JobPatch(JobPatchBuilder jobPatchBuilder) {
+        this.jobStatus = jobPatchBuilder.jobStatus;
+        this.jobTitle = jobPatchBuilder.jobTitle;
+        this.jobLocation = jobPatchBuilder.location;
+        this.jobDescription = jobPatchBuilder.jobDescription;
+        this.jobPay = jobPatchBuilder.jobPay;
+        this.requirements = jobPatchBuilder.requirements;
+        this.postExpiryTimestamp = jobPatchBuilder.postExpiryTimestamp;
+        this.jobDuration = jobPatchBuilder.jobDuration;
+    }
+
+    /** Returns a builder. */
+    public static JobPatchBuilder newBuilder() {
+        return new JobPatchBuilder();
+    }
+
+    public static final class JobPatchBuilder {
+        @Nullable
+        private JobStatus jobStatus;
+        @Nullable
+        private String jobTitle;
+        @Nullable
+        private Location location;
+        @Nullable
+        private String jobDescription;
+        @Nullable
+        private JobPayment jobPay;
+        @Nullable
+        private Map<String, Boolean> requirements;
+        @Nullable
+        private Long postExpiryTimestamp;
+        @Nullable
+        private JobDuration jobDuration;
+
+        private JobPatchBuilder() {}
+
+        public JobPatchBuilder setJobStatus(JobStatus jobStatus) {
+            this.jobStatus = jobStatus;
+            return this;
+        }
+
+        public JobPatchBuilder setJobTitle(String jobTitle) {
+            this.jobTitle = jobTitle;
+            return this;
+        }
+
+        public JobPatchBuilder setLocation(Location location) {
+            this.location = location;
+            return this;
+        }
+
+        public JobPatchBuilder setJobDescription(String jobDescription) {
+            this.jobDescription = jobDescription;
+            return this;
+        }
+
+        public JobPatchBuilder setJobPay(JobPayment jobPay) {
+            this.jobPay = jobPay;
+            return this;
+        }
+
+        public JobPatchBuilder setRequirements(Map<String, Boolean> requirements) {
+            this.requirements = Job.normalizeRequirements(requirements);
+            return this;
+        }
+
+        public JobPatchBuilder setPostExpiry(long postExpiryTimestamp) {
+            this.postExpiryTimestamp = postExpiryTimestamp;
+            return this;
+        }
+
+        public JobPatchBuilder setJobDuration(JobDuration jobDuration) {
+            this.jobDuration = jobDuration;
+            return this;
+        }
+
+        /**
+         * Validates each field that is set, with the same rules as {@link Job.JobBuilder#build()}.
+         *
+         * @throws IllegalArgumentException If a field that is set is invalid.
+         */
+        public JobPatch build() throws IllegalArgumentException {
+            if (jobTitle != null && jobTitle.isEmpty()) {
+                throw new IllegalArgumentException("Job Title should be an non-empty string");
+            }
+
+            if (jobDescription != null && jobDescription.isEmpty()) {
+                throw new IllegalArgumentException("Job Description should be an non-empty string");
+            }
+
+            if (postExpiryTimestamp != null && postExpiryTimestamp == 0) {
+                throw new IllegalArgumentException("Timestamp cannot be 0. Please provide a valid timestamp");
+            }
+
+            return new JobPatch(this);
+        }
+    }
+
+    /** Returns the new status, or null if it is kept. */
+    @Nullable
+    public JobStatus getJobStatus() {
+        return jobStatus;
+    }
+
+    /** Returns the new title, or null if it is kept. */
+    @Nullable
+    public String getJobTitle() {
+        return jobTitle;
+    }
+
+    /** Returns the new location, or null if it is kept. */
+    @Nullable
+    public Location getJobLocation() {
+        return jobLocation;
+    }
+
+    /** Returns the new description, or null if it is kept. */
+    @Nullable
+    public String getJobDescription() {
+        return jobDescription;
+    }
+
+    /** Returns the new payment, or null if it is kept. */
+    @Nullable
+    public JobPayment getJobPay() {
+        return jobPay;
+    }
+
+    /** Returns the new requirements (stable ids), or null if they are kept. */
+    @Nullable
+    public Map<String, Boolean> getRequirements() {
+        return requirements;
+    }
+
+    /** Returns the new expiry date, or null if it is kept. */
+    @Nullable
+    public Long getPostExpiryTimestamp() {
+        return postExpiryTimestamp;
+    }
+
+    /** Returns the new duration, or null if it is kept. */
+    @Nullable
+    public JobDuration getJobDuration() {
+        return jobDuration;
+    }
+
+    /** Returns whether the patch sets no field at all. */
+    public boolean isEmpty() {
+        return jobStatus == null && jobTitle == null && jobLocation == null && jobDescription == null
+                && jobPay == null && requirements == null && postExpiryTimestamp == null && jobDuration == null;
+    }
+
+    /**
+     * Returns the job post once the patch is applied to it.
+     *
+     * @param job Current job post.
+     * @return The patched job post.
+     */
+    public Job applyTo(Job job) {
+        Job.JobBuilder jobBuilder = job.toBuilder();
+
+        if (jobStatus != null) {
+            jobBuilder.setJobStatus(jobStatus);
+        }
+        if (jobTitle != null) {
+            jobBuilder.setJobTitle(jobTitle);
+        }
+        if (jobLocation != null) {
+            jobBuilder.setLocation(jobLocation);
+        }
+        if (jobDescription != null) {
+            jobBuilder.setJobDescription(jobDescription);
+        }
+        if (jobPay != null) {
+            jobBuilder.setJobPay(jobPay);
+        }
+        if (requirements != null) {
+            jobBuilder.setRequirements(requirements);
+        }
+        if (postExpiryTimestamp != null) {
+            jobBuilder.setPostExpiry(postExpiryTimestamp);
+        }
+        if (jobDuration != null) {
+            jobBuilder.setJobDuration(jobDuration);
+        }
+
+        return jobBuilder.build();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JobPatch jobPatch = (JobPatch) o;
+        return jobStatus == jobPatch.jobStatus &&
+                Objects.equals(jobTitle, jobPatch.jobTitle) &&
+                Objects.equals(jobLocation, jobPatch.jobLocation) &&
+                Objects.equals(jobDescription, jobPatch.jobDescription) &&
+                Objects.equals(jobPay, jobPatch.jobPay) &&
+                Objects.equals(requirements, jobPatch.requirements) &&
+                Objects.equals(postExpiryTimestamp, jobPatch.postExpiryTimestamp) &&
+                jobDuration == jobPatch.jobDuration;
+    }
+
+    @Override
+    public int hashCode() {
+        if (this.hashCode != 0) {
+            return this.hashCode;
+        }
+
+        int result = 0;
+
+        int c = jobStatus == null ? 0 : jobStatus.hashCode();
+        result = 31 * result + c;
+
+        c = jobTitle == null ? 0 : jobTitle.hashCode();
+        result = 31 * result + c;
+
+        c = jobLocation == null ? 0 : jobLocation.hashCode();
+        result = 31 * result + c;
+
+        c = jobDescription == null ? 0 : jobDescription.hashCode();
+        result = 31 * result + c;
+
+        c = jobPay == null ? 0 : jobPay.hashCode();
+        result = 31 * result + c;
+
+        c = requirements == null ? 0 : requirements.hashCode();
+        result = 31 * result + c;
+
+        c = postExpiryTimestamp == null ? 0 : postExpiryTimestamp.hashCode();
+        result = 31 * result + c;
+
+        c = jobDuration == null ? 0 : jobDuration.hashCode();
+        result = 31 * result + c;
+
+        this.hashCode = result;
+
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JobPatch{jobStatus=%s, jobTitle=%s, jobLocation=%s, "
+                + "jobDescription=%s, jobPay=%s, requirements=%s, postExpiryTimestamp=%s, jobDuration=%s}",
+                jobStatus, jobTitle, jobLocation,
+                jobDescription, jobPay, requirements, postExpiryTimestamp, jobDuration);
+    }
+}
@@ -0,0 +1,140 @@
+package com.google.job.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Json adapter for {@link JobPatch}, in the json format of {@link Job}. Only the fields that are set are
+ * written, and fields that are missing or null in the input are kept. Other fields, such as the job id,
+ * are skipped.
+ */
+final class JobPatchTypeAdapter extends TypeAdapter<JobPatch> {
+    private static final String JOB_STATUS_FIELD = "jobStatus";
+    private static final String JOB_TITLE_FIELD = "jobTitle";
+    private static final String JOB_LOCATION_FIELD = "jobLocation";
+    private static final String JOB_DESCRIPTION_FIELD = "jobDescription";
+    private static final String JOB_PAY_FIELD = "jobPay";
+    private static final String REQUIREMENTS_FIELD = "requirements";
+    private static final String POST_EXPIRY_TIMESTAMP_FIELD = "postExpiryTimestamp";
+    private static final String JOB_DURATION_FIELD = "jobDuration";
+
+    private final LocationTypeAdapter locationAdapter = new LocationTypeAdapter();
+    private final JobPaymentTypeAdapter jobPaymentAdapter = new JobPaymentTypeAdapter();
+
+    @Override
+    public void write(JsonWriter out, JobPatch jobPatch) throws IOException {
+        if (jobPatch == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        if (jobPatch.getJobStatus() != null) {
+            out.name(JOB_STATUS_FIELD).value(jobPatch.getJobStatus().getStatusId());
+        }
+        if (jobPatch.getJobTitle() != null) {
+            out.name(JOB_TITLE_FIELD).value(jobPatch.getJobTitle());
+        }
+        if (jobPatch.getJobLocation() != null) {
+            out.name(JOB_LOCATION_FIELD);
+            locationAdapter.write(out, jobPatch.getJobLocation());
+        }
+        if (jobPatch.getJobDescription() != null) {
+            out.name(JOB_DESCRIPTION_FIELD).value(jobPatch.getJobDescription());
+        }
+        if (jobPatch.getJobPay() != null) {
+            out.name(JOB_PAY_FIELD);
+            jobPaymentAdapter.write(out, jobPatch.getJobPay());
+        }
+        if (jobPatch.getRequirements() != null) {
+            out.name(REQUIREMENTS_FIELD).beginObject();
+            for (Map.Entry<String, Boolean> requirement : jobPatch.getRequirements().entrySet()) {
+                out.name(requirement.getKey()).value(requirement.getValue());
+            }
+            out.endObject();
+        }
+        if (jobPatch.getPostExpiryTimestamp() != null) {
+            out.name(POST_EXPIRY_TIMESTAMP_FIELD).value(jobPatch.getPostExpiryTimestamp());
+        }
+        if (jobPatch.getJobDuration() != null) {
+            out.name(JOB_DURATION_FIELD).value(jobPatch.getJobDuration().getDurationId());
+        }
+        out.endObject();
+    }
+
+    /** @throws IllegalArgumentException If a field of the patch is invalid. */
+    @Override
+    public JobPatch read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        JobPatch.JobPatchBuilder jobPatchBuilder = JobPatch.newBuilder();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case JOB_STATUS_FIELD:
+                    jobPatchBuilder.setJobStatus(JobStatus.getFromId(in.nextString()));
+                    break;
+                case JOB_TITLE_FIELD:
+                    jobPatchBuilder.setJobTitle(in.nextString());
+                    break;
+                case JOB_LOCATION_FIELD:
+                    jobPatchBuilder.setLocation(locationAdapter.read(in));
+                    break;
+                case JOB_DESCRIPTION_FIELD:
+                    jobPatchBuilder.setJobDescription(in.nextString());
+                    break;
+                case JOB_PAY_FIELD:
+                    jobPatchBuilder.setJobPay(jobPaymentAdapter.read(in));
+                    break;
+                case REQUIREMENTS_FIELD:
+                    jobPatchBuilder.setRequirements(readRequirements(in));
+                    break;
+                case POST_EXPIRY_TIMESTAMP_FIELD:
+                    jobPatchBuilder.setPostExpiry(in.nextLong());
+                    break;
+                case JOB_DURATION_FIELD:
+                    jobPatchBuilder.setJobDuration(JobDuration.getFromId(in.nextString()));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return jobPatchBuilder.build();
+    }
+
+    private static Map<String, Boolean> readRequirements(JsonReader in) throws IOException {
+        Map<String, Boolean> requirements = new HashMap<>();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String requirementId = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            requirements.put(requirementId, in.nextBoolean());
+        }
+        in.endObject();
+
+        return requirements;
+    }
+}
@@ -1,6 +1,9 @@
 package com.google.job.data;
 
+import com.google.gson.annotations.JsonAdapter;
+
 /** Class that represents the payment details of a job. */
+@JsonAdapter(JobPaymentTypeAdapter.class)
 public final class JobPayment {
     private final int min;
     private final int max;
@@ -0,0 +1,72 @@
+package com.google.job.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Json adapter for {@link JobPayment}. Writes only the payment fields and reads them back through the
+ * constructor, so that the input is validated. Fields missing from the input keep their default values.
+ */
+final class JobPaymentTypeAdapter extends TypeAdapter<JobPayment> {
+    private static final String MIN_FIELD = "min";
+    private static final String MAX_FIELD = "max";
+    private static final String PAYMENT_FREQUENCY_FIELD = "paymentFrequency";
+
+    @Override
+    public void write(JsonWriter out, JobPayment jobPayment) throws IOException {
+        if (jobPayment == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name(MIN_FIELD).value(jobPayment.getMin());
+        out.name(MAX_FIELD).value(jobPayment.getMax());
+        out.name(PAYMENT_FREQUENCY_FIELD).value(jobPayment.getPaymentFrequency().getFrequencyId());
+        out.endObject();
+    }
+
+    /** @throws IllegalArgumentException If the payment is invalid. */
+    @Override
+    public JobPayment read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        JobPayment defaults = new JobPayment();
+        int min = defaults.getMin();
+        int max = defaults.getMax();
+        PaymentFrequency paymentFrequency = defaults.getPaymentFrequency();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case MIN_FIELD:
+                    min = in.nextInt();
+                    break;
+                case MAX_FIELD:
+                    max = in.nextInt();
+                    break;
+                case PAYMENT_FREQUENCY_FIELD:
+                    paymentFrequency = PaymentFrequency.getFromId(in.nextString());
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return new JobPayment(min, max, paymentFrequency);
+    }
+}
@@ -1,14 +1,23 @@
 package com.google.job.data;
 
+import com.google.utils.GeoUtils;
+
 /** Class for the job listings query using builder pattern. */
 public final class JobQuery {
+    /** Upper bound on the page size so that a single request reads a bounded number of documents. */
+    public static final int MAX_PAGE_SIZE = 100;
+
     private int minLimit = 0;
     private int maxLimit = Integer.MAX_VALUE;
     private SingaporeRegion region = SingaporeRegion.ENTIRE;
     private Filter sortBy = Filter.SALARY;
     private Order order = Order.DESCENDING;
     private int pageSize = 100;
-    private int pageIndex = 0;
+    private String pageToken = "";
+    private double latitude = Double.NaN;
+    private double longitude = Double.NaN;
+    private int maxDistance = Integer.MAX_VALUE;
+    private String searchText = "";
 
     public JobQuery() {}	
 
@@ -46,20 +55,45 @@ public final class JobQuery {
     }
 
     public JobQuery setPageSize(int pageSize) {
-        if (pageSize < 1) {
-            throw new IllegalArgumentException("pageSize should not be less than 1");
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("pageSize should be between 1 and " + MAX_PAGE_SIZE);
         }
 
         this.pageSize = pageSize;
         return this;
     }
 
-    public JobQuery setPageIndex(int pageIndex) {
-        if (pageIndex < 0) {
-            throw new IllegalArgumentException("pageIndex should not be less than 0");
+    public JobQuery setPageToken(String pageToken) {
+        this.pageToken = pageToken;
+        return this;
+    }
+
+    /**
+     * Sets the place the distances are measured from, when sorting by {@link Filter#DISTANCE}.
+     *
+     * @throws IllegalArgumentException If the coordinates are out of range.
+     */
+    public JobQuery setLocation(double latitude, double longitude) {
+        GeoUtils.checkCoordinates(latitude, longitude);
+
+        this.latitude = latitude;
+        this.longitude = longitude;
+        return this;
+    }
+
+    /** Sets the maximum distance in meters, when sorting by {@link Filter#DISTANCE}. */
+    public JobQuery setMaxDistance(int maxDistance) {
+        if (maxDistance <= 0) {
+            throw new IllegalArgumentException("maxDistance should be positive");
         }
 
-        this.pageIndex = pageIndex;
+        this.maxDistance = maxDistance;
+        return this;
+    }
+
+    /** Sets the text the job posts are matched against, when sorting by {@link Filter#RELEVANCE}. */
+    public JobQuery setSearchText(String searchText) {
+        this.searchText = searchText;
         return this;
     }
 
@@ -93,8 +127,158 @@ public final class JobQuery {
         return pageSize;
     }
 
-    /** Returns a page number (or index). */
-    public int getPageIndex() {
-        return pageIndex;
+    /**
+     * Returns the cursor from {@link JobPage#getNextPageToken()} of the previous page,
+     * or an empty string for the first page.
+     */
+    public String getPageToken() {
+        return pageToken;
+    }
+
+    /** Returns whether the place the distances are measured from has been set. */
+    public boolean hasLocation() {
+        return !Double.isNaN(latitude);
+    }
+
+    /** Returns the latitude of the place the distances are measured from, or NaN if it is not set. */
+    public double getLatitude() {
+        return latitude;
+    }
+
+    /** Returns the longitude of the place the distances are measured from, or NaN if it is not set. */
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /** Returns the maximum distance in meters, {@link Integer#MAX_VALUE} when there is none. */
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    /** Returns the text the job posts are matched against, or an empty string if it is not set. */
+    public String getSearchText() {
+        return searchText;
+    }
+
+    /**
+     * Returns a hash of the parameters that select and order the jobs, which the page tokens are bound to.
+     * The page size and the page token are left out, as they do not change the order of the jobs.
+     * Enums are hashed by name so that the hash is the same on every instance.
+     */
+    int getQueryHash() {
+        int result = 0;
+
+        int c = ((Integer) minLimit).hashCode();
+        result = 31 * result + c;
+
+        c = ((Integer) maxLimit).hashCode();
+        result = 31 * result + c;
+
+        c = region.name().hashCode();
+        result = 31 * result + c;
+
+        c = sortBy.name().hashCode();
+        result = 31 * result + c;
+
+        c = order.name().hashCode();
+        result = 31 * result + c;
+
+        c = Double.hashCode(latitude);
+        result = 31 * result + c;
+
+        c = Double.hashCode(longitude);
+        result = 31 * result + c;
+
+        c = ((Integer) maxDistance).hashCode();
+        result = 31 * result + c;
+
+        c = searchText.hashCode();
+        result = 31 * result + c;
+
+        return result;
+    }
+
+    /** Returns a copy of this query, which is not affected by later changes to this one. */
+    JobQuery copy() {
+        JobQuery copy = new JobQuery()
+                .setMinLimit(minLimit)
+                .setMaxLimit(maxLimit)
+                .setRegion(region)
+                .setSortBy(sortBy)
+                .setOrder(order)
+                .setPageSize(pageSize)
+                .setPageToken(pageToken)
+                .setSearchText(searchText);
+        copy.latitude = latitude;
+        copy.longitude = longitude;
+        copy.maxDistance = maxDistance;
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JobQuery that = (JobQuery) o;
+        return minLimit == that.minLimit &&
+                maxLimit == that.maxLimit &&
+                region == that.region &&
+                sortBy == that.sortBy &&
+                order == that.order &&
+                pageSize == that.pageSize &&
+                pageToken.equals(that.pageToken) &&
+                Double.compare(latitude, that.latitude) == 0 &&
+                Double.compare(longitude, that.longitude) == 0 &&
+                maxDistance == that.maxDistance &&
+                searchText.equals(that.searchText);
+    }
+
+    /** Not cached since the query is mutable, so do not change a query while it is used as a key. */
+    @Override
+    public int hashCode() {
+        int result = 0;
+
+        int c = ((Integer) minLimit).hashCode();
+        result = 31 * result + c;
+
+        c = ((Integer) maxLimit).hashCode();
+        result = 31 * result + c;
+
+        c = region.hashCode();
+        result = 31 * result + c;
+
+        c = sortBy.hashCode();
+        result = 31 * result + c;
+
+        c = order.hashCode();
+        result = 31 * result + c;
+
+        c = ((Integer) pageSize).hashCode();
+        result = 31 * result + c;
+
+        c = pageToken.hashCode();
+        result = 31 * result + c;
+
+        c = Double.hashCode(latitude);
+        result = 31 * result + c;
+
+        c = Double.hashCode(longitude);
+        result = 31 * result + c;
+
+        c = ((Integer) maxDistance).hashCode();
+        result = 31 * result + c;
+
+        c = searchText.hashCode();
+        result = 31 * result + c;
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JobQuery{minLimit=%d, maxLimit=%d, region=%s, sortBy=%s, order=%s, "
+                + "pageSize=%d, pageToken=%s, latitude=%f, longitude=%f, maxDistance=%d, searchText=%s}",
+                minLimit, maxLimit, region, sortBy, order, pageSize, pageToken,
+                latitude, longitude, maxDistance, searchText);
     }
 }
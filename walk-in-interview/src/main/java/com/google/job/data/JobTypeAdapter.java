@@ -0,0 +1,131 @@
+package com.google.job.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Json adapter for {@link Job}. Writes only the job post fields and reads them back through the
+ * {@link Job.JobBuilder}, so that the input is validated. Fields missing from the input keep the
+ * default values of {@link Job#Job()}.
+ */
+final class JobTypeAdapter extends TypeAdapter<Job> {
+    private static final String JOB_ID_FIELD = "jobId";
+    private static final String JOB_STATUS_FIELD = "jobStatus";
+    private static final String JOB_TITLE_FIELD = "jobTitle";
+    private static final String JOB_LOCATION_FIELD = "jobLocation";
+    private static final String JOB_DESCRIPTION_FIELD = "jobDescription";
+    private static final String JOB_PAY_FIELD = "jobPay";
+    private static final String REQUIREMENTS_FIELD = "requirements";
+    private static final String POST_EXPIRY_TIMESTAMP_FIELD = "postExpiryTimestamp";
+    private static final String JOB_DURATION_FIELD = "jobDuration";
+
+    private final LocationTypeAdapter locationAdapter = new LocationTypeAdapter();
+    private final JobPaymentTypeAdapter jobPaymentAdapter = new JobPaymentTypeAdapter();
+
+    @Override
+    public void write(JsonWriter out, Job job) throws IOException {
+        if (job == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name(JOB_ID_FIELD).value(job.getJobId());
+        out.name(JOB_STATUS_FIELD).value(job.getJobStatus().getStatusId());
+        out.name(JOB_TITLE_FIELD).value(job.getJobTitle());
+        out.name(JOB_LOCATION_FIELD);
+        locationAdapter.write(out, job.getJobLocation());
+        out.name(JOB_DESCRIPTION_FIELD).value(job.getJobDescription());
+        out.name(JOB_PAY_FIELD);
+        jobPaymentAdapter.write(out, job.getJobPay());
+
+        out.name(REQUIREMENTS_FIELD).beginObject();
+        for (Map.Entry<String, Boolean> requirement : job.getRequirements().entrySet()) {
+            out.name(requirement.getKey()).value(requirement.getValue());
+        }
+        out.endObject();
+
+        out.name(POST_EXPIRY_TIMESTAMP_FIELD).value(job.getPostExpiryTimestamp());
+        out.name(JOB_DURATION_FIELD).value(job.getJobDuration().getDurationId());
+        out.endObject();
+    }
+
+    /** @throws IllegalArgumentException If the job post is invalid. */
+    @Override
+    public Job read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        Job.JobBuilder jobBuilder = new Job().toBuilder();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case JOB_ID_FIELD:
+                    jobBuilder.setJobId(in.nextString());
+                    break;
+                case JOB_STATUS_FIELD:
+                    jobBuilder.setJobStatus(JobStatus.getFromId(in.nextString()));
+                    break;
+                case JOB_TITLE_FIELD:
+                    jobBuilder.setJobTitle(in.nextString());
+                    break;
+                case JOB_LOCATION_FIELD:
+                    jobBuilder.setLocation(locationAdapter.read(in));
+                    break;
+                case JOB_DESCRIPTION_FIELD:
+                    jobBuilder.setJobDescription(in.nextString());
+                    break;
+                case JOB_PAY_FIELD:
+                    jobBuilder.setJobPay(jobPaymentAdapter.read(in));
+                    break;
+                case REQUIREMENTS_FIELD:
+                    jobBuilder.setRequirements(readRequirements(in));
+                    break;
+                case POST_EXPIRY_TIMESTAMP_FIELD:
+                    jobBuilder.setPostExpiry(in.nextLong());
+                    break;
+                case JOB_DURATION_FIELD:
+                    jobBuilder.setJobDuration(JobDuration.getFromId(in.nextString()));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return jobBuilder.build();
+    }
+
+    private static Map<String, Boolean> readRequirements(JsonReader in) throws IOException {
+        Map<String, Boolean> requirements = new HashMap<>();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String requirementId = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            requirements.put(requirementId, in.nextBoolean());
+        }
+        in.endObject();
+
+        return requirements;
+    }
+}
@@ -0,0 +1,79 @@
+package com.google.job.data;
+
+/** Class that represents the result of writing one job post of a bulk write. */
+public final class JobWriteResult {
+    private final String jobId;
+    private final String error;
+
+    private JobWriteResult(String jobId, String error) {
+        this.jobId = jobId;
+        this.error = error;
+    }
+
+    /**
+     * Returns the result of a job post that was written.
+     *
+     * @param jobId Cloud Firestore id of the job post.
+     */
+    public static JobWriteResult success(String jobId) {
+        if (jobId.isEmpty()) {
+            throw new IllegalArgumentException("Job Id should be an non-empty string");
+        }
+
+        return new JobWriteResult(jobId, /* error= */ "");
+    }
+
+    /**
+     * Returns the result of a job post that could not be written.
+     *
+     * @param error Why the job post could not be written.
+     */
+    public static JobWriteResult failure(String error) {
+        if (error.isEmpty()) {
+            throw new IllegalArgumentException("Error should be an non-empty string");
+        }
+
+        return new JobWriteResult(/* jobId= */ "", error);
+    }
+
+    /** Returns whether the job post was written. */
+    public boolean isSuccess() {
+        return error.isEmpty();
+    }
+
+    /** Returns the id of the written job post, or an empty string if it was not written. */
+    public String getJobId() {
+        return jobId;
+    }
+
+    /** Returns why the job post could not be written, or an empty string if it was written. */
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JobWriteResult that = (JobWriteResult) o;
+        return jobId.equals(that.jobId) && error.equals(that.error);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+
+        int c = jobId.hashCode();
+        result = 31 * result + c;
+
+        c = error.hashCode();
+        result = 31 * result + c;
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JobWriteResult{jobId=%s, error=%s}", jobId, error);
+    }
+}
@@ -2,23 +2,47 @@ package com.google.job.data;
 
 import com.google.api.core.ApiFunction;
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
 import com.google.api.core.ApiFutures;
-import com.google.appengine.repackaged.com.google.common.collect.ImmutableSet;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList; 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.job.search.SearchIndex;
+import com.google.job.search.TitleSuggestion;
+import com.google.job.search.TitleTrie;
 import com.google.utils.FireStoreUtils;
+import com.google.utils.GeoUtils;
 import org.checkerframework.checker.nullness.compatqual.NullableDecl;
 import org.apache.commons.lang3.Range;
+
+import javax.annotation.Nullable;
 import java.lang.UnsupportedOperationException;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeoutException;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.List;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -32,12 +56,208 @@ public final class JobsDatabase {
     private static final String SALARY_FIELD = "jobPay.annualMax";
     private static final String REGION_FIELD = "jobLocation.region";
     private static final String JOB_STATUS_FIELD = "jobStatus";
-    private static final String JOB_REQUIREMENTS_FIELD = "requirements";
     private static final String INTERESTED_JOBS_FIELD = "interestedJobs";
+    private static final String POST_EXPIRY_FIELD = "postExpiryTimestamp";
+    private static final String INTERESTED_JOBS_COLLECTION = "InterestedJobs";
+    private static final String INTERESTED_JOBS_COUNT_FIELD = "interestedJobsCount";
     private static final String JOB_ID_FIELD = "jobId";
+    private static final String ADDED_TIMESTAMP_FIELD = "addedTimestamp";
     
-    private static final long TIMEOUT_SECONDS = 5;
-    private static final int FIRESTORE_IN_QUERY_MAX_ARGS = 10;
+    private static final int FIRESTORE_GET_ALL_MAX_DOCUMENTS = 500;
+    private static final int FIRESTORE_MAX_BATCH_WRITES = 500;
+    private static final int MAX_EXPIRY_BATCHES_PER_SWEEP = 20;
+    private static final int DEFAULT_MAX_IN_FLIGHT_CHUNKS = 4;
+    private static final int MAX_INTERESTED_JOBS_WRITE_ATTEMPTS = 3;
+    private static final long JOB_CACHE_MAX_SIZE = 1000;
+    private static final long JOB_CACHE_TTL_SECONDS = 60;
+    private static final long CACHE_STATS_LOG_INTERVAL_MINUTES = 5;
+    private static final long MIGRATED_APPLICANTS_CACHE_MAX_SIZE = 10_000;
+
+    private static final long INTERESTED_JOBS_WRITE_WINDOW_MILLIS = 200;
+
+    /** In {@link ReadMode#REPLICA}, reads fall back to the database when the replica is further behind. */
+    private static final long MAX_REPLICA_STALENESS_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    // Shared by all the instances; daemon threads so that it never keeps the instance from shutting down
+    private static final ScheduledExecutorService interestedJobsWriteScheduler =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("interested-jobs-writer-%d")
+                    .setDaemon(true)
+                    .build());
+
+    // Shared by all the instances; daemon threads so that it never keeps the instance from shutting down
+    private static final ScheduledExecutorService cacheStatsLogScheduler =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("cache-stats-log-%d")
+                    .setDaemon(true)
+                    .build());
+
+    // Shared by all the instances, so that the in-memory indexes are rebuilt one at a time
+    private static final ExecutorService activeJobsReloadExecutor =
+            Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("active-jobs-reload-%d")
+                    .setDaemon(true)
+                    .build());
+
+    // Shared by all the instances; one thread, so that the changes of the replica reach the indexes in order
+    private static final ExecutorService replicaListenerExecutor =
+            Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("active-jobs-replica-%d")
+                    .setDaemon(true)
+                    .build());
+
+    private static final JobsDatabase sharedInstance = new JobsDatabase();
+
+    private final int maxInFlightChunks;
+    private final ActiveJobsFeed activeJobsFeed;
+    private final EligibilityIndex eligibilityIndex;
+    private final GeoIndex geoIndex;
+    private final ClusterIndex clusterIndex;
+    private final SearchIndex searchIndex;
+    private final TitleTrie titleTrie;
+    private final ListingIndex listingIndex;
+    private final Cache<String, ApiFuture<Optional<VersionedJob>>> jobCache = CacheBuilder.newBuilder()
+            .maximumSize(JOB_CACHE_MAX_SIZE)
+            .expireAfterWrite(JOB_CACHE_TTL_SECONDS, TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+    private final JobPageCache jobPageCache = new JobPageCache();
+    private final InterestedJobsWriter interestedJobsWriter = new InterestedJobsWriter(
+            interestedJobsWriteScheduler, INTERESTED_JOBS_WRITE_WINDOW_MILLIS, this::writeInterestedJobs);
+
+    // The applicants whose interested list is known to be in the subcollection; the value is unused
+    private final Cache<String, Boolean> migratedApplicantIds = CacheBuilder.newBuilder()
+            .maximumSize(MIGRATED_APPLICANTS_CACHE_MAX_SIZE)
+            .build();
+
+    // How far behind the expiry sweeper was when its last sweep ended; -1 until a sweep has ended
+    private volatile long expirySweepLagMillis = -1;
+
+    private volatile ReadMode readMode = ReadMode.DATABASE;
+
+    // Written while holding this; null until the read mode is first set to REPLICA
+    @Nullable
+    private volatile ActiveJobsReplica replica;
+
+    // Guarded by this; null until warming up starts, or after it failed
+    @Nullable
+    private ApiFuture<Void> warmUpFuture;
+
+    // Guarded by this
+    private boolean cacheStatsLogScheduled = false;
+
+    public JobsDatabase() {
+        this(DEFAULT_MAX_IN_FLIGHT_CHUNKS);
+    }
+
+    /**
+     * @param maxInFlightChunks Maximum number of id chunks that {@link #fetchJobs(List)} reads, and of
+     *                          batches that {@link #addJobs(List)} commits, at the same time, so that one long
+     *                          list cannot take over the Firestore channel.
+     */
+    public JobsDatabase(int maxInFlightChunks) {
+        if (maxInFlightChunks < 1) {
+            throw new IllegalArgumentException("maxInFlightChunks should not be less than 1");
+        }
+
+        this.maxInFlightChunks = maxInFlightChunks;
+
+        // The replica passes on every change while it is in sync, so the indexes never go stale then
+        this.activeJobsFeed = new ActiveJobsFeed(this::loadActiveJobs, () -> getReplicaView() != null,
+                activeJobsReloadExecutor);
+        this.eligibilityIndex = new EligibilityIndex();
+        this.activeJobsFeed.addListener(eligibilityIndex);
+        this.geoIndex = new GeoIndex();
+        this.activeJobsFeed.addListener(geoIndex);
+        this.clusterIndex = new ClusterIndex();
+        this.activeJobsFeed.addListener(clusterIndex);
+        this.searchIndex = new SearchIndex();
+        this.activeJobsFeed.addListener(searchIndex);
+        this.titleTrie = new TitleTrie();
+        this.activeJobsFeed.addListener(titleTrie);
+        // Only registered in ReadMode.REPLICA, the one mode its pages are served in
+        this.listingIndex = new ListingIndex();
+    }
+
+    /**
+     * Returns the instance shared by the servlets. Since the caches are per instance, sharing it lets
+     * a write made by one servlet invalidate what the others have cached.
+     */
+    public static JobsDatabase getInstance() {
+        return sharedInstance;
+    }
+
+    /**
+     * Prepares this instance for traffic: creates the cloud firestore client, opens its channel with a
+     * cheap read, and loads the in-memory indexes of the ACTIVE job posts. How long each phase took is logged.
+     * Only the first call warms up; later calls share its future, unless it failed. From then on, the counters
+     * of the caches are logged every {@link #CACHE_STATS_LOG_INTERVAL_MINUTES} minutes, so that they can be sized.
+     *
+     * @return Future that completes once the instance is warm.
+     */
+    public synchronized ApiFuture<Void> warmUp() {
+        if (warmUpFuture != null) {
+            return warmUpFuture;
+        }
+
+        if (!cacheStatsLogScheduled) {
+            cacheStatsLogScheduled = true;
+            cacheStatsLogScheduler.scheduleAtFixedRate(this::logCacheStats, CACHE_STATS_LOG_INTERVAL_MINUTES,
+                    CACHE_STATS_LOG_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        }
+
+        ApiFuture<Void> future = startWarmUp();
+        warmUpFuture = future;
+
+        // Lets the next warm-up request try again
+        runOnFailure(future, () -> {
+            synchronized (this) {
+                if (warmUpFuture == future) {
+                    warmUpFuture = null;
+                }
+            }
+        });
+
+        return future;
+    }
+
+    private ApiFuture<Void> startWarmUp() {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+
+        Firestore firestore;
+        try {
+            firestore = FireStoreUtils.getFireStore();
+        } catch (IOException e) {
+            return ApiFutures.immediateFailedFuture(e);
+        }
+        log.info(String.format("warm-up: created firestore client in %d ms", stopwatch.elapsed(TimeUnit.MILLISECONDS)));
+        stopwatch.reset().start();
+
+        ApiFuture<QuerySnapshot> channelRead = firestore.collection(JOB_COLLECTION).limit(1).get();
+
+        ApiFuture<Void> activeJobsLoad = ApiFutures.transformAsync(
+            channelRead,
+            querySnapshot -> {
+                log.info(String.format("warm-up: opened firestore channel in %d ms",
+                        stopwatch.elapsed(TimeUnit.MILLISECONDS)));
+                stopwatch.reset().start();
+
+                return activeJobsFeed.ensureLoaded();
+            },
+            MoreExecutors.directExecutor()
+        );
+
+        return ApiFutures.transform(
+            activeJobsLoad,
+            unused -> {
+                log.info(String.format("warm-up: loaded active job posts in %d ms, search index: %d terms in %d KB",
+                        stopwatch.elapsed(TimeUnit.MILLISECONDS), searchIndex.getTermCount(),
+                        searchIndex.getMemoryBytes() / 1024));
+                return null;
+            },
+            MoreExecutors.directExecutor()
+        );
+    }
 
     /**
      * Adds a newly created job post.
@@ -45,7 +265,7 @@ public final class JobsDatabase {
      * @param newJob Newly created job post. Assumes that it is non-nullable.
      * @return A future of the detailed information of the writing.
      */
-    public Future<WriteResult> addJob(Job newJob) throws IOException {
+    public ApiFuture<WriteResult> addJob(Job newJob) throws IOException {
         // Add document data after generating an id
         DocumentReference addedDocRef = FireStoreUtils.getFireStore()
                 .collection(JOB_COLLECTION).document();
@@ -58,43 +278,348 @@ public final class JobsDatabase {
                 .setJobId(jobId)
                 .build();
 
-        return addedDocRef.set(job);
+        ApiFuture<WriteResult> writeFuture = addedDocRef.set(JobDocumentMapper.toDocument(job));
+        invalidateCaches(ImmutableList.of(jobId), ImmutableSet.of(job.getJobLocation().getRegion()), writeFuture);
+        runOnSuccess(writeFuture, () -> updateActiveJobs(jobId, job));
+
+        return writeFuture;
+    }
+
+    /**
+     * Adds many newly created job posts at once. They are committed in batches of up to
+     * {@link #FIRESTORE_MAX_BATCH_WRITES} documents, and at most {@code maxInFlightChunks} batches are
+     * committed at the same time. A batch is written entirely or not at all, so when it fails all of
+     * its job posts are reported as failed.
+     *
+     * @param newJobs Newly created job posts.
+     * @return Future of the result of each job post, in the same order. It does not fail as a whole.
+     */
+    public ApiFuture<List<JobWriteResult>> addJobs(List<Job> newJobs) throws IOException {
+        if (newJobs.isEmpty()) {
+            return ApiFutures.immediateFuture(ImmutableList.of());
+        }
+
+        Firestore firestore = FireStoreUtils.getFireStore();
+        CollectionReference jobsCollection = firestore.collection(JOB_COLLECTION);
+
+        // Updates the Jobs with cloud firestore ids generated up front
+        List<Job> jobs = new ArrayList<>(newJobs.size());
+        for (Job newJob : newJobs) {
+            jobs.add(newJob.toBuilder().setJobId(jobsCollection.document().getId()).build());
+        }
+
+        List<List<Job>> batches = Lists.partition(jobs, FIRESTORE_MAX_BATCH_WRITES);
+        int laneCount = Math.min(maxInFlightChunks, batches.size());
+
+        List<ApiFuture<List<JobWriteResult>>> laneFutures = new ArrayList<>(laneCount);
+        for (int lane = 0; lane < laneCount; lane++) {
+            laneFutures.add(commitBatchesInLane(firestore, batches, /* batchIndex= */ lane, /* stride= */ laneCount));
+        }
+
+        return ApiFutures.transform(
+            ApiFutures.allAsList(laneFutures),
+            laneResults -> {
+                // Lane i holds batches i, i + laneCount, ..., so the results are put back in batch order
+                List<JobWriteResult> results = new ArrayList<>(jobs.size());
+                for (int batchIndex = 0; batchIndex < batches.size(); batchIndex++) {
+                    List<JobWriteResult> laneResult = laneResults.get(batchIndex % laneCount);
+                    int laneOffset = (batchIndex / laneCount) * FIRESTORE_MAX_BATCH_WRITES;
+                    results.addAll(laneResult.subList(laneOffset, laneOffset + batches.get(batchIndex).size()));
+                }
+
+                return results;
+            },
+            MoreExecutors.directExecutor()
+        );
+    }
+
+    /**
+     * Commits the batch at {@code batchIndex} and, once it is done, the batches after it that are
+     * {@code stride} apart.
+     *
+     * @return Future of the results of all the committed batches, in the order they were committed.
+     */
+    private ApiFuture<List<JobWriteResult>> commitBatchesInLane(Firestore firestore, List<List<Job>> batches,
+                                                                int batchIndex, int stride) {
+        if (batchIndex >= batches.size()) {
+            return ApiFutures.immediateFuture(ImmutableList.of());
+        }
+
+        List<Job> jobs = batches.get(batchIndex);
+        CollectionReference jobsCollection = firestore.collection(JOB_COLLECTION);
+
+        WriteBatch batch = firestore.batch();
+        List<String> jobIds = new ArrayList<>(jobs.size());
+        Set<SingaporeRegion> regions = new HashSet<>();
+        for (Job job : jobs) {
+            batch.set(jobsCollection.document(job.getJobId()), JobDocumentMapper.toDocument(job));
+            jobIds.add(job.getJobId());
+            regions.add(job.getJobLocation().getRegion());
+        }
+
+        ApiFuture<List<WriteResult>> commitFuture = batch.commit();
+        invalidateCaches(jobIds, regions, commitFuture);
+        runOnSuccess(commitFuture, () -> jobs.forEach(job -> updateActiveJobs(job.getJobId(), job)));
+
+        ApiFuture<List<JobWriteResult>> batchFuture = ApiFutures.transform(
+            commitFuture,
+            writeResults -> {
+                ImmutableList.Builder<JobWriteResult> results = ImmutableList.builder();
+                jobIds.forEach(jobId -> results.add(JobWriteResult.success(jobId)));
+                return results.build();
+            },
+            MoreExecutors.directExecutor()
+        );
+        batchFuture = ApiFutures.catching(
+            batchFuture,
+            Exception.class,
+            e -> {
+                log.log(Level.SEVERE, "error while adding a batch of jobs", e);
+                ImmutableList.Builder<JobWriteResult> results = ImmutableList.builder();
+                jobIds.forEach(jobId -> results.add(JobWriteResult.failure("unable to store job post")));
+                return results.build();
+            },
+            MoreExecutors.directExecutor()
+        );
+
+        return ApiFutures.transformAsync(
+            batchFuture,
+            results -> ApiFutures.transform(
+                commitBatchesInLane(firestore, batches, batchIndex + stride, stride),
+                remainingResults -> ImmutableList.<JobWriteResult>builder()
+                        .addAll(results).addAll(remainingResults).build(),
+                MoreExecutors.directExecutor()
+            ),
+            MoreExecutors.directExecutor()
+        );
+    }
+
+    /**
+     * Marks the ACTIVE job posts whose expiry has passed as EXPIRED.
+     * They are read oldest expiry first through an indexed query on {@link #POST_EXPIRY_FIELD}, and updated
+     * in batches of up to {@link #FIRESTORE_MAX_BATCH_WRITES}, with at most
+     * {@link #MAX_EXPIRY_BATCHES_PER_SWEEP} batches per sweep. Each committed batch is a checkpoint: its job
+     * posts no longer match the query, so a sweep that is cut short is resumed by the next one.
+     * A job post updated after it was read is left for the next sweep rather than overwritten.
+     * The query needs a composite index on jobStatus, postExpiryTimestamp and the document id.
+     *
+     * @param nowMillis Current time in milliseconds since the epoch.
+     * @return Future of the number of job posts marked as EXPIRED.
+     */
+    public ApiFuture<Integer> expireJobs(long nowMillis) {
+        try {
+            return expireJobsAfter(FireStoreUtils.getFireStore(), nowMillis, /* cursor= */ null,
+                    MAX_EXPIRY_BATCHES_PER_SWEEP, /* expiredCount= */ 0);
+        } catch (IOException e) {
+            return ApiFutures.immediateFailedFuture(e);
+        }
+    }
+
+    /**
+     * Returns how far behind the expiry sweeper was when its last sweep ended: how long ago the oldest
+     * job post that was still ACTIVE had expired, or 0 if there was none. Returns -1 until a sweep has ended.
+     */
+    public long getExpirySweepLagMillis() {
+        return expirySweepLagMillis;
+    }
+
+    /**
+     * Sets where the reads of the ACTIVE job posts are served from. In {@link ReadMode#REPLICA},
+     * {@link #fetchJob(String)}, {@link #fetchJobPage(JobQuery)} and the in-memory indexes behind
+     * {@link #fetchAllEligibleJobs(List)} are served from a live {@link ActiveJobsReplica}, as long as it is at
+     * most {@link #MAX_REPLICA_STALENESS_MILLIS} behind the database; otherwise they read the database as
+     * in {@link ReadMode#DATABASE}. The {@link ListingIndex} is only kept in memory while in {@link ReadMode#REPLICA}.
+     *
+     * @param readMode The read mode.
+     * @throws IOException If the cloud firestore client cannot be created.
+     */
+    public synchronized void setReadMode(ReadMode readMode) throws IOException {
+        if (readMode == ReadMode.REPLICA) {
+            if (replica == null) {
+                Query activeJobsQuery = FireStoreUtils.getFireStore()
+                        .collection(JOB_COLLECTION)
+                        .whereEqualTo(JOB_STATUS_FIELD, JobStatus.ACTIVE.name());
+
+                replica = new ActiveJobsReplica(
+                        listener -> activeJobsQuery.addSnapshotListener(MoreExecutors.directExecutor(), listener),
+                        new ActiveJobsListener() {
+                            @Override
+                            public void onReload(Map<String, Job> activeJobsById) {
+                                activeJobsFeed.reload(activeJobsById);
+                            }
+
+                            @Override
+                            public void onUpsert(String jobId, Job job) {
+                                activeJobsFeed.upsert(jobId, job);
+                            }
+
+                            @Override
+                            public void onRemove(String jobId) {
+                                activeJobsFeed.remove(jobId);
+                            }
+                        },
+                        replicaListenerExecutor);
+            }
+
+            replica.start();
+            if (this.readMode != ReadMode.REPLICA) {
+                // Registered before the reads switch over to it, as registering loads it with the held set
+                activeJobsFeed.addListener(listingIndex);
+            }
+            this.readMode = readMode;
+            return;
+        }
+
+        ReadMode previousReadMode = this.readMode;
+        // The reads switch away from the listing index before it is emptied
+        this.readMode = readMode;
+        if (replica != null) {
+            replica.stop();
+        }
+        if (previousReadMode == ReadMode.REPLICA) {
+            activeJobsFeed.removeListener(listingIndex);
+            listingIndex.onReload(ImmutableMap.of());
+        }
+    }
+
+    /** Returns where the reads of the ACTIVE job posts are served from. */
+    public ReadMode getReadMode() {
+        return readMode;
+    }
+
+    /**
+     * Returns how far behind the database the replica is, in milliseconds: how long its last snapshot took to
+     * arrive while its listener is in sync, or else how old its last snapshot is. Returns -1 until the replica
+     * has received its first snapshot.
+     */
+    public long getReplicaLagMillis() {
+        ActiveJobsReplica current = replica;
+        return current == null ? -1 : current.getLagMillis(System.currentTimeMillis());
+    }
+
+    /** Returns the view of the replica when reads should be served from it, or null when they should not. */
+    @Nullable
+    private ActiveJobsReplica.View getReplicaView() {
+        ActiveJobsReplica current = replica;
+        if (readMode != ReadMode.REPLICA || current == null) {
+            return null;
+        }
+
+        return current.getFreshView(MAX_REPLICA_STALENESS_MILLIS, System.currentTimeMillis());
+    }
+
+    /** Returns an estimate of the memory used by the in-memory {@link SearchIndex}, in bytes. */
+    public long getSearchIndexMemoryBytes() {
+        return searchIndex.getMemoryBytes();
+    }
+
+    /**
+     * Expires the next batch of job posts after the cursor and, once it is committed, the batches after it.
+     *
+     * @return Future of the total number of job posts marked as EXPIRED.
+     */
+    private ApiFuture<Integer> expireJobsAfter(Firestore firestore, long nowMillis, @Nullable DocumentSnapshot cursor,
+                                               int batchesLeft, int expiredCount) {
+        Query query = firestore.collection(JOB_COLLECTION)
+                .whereEqualTo(JOB_STATUS_FIELD, JobStatus.ACTIVE.getStatusId())
+                .whereLessThanOrEqualTo(POST_EXPIRY_FIELD, nowMillis)
+                .orderBy(POST_EXPIRY_FIELD)
+                .orderBy(FieldPath.documentId());
+
+        if (cursor != null) {
+            query = query.startAfter(cursor);
+        }
+
+        // Once the sweep is out of batches, only the oldest remaining job post is read to measure the lag
+        query = query.limit(batchesLeft > 0 ? FIRESTORE_MAX_BATCH_WRITES : 1);
+
+        return ApiFutures.transformAsync(
+            query.get(),
+            querySnapshot -> {
+                List<QueryDocumentSnapshot> documents = querySnapshot.getDocuments();
+                if (documents.isEmpty()) {
+                    expirySweepLagMillis = 0;
+                    return ApiFutures.immediateFuture(expiredCount);
+                }
+
+                if (batchesLeft == 0) {
+                    Long oldestExpiry = documents.get(0).getLong(POST_EXPIRY_FIELD);
+                    expirySweepLagMillis = oldestExpiry == null ? 0 : Math.max(0, nowMillis - oldestExpiry);
+                    log.warning(String.format("expiry sweep stopped %d ms behind", expirySweepLagMillis));
+                    return ApiFutures.immediateFuture(expiredCount);
+                }
+
+                WriteBatch batch = firestore.batch();
+                List<String> jobIds = new ArrayList<>(documents.size());
+                Set<SingaporeRegion> regions = new HashSet<>();
+                for (QueryDocumentSnapshot document : documents) {
+                    // Fails the batch if the job post changed since it was read, e.g. it was deleted meanwhile
+                    batch.update(document.getReference(), Precondition.updatedAt(document.getUpdateTime()),
+                            JOB_STATUS_FIELD, JobStatus.EXPIRED.getStatusId());
+                    jobIds.add(document.getId());
+                    addRegion(regions, document.getString(REGION_FIELD));
+                }
+
+                ApiFuture<List<WriteResult>> commitFuture = batch.commit();
+                invalidateCaches(jobIds, regions, commitFuture);
+                runOnSuccess(commitFuture, () -> jobIds.forEach(activeJobsFeed::remove));
+
+                QueryDocumentSnapshot lastDocument = documents.get(documents.size() - 1);
+                return ApiFutures.transformAsync(
+                    commitFuture,
+                    writeResults -> expireJobsAfter(firestore, nowMillis, lastDocument, batchesLeft - 1,
+                            expiredCount + documents.size()),
+                    MoreExecutors.directExecutor()
+                );
+            },
+            MoreExecutors.directExecutor()
+        );
+    }
+
+    /** Adds the region with the stable id to the set, or all the regions if the id is not valid. */
+    private static void addRegion(Set<SingaporeRegion> regions, @Nullable String regionId) {
+        try {
+            regions.add(SingaporeRegion.getFromId(regionId));
+        } catch (IllegalArgumentException e) {
+            regions.add(SingaporeRegion.ENTIRE);
+        }
     }
 
     /**
-     * Edits the job post.
+     * Edits some fields of the job post. Only the fields the patch sets are written, without reading the
+     * job post first. The write fails with FAILED_PRECONDITION if the expected update time is given and the
+     * job post has been written since then, so that a client can avoid overwriting an edit it has not seen.
      *
      * @param jobId Id for the target job post in the database.
-     * @param updatedJob Updated job post (with cloud firestore id).
-     * @return A future of document reference for the updated job post.
-     * @throws IllegalArgumentException If the job id is invalid.
+     * @param jobPatch Fields to change.
+     * @param expectedUpdateTime Update time of the job post the patch was made from, or null to write anyway.
+     * @return A future of the result of the write, with the new update time of the job post.
+     * @throws IllegalArgumentException If the job id is invalid or the patch is empty.
      */
-    public Future<DocumentReference> setJob(String jobId, Job updatedJob) throws IllegalArgumentException, IOException {
+    public ApiFuture<WriteResult> updateJob(String jobId, JobPatch jobPatch, @Nullable Timestamp expectedUpdateTime)
+            throws IllegalArgumentException, IOException {
         if (jobId.isEmpty()) {
             throw new IllegalArgumentException("Job Id should be an non-empty string");
         }
 
-        // Runs an asynchronous transaction
-        ApiFuture<DocumentReference> futureTransaction = FireStoreUtils.getFireStore().runTransaction(transaction -> {
-            final DocumentReference documentReference = FireStoreUtils.getFireStore()
-                    .collection(JOB_COLLECTION).document(jobId);
-
-            // Verifies if the current user can update the job post with this job id
-            // TODO(issue/25): incorporate the account stuff into job post.
-            DocumentSnapshot documentSnapshot = transaction.get(documentReference).get();
+        if (jobPatch.isEmpty()) {
+            throw new IllegalArgumentException("Job patch should set at least one field");
+        }
 
-            // Job does not exist
-            if (!documentSnapshot.exists()) {
-                throw new IllegalArgumentException("Invalid jobId");
-            }
+        DocumentReference documentReference = FireStoreUtils.getFireStore()
+                .collection(JOB_COLLECTION).document(jobId);
+        Map<String, Object> patchedFields = JobDocumentMapper.toDocument(jobPatch);
 
-            // Overwrites the whole job post
-            transaction.set(documentReference, updatedJob);
+        // TODO(issue/25): verify that the current user can update the job post with this job id
+        // A single write, that fails if the job post does not exist
+        ApiFuture<WriteResult> futureUpdate = failIfJobNotFound(expectedUpdateTime == null
+                ? documentReference.update(patchedFields)
+                : documentReference.update(patchedFields, Precondition.updatedAt(expectedUpdateTime)));
+        SingaporeRegion newRegion = jobPatch.getJobLocation() == null ? null : jobPatch.getJobLocation().getRegion();
+        invalidateCaches(ImmutableList.of(jobId), getAffectedRegions(jobId, newRegion), futureUpdate);
+        runOnSuccess(futureUpdate, () -> updateActiveJobs(jobId, jobPatch));
 
-            return documentReference;
-        });
-        
-        return futureTransaction;
+        return futureUpdate;
     }
 
     /**
@@ -103,287 +628,1101 @@ public final class JobsDatabase {
      * @param jobId Cloud Firestore Id of the job post.
      * @return A future of document reference for the updated job post.
      */
-    public Future<DocumentReference> markJobPostAsDeleted(String jobId) throws IOException {
+    public ApiFuture<DocumentReference> markJobPostAsDeleted(String jobId) throws IOException {
         if (jobId.isEmpty()) {
             throw new IllegalArgumentException("Job Id should be an non-empty string");
         }
         
-        // Runs an asynchronous transaction
-        ApiFuture<DocumentReference> futureTransaction = FireStoreUtils.getFireStore().runTransaction(transaction -> {
-            final DocumentReference documentReference = FireStoreUtils.getFireStore()
-                    .collection(JOB_COLLECTION).document(jobId);
-
-            // Verifies if the current user can update the job post with this job id
-            // TODO(issue/25): incorporate the account stuff into job post.
-            DocumentSnapshot documentSnapshot = transaction.get(documentReference).get();
-
-            // Job does not exist
-            if (!documentSnapshot.exists()) {
-                throw new IllegalArgumentException("Invalid jobId");
+        DocumentReference documentReference = FireStoreUtils.getFireStore()
+                .collection(JOB_COLLECTION).document(jobId);
+
+        // TODO(issue/25): verify that the current user can update the job post with this job id
+        // Updates the jobStatus field to DELETED, in a single write that fails if the job post does not exist
+        ApiFuture<DocumentReference> futureUpdate = toJobPostWrite(documentReference,
+                documentReference.update(JOB_STATUS_FIELD, JobStatus.DELETED.getStatusId()));
+        invalidateCaches(ImmutableList.of(jobId), getAffectedRegions(jobId, /* newRegion= */ null), futureUpdate);
+        runOnSuccess(futureUpdate, () -> activeJobsFeed.remove(jobId));
+
+        return futureUpdate;
+    }
+
+    /**
+     * Returns the future of a write to an existing job post. Firestore only applies an update to a document
+     * that exists, so a write to an unknown job id fails with the same {@code IllegalArgumentException} as
+     * when the job post was read first.
+     *
+     * @param documentReference Document of the job post.
+     * @param writeFuture Future of the update of the document.
+     * @return A future of the document reference, once the job post is written.
+     */
+    private static ApiFuture<DocumentReference> toJobPostWrite(DocumentReference documentReference,
+                                                               ApiFuture<WriteResult> writeFuture) {
+        return failIfJobNotFound(ApiFutures.transform(
+                writeFuture, writeResult -> documentReference, MoreExecutors.directExecutor()));
+    }
+
+    /** Fails the future of a write to a job post that does not exist with an {@code IllegalArgumentException}. */
+    private static <T> ApiFuture<T> failIfJobNotFound(ApiFuture<T> writeFuture) {
+        return ApiFutures.catchingAsync(
+            writeFuture,
+            Throwable.class,
+            t -> hasStatusCode(t, StatusCode.Code.NOT_FOUND)
+                    ? ApiFutures.immediateFailedFuture(new IllegalArgumentException("Invalid jobId", t))
+                    : ApiFutures.immediateFailedFuture(t),
+            MoreExecutors.directExecutor()
+        );
+    }
+
+    /** Returns whether the call failed with the status code, such as NOT_FOUND when the document does not exist. */
+    private static boolean hasStatusCode(Throwable t, StatusCode.Code code) {
+        for (Throwable cause : Throwables.getCausalChain(t)) {
+            if (cause instanceof ApiException && ((ApiException) cause).getStatusCode().getCode() == code) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Applies a patch written through this instance to the in-memory indexes. The patch is applied to the
+     * job post they hold; a job post they do not hold is only read again if the patch makes it ACTIVE.
+     */
+    private void updateActiveJobs(String jobId, JobPatch jobPatch) {
+        Job previousJob = activeJobsFeed.getJob(jobId);
+        if (previousJob != null) {
+            updateActiveJobs(jobId, jobPatch.applyTo(previousJob));
+            return;
+        }
+
+        if (jobPatch.getJobStatus() != JobStatus.ACTIVE) {
+            return;
+        }
+
+        try {
+            ApiFutures.addCallback(fetchJobFromDatabase(jobId), new ApiFutureCallback<Optional<VersionedJob>>() {
+                @Override
+                public void onSuccess(Optional<VersionedJob> job) {
+                    job.ifPresent(activeJob -> updateActiveJobs(jobId, activeJob.getJob()));
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    log.log(Level.WARNING, "could not read the job post made ACTIVE: " + jobId, t);
+                }
+            }, MoreExecutors.directExecutor());
+        } catch (IOException e) {
+            log.log(Level.WARNING, "could not read the job post made ACTIVE: " + jobId, e);
+        }
+    }
+
+    /** Applies a job post written through this instance to the in-memory indexes. */
+    private void updateActiveJobs(String jobId, Job job) {
+        if (job.getJobStatus() == JobStatus.ACTIVE) {
+            activeJobsFeed.upsert(jobId, job);
+        } else {
+            activeJobsFeed.remove(jobId);
+        }
+    }
+
+    /**
+     * Returns the regions whose listings a write to the job post may change: its new region and, when it is
+     * known from the job cache, its previous one.
+     *
+     * @param jobId Cloud Firestore id of the job post.
+     * @param newRegion Region of the job post after the write, or null if the write does not set it.
+     * @return The affected regions, or null when they are unknown and all listings should be invalidated.
+     */
+    @Nullable
+    private Set<SingaporeRegion> getAffectedRegions(String jobId, @Nullable SingaporeRegion newRegion) {
+        // Does not go through the cache methods so that the lookup is not counted in the cache stats
+        ApiFuture<Optional<VersionedJob>> cachedJob = jobCache.asMap().get(jobId);
+        if (cachedJob == null || !cachedJob.isDone()) {
+            return null;
+        }
+
+        Optional<VersionedJob> previousJob;
+        try {
+            previousJob = cachedJob.get();
+        } catch (InterruptedException | ExecutionException e) {
+            return null;
+        }
+
+        if (!previousJob.isPresent()) {
+            return null;
+        }
+
+        Set<SingaporeRegion> regions = new HashSet<>();
+        regions.add(previousJob.get().getJob().getJobLocation().getRegion());
+        if (newRegion != null) {
+            regions.add(newRegion);
+        }
+
+        return regions;
+    }
+
+    /**
+     * Drops the cached job posts and the cached listings of the affected regions, both now and once the write
+     * has completed, so that no read racing the write stays cached.
+     *
+     * @param jobIds Cloud Firestore ids of the written job posts.
+     * @param regions Regions whose listings may change, or null to invalidate all the listings.
+     * @param writeFuture Future of the write.
+     */
+    private void invalidateCaches(Collection<String> jobIds, @Nullable Set<SingaporeRegion> regions,
+                                  ApiFuture<?> writeFuture) {
+        Runnable invalidation = () -> {
+            jobCache.invalidateAll(jobIds);
+
+            if (regions == null) {
+                jobPageCache.invalidateAll();
+            } else {
+                regions.forEach(jobPageCache::invalidateRegion);
+            }
+        };
+
+        invalidation.run();
+        ApiFutures.addCallback(writeFuture, new ApiFutureCallback<Object>() {
+            @Override
+            public void onSuccess(Object result) {
+                invalidation.run();
             }
 
-            // Updates the jobStatus field to DELETED
-            transaction.update(documentReference, JOB_STATUS_FIELD, JobStatus.DELETED);
+            @Override
+            public void onFailure(Throwable t) {
+                invalidation.run();
+            }
+        }, MoreExecutors.directExecutor());
+    }
 
-            return documentReference;
-        });
+    /** Runs the action once the future has failed. */
+    private static void runOnFailure(ApiFuture<?> future, Runnable action) {
+        ApiFutures.addCallback(future, new ApiFutureCallback<Object>() {
+            @Override
+            public void onSuccess(Object result) {
+                // Nothing to do
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                action.run();
+            }
+        }, MoreExecutors.directExecutor());
+    }
 
-        return futureTransaction;
+    /** Runs the action once the future has completed successfully. */
+    private static void runOnSuccess(ApiFuture<?> future, Runnable action) {
+        ApiFutures.addCallback(future, new ApiFutureCallback<Object>() {
+            @Override
+            public void onSuccess(Object result) {
+                action.run();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                // Nothing changed in the database
+            }
+        }, MoreExecutors.directExecutor());
     }
 
     /**
-     * Fetches the snapshot future of a specific job post.
+     * Fetches the snapshot future of a specific job post, with the update time of its document, which the
+     * client sends back to only update the version it has read.
+     * Results are kept in an in-process cache for up to {@link #JOB_CACHE_TTL_SECONDS} seconds,
+     * and writes made through this instance invalidate them. In {@link ReadMode#REPLICA}, ACTIVE job posts
+     * are served from the replica instead.
      *
      * @param jobId Id for the job post in the database.
      * @return Future of the target job post.
      * @throws IllegalArgumentException If the job id is invalid.
      */
-    public Future<Optional<Job>> fetchJob(String jobId) throws IllegalArgumentException, IOException {
+    public ApiFuture<Optional<VersionedJob>> fetchJob(String jobId) throws IllegalArgumentException, IOException {
+        // The replica only has the ACTIVE job posts, so the others are still read from the database
+        ActiveJobsReplica.View replicaView = getReplicaView();
+        VersionedJob replicaJob = replicaView == null ? null : replicaView.getJob(jobId);
+        if (replicaJob != null) {
+            return ApiFutures.immediateFuture(Optional.of(replicaJob));
+        }
+
+        try {
+            // Concurrent misses for the same job share a single read
+            return jobCache.get(jobId, () -> {
+                ApiFuture<Optional<VersionedJob>> jobFuture = fetchJobFromDatabase(jobId);
+                // Failures are not cached
+                runOnFailure(jobFuture, () -> jobCache.asMap().remove(jobId, jobFuture));
+                return jobFuture;
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class);
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** Returns the hit, miss and eviction counts of the cache used by {@link #fetchJob(String)}. */
+    public CacheStats getJobCacheStats() {
+        return jobCache.stats();
+    }
+
+    /** Logs the counters of the caches since the instance started. */
+    private void logCacheStats() {
+        CacheStats jobCacheStats = jobCache.stats();
+        log.info(String.format("job cache: %d entries, %d hits, %d misses, %d evictions, hit rate %.2f",
+                jobCache.size(), jobCacheStats.hitCount(), jobCacheStats.missCount(),
+                jobCacheStats.evictionCount(), jobCacheStats.hitRate()));
+        log.info(String.format("job page cache: %d hits, %d stale hits, %d misses, %d stale-if-error",
+                jobPageCache.getHitCount(), jobPageCache.getStaleHitCount(), jobPageCache.getMissCount(),
+                jobPageCache.getStaleIfErrorCount()));
+    }
+
+    /** Reads a specific job post from the database, bypassing the cache. */
+    private ApiFuture<Optional<VersionedJob>> fetchJobFromDatabase(String jobId)
+            throws IllegalArgumentException, IOException {
         DocumentReference docRef = FireStoreUtils.getFireStore()
                 .collection(JOB_COLLECTION).document(jobId);
 
         // Asynchronously retrieves the document
         ApiFuture<DocumentSnapshot> snapshotFuture = docRef.get();
 
-        ApiFunction<DocumentSnapshot, Optional<Job>> jobFunction = new ApiFunction<DocumentSnapshot, Optional<Job>>() {
+        ApiFunction<DocumentSnapshot, Optional<VersionedJob>> jobFunction =
+                new ApiFunction<DocumentSnapshot, Optional<VersionedJob>>() {
             @NullableDecl
-            public Optional<Job> apply(@NullableDecl DocumentSnapshot documentSnapshot) {
-                return FireStoreUtils.convertDocumentSnapshotToPOJO(documentSnapshot, Job.class);
+            public Optional<VersionedJob> apply(@NullableDecl DocumentSnapshot documentSnapshot) {
+                return JobDocumentMapper.toJob(documentSnapshot)
+                        .map(job -> new VersionedJob(job, documentSnapshot.getUpdateTime()));
             }
         };
 
         return ApiFutures.transform(snapshotFuture, jobFunction, MoreExecutors.directExecutor());
     }
 
-    /** Returns future of all ACTIVE and eligible job posts in database. */
-    public Future<Collection<Job>> fetchAllEligibleJobs(List<String> skills) throws IOException {
-        // Gets all requirements stable id
-        List<String> requirementsList = Requirement.getAllRequirementIds();
-
-        // Gets a list of requirements which the applicant does not have
-        List<String> excludedSkills = new ArrayList<>(requirementsList);
-        excludedSkills.removeAll(skills);
+    /**
+     * Returns future of all ACTIVE and eligible job posts in database.
+     * Eligible posts are those whose requirements are all among the applicant's skills. They are answered
+     * from the in-memory {@link EligibilityIndex}, which may lag behind writes made by other instances by up
+     * to {@link ActiveJobsFeed#RELOAD_INTERVAL_MILLIS}. In {@link ReadMode#REPLICA}, the index follows the
+     * replica instead.
+     *
+     * @param skills Requirement stable ids of the skills the applicant has.
+     * @return Future of the eligible job posts.
+     */
+    public ApiFuture<Collection<Job>> fetchAllEligibleJobs(List<String> skills) {
+        long applicantMask = Requirement.getRequirementsMask(skills);
 
-        final Query activeJobsQuery = FireStoreUtils.getFireStore()
-                .collection(JOB_COLLECTION)
-                .whereEqualTo(JOB_STATUS_FIELD, JobStatus.ACTIVE);
+        return ApiFutures.transform(
+            activeJobsFeed.ensureLoaded(),
+            unused -> ImmutableSet.copyOf(eligibilityIndex.findEligible(applicantMask)),
+            MoreExecutors.directExecutor()
+        );
+    }
 
-        // Eligible post: post whose requirements do not contain (field is false)
-        // the skills that applicant does not have
-        Query eligiblePostQuery = activeJobsQuery;
-        for (String negateSkill : excludedSkills) {
-            String fieldPath = String.format("%s.%s", JOB_REQUIREMENTS_FIELD, negateSkill);
-            eligiblePostQuery = eligiblePostQuery.whereEqualTo(fieldPath, false);
+    /**
+     * Returns future of all the ACTIVE job posts in the database by their cloud firestore id. They are taken
+     * from the replica when reads are served from it.
+     */
+    private ApiFuture<Map<String, Job>> loadActiveJobs() {
+        ActiveJobsReplica.View replicaView = getReplicaView();
+        if (replicaView != null) {
+            return ApiFutures.immediateFuture(replicaView.getJobsById());
         }
 
-        ApiFuture<QuerySnapshot> querySnapshotFuture = eligiblePostQuery.get();
-
-        ApiFunction<QuerySnapshot, Collection<Job>> function = documents -> {
-            ImmutableSet.Builder<Job> jobs = ImmutableSet.builder();
+        Query activeJobsQuery;
+        try {
+            activeJobsQuery = FireStoreUtils.getFireStore()
+                    .collection(JOB_COLLECTION)
+                    .whereEqualTo(JOB_STATUS_FIELD, JobStatus.ACTIVE.name());
+        } catch (IOException e) {
+            return ApiFutures.immediateFailedFuture(e);
+        }
 
-            for (DocumentSnapshot document : documents) {
-                Job job = document.toObject(Job.class);
-                jobs.add(job);
-            }
+        return ApiFutures.transform(
+            activeJobsQuery.get(),
+            documents -> {
+                ImmutableMap.Builder<String, Job> jobsById = ImmutableMap.builder();
 
-            return jobs.build();
-        };
+                for (DocumentSnapshot document : documents) {
+                    JobDocumentMapper.toValidJob(document).ifPresent(job -> jobsById.put(document.getId(), job));
+                }
 
-        return ApiFutures.transform(querySnapshotFuture, function, MoreExecutors.directExecutor());
+                return jobsById.build();
+            },
+            MoreExecutors.directExecutor()
+        );
     }
 
     /**
      * Gets all the jobs given the params from the database.
      * Currently, they can only be sorted/filtered by salary.
+     * Only one page of documents is read: the page after {@link JobQuery#getPageToken()} when present, or
+     * else the first page.
+     *
+     * Pages are kept in a {@link JobPageCache}, and writes made through this instance invalidate the pages
+     * of the regions they touch. In {@link ReadMode#REPLICA}, pages are taken from the {@link ListingIndex},
+     * which follows the replica, instead.
      *
      * @param jobQuery The job query object with all the filtering/sorting params.
      * @return Future of the JobPage object.
+     * @throws IllegalArgumentException If the page token is invalid or was issued for another query.
      */
-    public static Future<JobPage> fetchJobPage(JobQuery jobQuery) throws IOException {
-        CollectionReference jobsCollection = FireStoreUtils.getFireStore().collection(JOB_COLLECTION);
+    public ApiFuture<JobPage> fetchJobPage(JobQuery jobQuery) throws IllegalArgumentException {
+        if (jobQuery.getSortBy().equals(Filter.DISTANCE)) {
+            return fetchJobPageByDistance(jobQuery);
+        }
+
+        if (jobQuery.getSortBy().equals(Filter.RELEVANCE)) {
+            return fetchJobPageByRelevance(jobQuery);
+        }
 
         // TODO(issue/62): support other filters
         if (!jobQuery.getSortBy().equals(Filter.SALARY)) {
             throw new UnsupportedOperationException("currently this app only supports sorting/filtering by salary");
         }
 
+        // Fails fast on a malformed token, or one issued for another query, instead of caching the failure
+        if (!jobQuery.getPageToken().isEmpty()) {
+            PageToken.decode(jobQuery.getPageToken(), jobQuery.getQueryHash());
+        }
+
+        // The listing index follows the replica, so its pages are not cached
+        if (getReplicaView() != null) {
+            return fetchJobPageFromListingIndex(jobQuery);
+        }
+
+        return jobPageCache.get(jobQuery, () -> fetchJobPageFromDatabase(jobQuery));
+    }
+
+    /**
+     * Gets the jobs given the params, nearest first from the place of the query, whatever its order.
+     * They are answered from the in-memory {@link GeoIndex}, which may lag behind writes made by other
+     * instances by up to {@link ActiveJobsFeed#RELOAD_INTERVAL_MILLIS}, and so are not cached.
+     *
+     * @param jobQuery The job query object with the place and the filtering params.
+     * @return Future of the JobPage object.
+     * @throws IllegalArgumentException If the place is not set or the page token is invalid.
+     */
+    private ApiFuture<JobPage> fetchJobPageByDistance(JobQuery jobQuery) throws IllegalArgumentException {
+        if (!jobQuery.hasLocation()) {
+            throw new IllegalArgumentException("location should be set when sorting by distance");
+        }
+
+        Predicate<Job> filter = getListingFilter(jobQuery);
+
+        return fetchJobPageFromIndex(jobQuery,
+                (distanceCentimeters, jobId) -> new GeoIndex.NearbyJob(jobId, /* job= */ null, distanceCentimeters),
+                (after, limit) -> geoIndex.findNearest(jobQuery.getLatitude(), jobQuery.getLongitude(),
+                        jobQuery.getMaxDistance(), filter, after, limit),
+                nearbyJob -> new PageJob(nearbyJob.getDistanceCentimeters(), nearbyJob.getJobId(),
+                        nearbyJob.getJob()));
+    }
+
+    /**
+     * Gets the jobs given the params that match the search text of the query, best match first whatever
+     * its order. They are answered from the in-memory {@link SearchIndex}, which may lag behind writes made by
+     * other instances by up to {@link ActiveJobsFeed#RELOAD_INTERVAL_MILLIS}, and so are not cached.
+     *
+     * @param jobQuery The job query object with the search text and the filtering params.
+     * @return Future of the JobPage object.
+     * @throws IllegalArgumentException If the search text is not set or the page token is invalid.
+     */
+    private ApiFuture<JobPage> fetchJobPageByRelevance(JobQuery jobQuery) throws IllegalArgumentException {
+        if (jobQuery.getSearchText().trim().isEmpty()) {
+            throw new IllegalArgumentException("search text should be set when sorting by relevance");
+        }
+
+        Predicate<Job> filter = getListingFilter(jobQuery);
+
+        // The score is kept as its bits, so that the next page compares against the exact same value
+        return fetchJobPageFromIndex(jobQuery,
+                (scoreBits, jobId) -> new SearchIndex.ScoredJob(jobId, /* job= */ null,
+                        Float.intBitsToFloat((int) (long) scoreBits)),
+                (after, limit) -> searchIndex.search(jobQuery.getSearchText(), filter, after, limit),
+                scoredJob -> new PageJob(Float.floatToIntBits(scoredJob.getScore()), scoredJob.getJobId(),
+                        scoredJob.getJob()));
+    }
+
+    /**
+     * Returns the most posted titles of the ACTIVE job posts that start with the prefix, for type-ahead.
+     * They are answered from the in-memory {@link TitleTrie}, which may lag behind writes made by other
+     * instances by up to {@link ActiveJobsFeed#RELOAD_INTERVAL_MILLIS}.
+     *
+     * @param prefix What has been typed so far.
+     * @param limit The maximum number of titles, at most {@link TitleTrie#MAX_SUGGESTIONS}.
+     * @return Future of the suggested titles, most posted first.
+     * @throws IllegalArgumentException If the limit is out of range.
+     */
+    public ApiFuture<List<TitleSuggestion>> fetchTitleSuggestions(String prefix, int limit)
+            throws IllegalArgumentException {
+        if (limit < 1 || limit > TitleTrie.MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("limit should be between 1 and " + TitleTrie.MAX_SUGGESTIONS);
+        }
+
+        return ApiFutures.transform(
+            activeJobsFeed.ensureLoaded(),
+            unused -> titleTrie.suggest(prefix, limit),
+            MoreExecutors.directExecutor()
+        );
+    }
+
+    /** Returns whether a job post is within the salary limits and the region of the query. */
+    private static Predicate<Job> getListingFilter(JobQuery jobQuery) {
+        return job -> {
+            long annualMax = job.getJobPay().getAnnualMax();
+            SingaporeRegion region = jobQuery.getRegion();
+            return annualMax >= jobQuery.getMinLimit() && annualMax <= jobQuery.getMaxLimit()
+                    && (region.equals(SingaporeRegion.ENTIRE) || region.equals(job.getJobLocation().getRegion()));
+        };
+    }
+
+    /**
+     * Returns the map clusters of the ACTIVE job posts in the map view. They are answered from the in-memory
+     * {@link ClusterIndex}, which may lag behind writes made by other instances by up to
+     * {@link ActiveJobsFeed#RELOAD_INTERVAL_MILLIS}.
+     *
+     * @param south Southern latitude of the view.
+     * @param west Western longitude of the view.
+     * @param north Northern latitude of the view.
+     * @param east Eastern longitude of the view.
+     * @param zoom Zoom level of the map, from 0 for the whole world.
+     * @return Future of the clusters that have job posts in the view.
+     * @throws IllegalArgumentException If the view or the zoom is invalid.
+     */
+    public ApiFuture<List<JobCluster>> fetchJobClusters(double south, double west, double north, double east,
+                                                        int zoom) throws IllegalArgumentException {
+        GeoUtils.checkCoordinates(south, west);
+        GeoUtils.checkCoordinates(north, east);
+
+        if (south > north || west > east) {
+            throw new IllegalArgumentException("south and west should not be greater than north and east");
+        }
+
+        if (zoom < 0 || zoom > ClusterIndex.MAX_ZOOM) {
+            throw new IllegalArgumentException("zoom should be between 0 and " + ClusterIndex.MAX_ZOOM);
+        }
+
+        return ApiFutures.transform(
+            activeJobsFeed.ensureLoaded(),
+            unused -> clusterIndex.getClusters(south, west, north, east, zoom),
+            MoreExecutors.directExecutor()
+        );
+    }
+
+    /**
+     * Gets the page of jobs for the query from the in-memory {@link ListingIndex}, in the same order as the
+     * database query and with the same page tokens, so that a client can page through both.
+     */
+    private ApiFuture<JobPage> fetchJobPageFromListingIndex(JobQuery jobQuery) {
+        return fetchJobPageFromIndex(jobQuery,
+                (salary, jobId) -> new ListingIndex.ListedJob(jobId, /* job= */ null, salary),
+                (after, limit) -> listingIndex.getPage(jobQuery.getRegion(), jobQuery.getMinLimit(),
+                        jobQuery.getMaxLimit(), jobQuery.getOrder(), after, /* offset= */ 0, limit),
+                listedJob -> new PageJob(listedJob.getSalary(), listedJob.getJobId(), listedJob.getJob()));
+    }
+
+    /** A job of a page read from an in-memory index, with the value it is sorted by in the index. */
+    private static final class PageJob {
+        private final long sortValue;
+        private final String jobId;
+        private final Job job;
+
+        PageJob(long sortValue, String jobId, Job job) {
+            this.sortValue = sortValue;
+            this.jobId = jobId;
+            this.job = job;
+        }
+    }
+
+    /**
+     * Gets a page of jobs from an in-memory index once it is loaded, with the same page tokens as the database
+     * query. The token keeps the sort value and the id of the last job of the page, from which the index is given
+     * the job the next page starts after; only those are compared, so that job is rebuilt without the job itself.
+     *
+     * @param jobQuery The job query object with the page size and the page token.
+     * @param toAfter Rebuilds the job a page starts after from the sort value and the id in the page token.
+     * @param findJobs Finds, in order, at most the given number of jobs after the given one, or from the first
+     *                 one when it is null.
+     * @param toPageJob Returns the sort value, the id and the job post of a job found.
+     * @return Future of the JobPage object.
+     * @throws IllegalArgumentException If the page token is invalid.
+     */
+    private <T> ApiFuture<JobPage> fetchJobPageFromIndex(JobQuery jobQuery, BiFunction<Long, String, T> toAfter,
+                                                         BiFunction<T, Integer, List<T>> findJobs,
+                                                         Function<T, PageJob> toPageJob)
+            throws IllegalArgumentException {
+        int pageSize = jobQuery.getPageSize();
+        int offset;
+        T after;
+        if (jobQuery.getPageToken().isEmpty()) {
+            offset = 0;
+            after = null;
+        } else {
+            PageToken pageToken = PageToken.decode(jobQuery.getPageToken(), jobQuery.getQueryHash());
+            offset = pageToken.getOffset();
+            after = toAfter.apply(pageToken.getLastValue(), pageToken.getLastDocumentId());
+        }
+
+        return ApiFutures.transform(
+            activeJobsFeed.ensureLoaded(),
+            unused -> {
+                // Finds one extra job to find out whether there is a next page
+                List<T> foundJobs = findJobs.apply(after, pageSize + 1);
+
+                boolean hasNextPage = foundJobs.size() > pageSize;
+                List<T> pageJobs = hasNextPage ? foundJobs.subList(0, pageSize) : foundJobs;
+                if (pageJobs.isEmpty()) {
+                    return new JobPage(ImmutableList.of(), Range.between(0, 0));
+                }
+
+                String nextPageToken = "";
+                if (hasNextPage) {
+                    PageJob lastJob = toPageJob.apply(pageJobs.get(pageJobs.size() - 1));
+                    nextPageToken = new PageToken(jobQuery.getQueryHash(), offset + pageJobs.size(),
+                            lastJob.sortValue, lastJob.jobId).encode();
+                }
+
+                ImmutableList.Builder<Job> jobList = ImmutableList.builder();
+                for (T foundJob : pageJobs) {
+                    jobList.add(toPageJob.apply(foundJob).job);
+                }
+
+                Range<Integer> range = Range.between(offset + 1, offset + pageJobs.size());
+
+                return new JobPage(jobList.build(), range, nextPageToken);
+            },
+            MoreExecutors.directExecutor()
+        );
+    }
+
+    /** Reads the page of jobs for the query from the database, bypassing the cache. */
+    private static ApiFuture<JobPage> fetchJobPageFromDatabase(JobQuery jobQuery) {
+        CollectionReference jobsCollection;
+        try {
+            jobsCollection = FireStoreUtils.getFireStore().collection(JOB_COLLECTION);
+        } catch (IOException e) {
+            return ApiFutures.immediateFailedFuture(e);
+        }
+
+        Query.Direction direction = Order.getQueryDirection(jobQuery.getOrder());
+
+        // Document id breaks ties between equal salaries so that the cursor is unambiguous
         Query query = jobsCollection.whereEqualTo(JOB_STATUS_FIELD, JobStatus.ACTIVE.name())
             .whereGreaterThanOrEqualTo(SALARY_FIELD, jobQuery.getMinLimit())
             .whereLessThanOrEqualTo(SALARY_FIELD, jobQuery.getMaxLimit())
-            .orderBy(SALARY_FIELD, Order.getQueryDirection(jobQuery.getOrder()));
+            .orderBy(SALARY_FIELD, direction)
+            .orderBy(FieldPath.documentId(), direction);
 
         SingaporeRegion region = jobQuery.getRegion();
         if (!region.equals(SingaporeRegion.ENTIRE)) {
             query = query.whereEqualTo(REGION_FIELD, region.name());
         }
 
-        // TODO(issue/34): add to the query to include pagination (using pageSize and pageIndex)
+        int pageSize = jobQuery.getPageSize();
+        int offset;
+        if (jobQuery.getPageToken().isEmpty()) {
+            offset = 0;
+        } else {
+            PageToken pageToken = PageToken.decode(jobQuery.getPageToken(), jobQuery.getQueryHash());
+            offset = pageToken.getOffset();
+            query = query.startAfter(pageToken.getLastValue(), pageToken.getLastDocumentId());
+        }
+
+        // Reads one extra document to find out whether there is a next page
+        query = query.limit(pageSize + 1);
 
         return ApiFutures.transform(
             query.get(),
             querySnapshot -> {
                 if (querySnapshot == null) {
-                    return new JobPage(/* jobList= */ ImmutableList.of(), /* totalCount= */ 0, Range.between(0, 0));
+                    return new JobPage(/* jobList= */ ImmutableList.of(), Range.between(0, 0));
                 }
 
                 List<QueryDocumentSnapshot> documents = querySnapshot.getDocuments();
                 if (documents.size() == 0) {
-                    return new JobPage(ImmutableList.of(), 0, Range.between(0, 0));
+                    return new JobPage(ImmutableList.of(), Range.between(0, 0));
                 }
 
+                boolean hasNextPage = documents.size() > pageSize;
+                List<QueryDocumentSnapshot> pageDocuments = hasNextPage ? documents.subList(0, pageSize) : documents;
+
                 ImmutableList.Builder<Job> jobList = ImmutableList.builder();
 
-                for (QueryDocumentSnapshot document : documents) {
-                    Job job = document.toObject(Job.class);
-                    jobList.add(job);
+                for (QueryDocumentSnapshot document : pageDocuments) {
+                    JobDocumentMapper.toValidJob(document).ifPresent(jobList::add);
+                }
+
+                String nextPageToken = "";
+                if (hasNextPage) {
+                    QueryDocumentSnapshot lastDocument = pageDocuments.get(pageDocuments.size() - 1);
+                    nextPageToken = new PageToken(jobQuery.getQueryHash(), offset + pageDocuments.size(),
+                            lastDocument.getLong(SALARY_FIELD), lastDocument.getId()).encode();
+                }
+
+                // Malformed documents are skipped, so the page may hold fewer jobs than documents read
+                List<Job> jobs = jobList.build();
+                if (jobs.isEmpty()) {
+                    return new JobPage(jobs, Range.between(0, 0), nextPageToken);
                 }
-            
-                // TODO(issue/34): adjust range/total count based on pagination
-                long totalCount = documents.size();
-                Range<Integer> range = Range.between(1, documents.size());
 
-                return new JobPage(jobList.build(), totalCount, range);  
+                Range<Integer> range = Range.between(offset + 1, offset + jobs.size());
+
+                return new JobPage(jobs, range, nextPageToken);
             },
             MoreExecutors.directExecutor()
         );
     }
 
     /**
-     * Gets all the applicant's interested jobs given the params. If there's an error in getting a particular job
-     * from the jobId, then that specific job will not be returned.
+     * Gets one page of the applicant's interested jobs, the most recently added first. If there's an error
+     * in getting a particular job from the jobId, or it is no longer ACTIVE, then that specific job will not
+     * be returned. The page after the page token is read when it is present, or else the first page.
+     *
+     * Applicants whose interested list is still the legacy array are served from the array; the array is
+     * moved to the subcollection on their next change.
      *
      * @param applicantId The applicant's userId.
      * @param pageSize The the number of jobs to be shown on the page.
-     * @param pageIndex The page number on which we are at.
+     * @param pageToken The cursor from {@link JobPage#getNextPageToken()} of the previous page, or empty.
      * @return Future of the JobPage object.
-     * @throws IllegalArgumentException If the applicantId doesn't have a corresponding document.
+     * @throws IllegalArgumentException If the applicantId doesn't have a corresponding document, or the page
+     *     token is invalid.
      */
-    public Future<JobPage> fetchInterestedJobPage(String applicantId, int pageSize, int pageIndex) throws IOException, IllegalArgumentException {
-        CollectionReference applicantAccountsCollection = FireStoreUtils.getFireStore().collection(APPLICANT_ACCOUNTS_COLLECTION);
+    public ApiFuture<JobPage> fetchInterestedJobPage(String applicantId, int pageSize, String pageToken)
+            throws IOException, IllegalArgumentException {
+        DocumentReference applicantReference = FireStoreUtils.getFireStore()
+                .collection(APPLICANT_ACCOUNTS_COLLECTION).document(applicantId);
 
-        DocumentReference docRef = applicantAccountsCollection.document(applicantId);
+        // Document id breaks ties between jobs added at the same time so that the cursor is unambiguous
+        Query query = applicantReference.collection(INTERESTED_JOBS_COLLECTION)
+                .orderBy(ADDED_TIMESTAMP_FIELD, Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
 
-        return ApiFutures.transform(
-            docRef.get(),
-            documentSnapshot -> {
-                if (!documentSnapshot.exists()) {
+        // The tokens of one applicant's list are not valid for another's
+        int queryHash = applicantId.hashCode();
+        int offset;
+        if (pageToken.isEmpty()) {
+            offset = 0;
+        } else {
+            PageToken token = PageToken.decode(pageToken, queryHash);
+            offset = token.getOffset();
+            query = query.startAfter(token.getLastValue(), token.getLastDocumentId());
+        }
+
+        // Reads one extra document to find out whether there is a next page
+        // Read along with the applicant, which tells whether the list is still the legacy array
+        ApiFuture<QuerySnapshot> interestedJobsFuture = query.limit(pageSize + 1).get();
+
+        return ApiFutures.transformAsync(
+            applicantReference.get(),
+            applicantSnapshot -> {
+                if (!applicantSnapshot.exists()) {
                     throw new IllegalArgumentException("Invalid applicantId");
                 }
 
-                List<String> interestedList = (List<String>) documentSnapshot.get(INTERESTED_JOBS_FIELD);
+                List<String> legacyInterestedList = (List<String>) applicantSnapshot.get(INTERESTED_JOBS_FIELD);
+                if (legacyInterestedList != null) {
+                    return fetchLegacyInterestedJobPage(legacyInterestedList, pageSize, offset, queryHash);
+                }
 
-                List<Job> jobList = fetchAllJobsFromIds(interestedList);
-                // TODO(issue/34): adjust range/total count based on pagination
-                long totalCount = jobList.size();
-                Range<Integer> range = Range.between(1, jobList.size());
+                return ApiFutures.transformAsync(
+                    interestedJobsFuture,
+                    querySnapshot -> {
+                        List<String> jobIds = new ArrayList<>();
+                        List<Long> addedTimestamps = new ArrayList<>();
+                        for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
+                            Long addedTimestamp = document.getLong(ADDED_TIMESTAMP_FIELD);
+                            jobIds.add(document.getId());
+                            addedTimestamps.add(addedTimestamp == null ? 0 : addedTimestamp);
+                        }
 
-                return new JobPage(jobList, totalCount, range);
+                        return fetchInterestedJobPage(jobIds, addedTimestamps, pageSize, offset, queryHash);
+                    },
+                    MoreExecutors.directExecutor()
+                );
             },
             MoreExecutors.directExecutor()
         );
     }
 
     /**
-     * This will return a list of jobs given the list of jobIds.
-     * It will call on a helper function that will process the list at max {@link #FIRESTORE_IN_QUERY_MAX_ARGS}
-     * ids at a time.
-     * Any jobs that are not active or invalid will not be included in the list returned.
-     *
-     * @param jobIds The list of jobIds.
-     * @return The list of jobs.
+     * Gets one page of an interested list that is still the legacy array, in the same order and with the same
+     * page tokens as once it is moved to the subcollection.
      */
-    public List<Job> fetchAllJobsFromIds(List<String> jobIds) {
-        if (jobIds.isEmpty()) {
-            return ImmutableList.of();
+    private ApiFuture<JobPage> fetchLegacyInterestedJobPage(List<String> legacyInterestedList, int pageSize,
+                                                            int offset, int queryHash) {
+        List<String> jobIds = new ArrayList<>();
+        List<Long> addedTimestamps = new ArrayList<>();
+        List<String> interestedList = ImmutableList.copyOf(new LinkedHashSet<>(legacyInterestedList));
+        for (int i = interestedList.size() - 1 - offset; i >= 0 && jobIds.size() <= pageSize; i--) {
+            jobIds.add(interestedList.get(i));
+            addedTimestamps.add(getLegacyAddedTimestamp(i));
         }
-        
-        ImmutableList.Builder<Job> jobListBuilder = ImmutableList.builder();
-        try {
-            int counter = 0;
-            // TODO(issue/34): pagination could also be included here.
-            while (counter + FIRESTORE_IN_QUERY_MAX_ARGS < jobIds.size()) {
-                List<String> subList = jobIds.subList(/* inclusive */ counter, /* exclusive */ counter + FIRESTORE_IN_QUERY_MAX_ARGS);
-                List<Job> fetchedList = fetchJobsFromIds(subList).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
-                jobListBuilder.addAll(fetchedList);
-                counter = counter + FIRESTORE_IN_QUERY_MAX_ARGS;
-            }
-            List<String> subList = jobIds.subList(/* inclusive */ counter, /* exclusive */ jobIds.size());
-            List<Job> fetchedList = fetchJobsFromIds(subList).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            jobListBuilder.addAll(fetchedList);
-        } catch (IOException | InterruptedException | ExecutionException | TimeoutException e) {
-            log.log(Level.SEVERE, "error while getting interested job list ", e);
+
+        return fetchInterestedJobPage(jobIds, addedTimestamps, pageSize, offset, queryHash);
+    }
+
+    /**
+     * Fetches the jobs of one page of an interested list.
+     *
+     * @param jobIds Ids of the jobs on the page, followed by the first one of the next page if there is one.
+     * @param addedTimestamps When each job was added, in the same order.
+     * @param pageSize The the number of jobs to be shown on the page.
+     * @param offset The number of jobs on the pages before this one.
+     * @param queryHash The hash the page token is bound to.
+     * @return Future of the JobPage object.
+     */
+    private ApiFuture<JobPage> fetchInterestedJobPage(List<String> jobIds, List<Long> addedTimestamps,
+                                                      int pageSize, int offset, int queryHash) {
+        boolean hasNextPage = jobIds.size() > pageSize;
+        List<String> pageJobIds = hasNextPage ? jobIds.subList(0, pageSize) : jobIds;
+
+        String nextPageToken = "";
+        if (hasNextPage) {
+            int last = pageJobIds.size() - 1;
+            nextPageToken = new PageToken(queryHash, offset + pageJobIds.size(), addedTimestamps.get(last),
+                    pageJobIds.get(last)).encode();
         }
 
-        return jobListBuilder.build();
+        String pageNextPageToken = nextPageToken;
+        return ApiFutures.transform(
+            fetchAllJobsFromIds(pageJobIds),
+            jobList -> {
+                // Jobs that are no longer ACTIVE are left out, so the page may hold fewer jobs than its size
+                if (jobList.isEmpty()) {
+                    return new JobPage(jobList, Range.between(0, 0), pageNextPageToken);
+                }
+
+                Range<Integer> range = Range.between(offset + 1, offset + jobList.size());
+
+                return new JobPage(jobList, range, pageNextPageToken);
+            },
+            MoreExecutors.directExecutor()
+        );
+    }
+
+    /**
+     * Fetches several job posts at once, whatever their status.
+     * The ids are looked up directly in chunks of at most {@link #FIRESTORE_GET_ALL_MAX_DOCUMENTS} documents,
+     * with no more than {@link #maxInFlightChunks} chunks in flight at a time.
+     *
+     * @param jobIds Ids for the job posts in the database.
+     * @return Future of the job posts in the same order as the ids, empty for the ids without a job post.
+     */
+    public ApiFuture<List<Optional<Job>>> fetchJobs(List<String> jobIds) {
+        return ApiFutures.transform(
+            fetchJobsById(jobIds, /* skipFailedChunks= */ false),
+            jobsById -> {
+                ImmutableList.Builder<Optional<Job>> jobList = ImmutableList.builder();
+                for (String jobId : jobIds) {
+                    jobList.add(Optional.ofNullable(jobsById.get(jobId)));
+                }
+
+                return jobList.build();
+            },
+            MoreExecutors.directExecutor()
+        );
     }
 
     /**
-     * This will return a future of a list of jobs given the list of jobIds.
-     * Any jobs that are not active or invalid will not be included in the list returned.
-     * This can only handle up to {@link #FIRESTORE_IN_QUERY_MAX_ARGS} jobIds at a time.
+     * This will return a future of a list of jobs given the list of jobIds, in the same order as the ids.
+     * Any jobs that are not active or invalid will not be included in the list returned, and neither will
+     * the jobs of a chunk that could not be fetched.
      *
      * @param jobIds The list of jobIds.
      * @return Future of the list of jobs.
      */
-    private Future<List<Job>> fetchJobsFromIds(List<String> jobIds) throws IOException {
+    public ApiFuture<List<Job>> fetchAllJobsFromIds(List<String> jobIds) {
+        return ApiFutures.transform(
+            fetchJobsById(jobIds, /* skipFailedChunks= */ true),
+            jobsById -> {
+                ImmutableList.Builder<Job> jobList = ImmutableList.builder();
+                for (String jobId : new LinkedHashSet<>(jobIds)) {
+                    Job job = jobsById.get(jobId);
+                    if (job != null && job.getJobStatus() == JobStatus.ACTIVE) {
+                        jobList.add(job);
+                    }
+                }
+
+                return jobList.build();
+            },
+            MoreExecutors.directExecutor()
+        );
+    }
+
+    /**
+     * Looks up the job posts with the given ids, one {@code getAll} call per chunk of ids.
+     *
+     * @param jobIds Ids for the job posts in the database.
+     * @param skipFailedChunks Whether a chunk that cannot be fetched is logged and left out
+     *                         instead of failing the whole future.
+     * @return Future of the found job posts by their id.
+     */
+    private ApiFuture<Map<String, Job>> fetchJobsById(List<String> jobIds, boolean skipFailedChunks) {
         if (jobIds.isEmpty()) {
-            return ImmutableList.of();
+            return ApiFutures.immediateFuture(ImmutableMap.of());
         }
 
-        CollectionReference jobsCollection = FireStoreUtils.getFireStore().collection(JOB_COLLECTION);
+        List<String> distinctJobIds = new ArrayList<>(new LinkedHashSet<>(jobIds));
+        List<List<String>> chunks = Lists.partition(distinctJobIds, FIRESTORE_GET_ALL_MAX_DOCUMENTS);
 
-        Query query = jobsCollection.whereEqualTo(JOB_STATUS_FIELD, JobStatus.ACTIVE.name())
-            .whereIn(JOB_ID_FIELD, jobIds);
+        // Each lane fetches every n-th chunk one after another, so at most n chunks are in flight
+        int laneCount = Math.min(maxInFlightChunks, chunks.size());
+        List<ApiFuture<Map<String, Job>>> laneFutures = new ArrayList<>(laneCount);
+        for (int lane = 0; lane < laneCount; lane++) {
+            laneFutures.add(fetchChunksInLane(chunks, /* chunkIndex= */ lane, /* stride= */ laneCount, skipFailedChunks));
+        }
 
         return ApiFutures.transform(
-            query.get(),
-            querySnapshot -> {
-                if (querySnapshot == null) {
-                    return ImmutableList.of();
+            ApiFutures.allAsList(laneFutures),
+            laneResults -> {
+                Map<String, Job> jobsById = new HashMap<>();
+                for (Map<String, Job> laneResult : laneResults) {
+                    jobsById.putAll(laneResult);
                 }
 
-                List<QueryDocumentSnapshot> documents = querySnapshot.getDocuments();
-                if (documents.size() == 0) {
-                    return ImmutableList.of();
-                }
+                return jobsById;
+            },
+            MoreExecutors.directExecutor()
+        );
+    }
 
-                ImmutableList.Builder<Job> jobList = ImmutableList.builder();
+    /**
+     * Fetches the chunk at {@code chunkIndex} and, once it is done, the chunks after it that are
+     * {@code stride} apart.
+     *
+     * @return Future of the jobs of all the fetched chunks by their id.
+     */
+    private ApiFuture<Map<String, Job>> fetchChunksInLane(List<List<String>> chunks, int chunkIndex, int stride,
+                                                   boolean skipFailedChunks) {
+        if (chunkIndex >= chunks.size()) {
+            return ApiFutures.immediateFuture(ImmutableMap.of());
+        }
 
-                for (QueryDocumentSnapshot document : documents) {
-                    Job job = document.toObject(Job.class);
-                    jobList.add(job);
+        List<String> chunk = chunks.get(chunkIndex);
+        ApiFuture<Map<String, Job>> chunkFuture = fetchJobsFromIdsOrFail(chunk);
+        if (skipFailedChunks) {
+            chunkFuture = ApiFutures.catching(
+                chunkFuture,
+                Exception.class,
+                e -> {
+                    log.log(Level.SEVERE, "error while getting jobs " + chunk, e);
+                    return ImmutableMap.of();
+                },
+                MoreExecutors.directExecutor()
+            );
+        }
+
+        return ApiFutures.transformAsync(
+            chunkFuture,
+            jobs -> ApiFutures.transform(
+                fetchChunksInLane(chunks, chunkIndex + stride, stride, skipFailedChunks),
+                remainingJobs -> ImmutableMap.<String, Job>builder().putAll(jobs).putAll(remainingJobs).build(),
+                MoreExecutors.directExecutor()
+            ),
+            MoreExecutors.directExecutor()
+        );
+    }
+
+    /** Same as {@link #fetchJobsFromIds(List)} but reports any exception through the future. */
+    private ApiFuture<Map<String, Job>> fetchJobsFromIdsOrFail(List<String> jobIds) {
+        try {
+            return fetchJobsFromIds(jobIds);
+        } catch (IOException | IllegalArgumentException e) {
+            return ApiFutures.immediateFailedFuture(e);
+        }
+    }
+
+    /**
+     * This will return a future of the jobs that exist for the given jobIds, whatever their status.
+     * The documents are read directly by reference in a single call, so this can handle up to
+     * {@link #FIRESTORE_GET_ALL_MAX_DOCUMENTS} jobIds at a time.
+     *
+     * @param jobIds The list of distinct jobIds.
+     * @return Future of the jobs by their id.
+     * @throws IllegalArgumentException If one of the job ids is not a valid document id.
+     */
+    private ApiFuture<Map<String, Job>> fetchJobsFromIds(List<String> jobIds) throws IOException, IllegalArgumentException {
+        if (jobIds.isEmpty()) {
+            return ApiFutures.immediateFuture(ImmutableMap.of());
+        }
+
+        Firestore firestore = FireStoreUtils.getFireStore();
+        CollectionReference jobsCollection = firestore.collection(JOB_COLLECTION);
+
+        DocumentReference[] documentReferences = new DocumentReference[jobIds.size()];
+        for (int i = 0; i < jobIds.size(); i++) {
+            documentReferences[i] = jobsCollection.document(jobIds.get(i));
+        }
+
+        return ApiFutures.transform(
+            firestore.getAll(documentReferences),
+            documents -> {
+                ImmutableMap.Builder<String, Job> jobsById = ImmutableMap.builder();
+
+                for (DocumentSnapshot document : documents) {
+                    JobDocumentMapper.toValidJob(document)
+                            .ifPresent(job -> jobsById.put(document.getId(), job));
                 }
 
-                return jobList.build();  
+                return jobsById.build();
             },
             MoreExecutors.directExecutor()
         );
     }
     
-    /*
+    /**
      * Updates the applicant's interested list to add or remove the job.
+     * The changes an applicant makes within {@link #INTERESTED_JOBS_WRITE_WINDOW_MILLIS} are written together,
+     * so that rapidly toggling jobs does not send a write for every toggle.
      *
      * @param applicantId The applicant's userId.
      * @param jobId The job id.
      * @param interested Whether the applicant is currently interested in it or not.
-     * @return A future of document reference for the applicant's update job list.
+     * @return A future of document reference for the applicant's update job list, once the change is durable.
+     */
+    public ApiFuture<DocumentReference> updateInterestedJobsList(String applicantId, String jobId, boolean interested)
+            throws IOException, IllegalArgumentException {
+        DocumentReference documentReference = FireStoreUtils.getFireStore()
+                .collection(APPLICANT_ACCOUNTS_COLLECTION).document(applicantId);
+
+        // Removes the jobId if the applicant is currently interested in it, or else adds it
+        ApiFuture<Void> update = interestedJobsWriter.update(applicantId, jobId, /* interested= */ !interested);
+
+        return ApiFutures.transform(update, ignored -> documentReference, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Writes the merged changes to the applicant's interested list, as a single batch that sets the added jobs
+     * and deletes the removed ones without reading them first, and increments the count of interested jobs by
+     * the difference. The {@link InterestedJobsWriter} only passes on jobs whose state changed, so the count
+     * stays exact without the list being read. The applicant is read once per instance, to move a legacy
+     * interested jobs array to the subcollection before the first change is written.
      */
-    public static Future<DocumentReference> updateInterestedJobsList(String applicantId, String jobId, boolean interested) throws IOException, IllegalArgumentException, Exception {
-        return FireStoreUtils.getFireStore().runTransaction(transaction -> {
-            final DocumentReference documentReference = FireStoreUtils.getFireStore()
+    private ApiFuture<Void> writeInterestedJobs(String applicantId, Set<String> addedJobIds,
+                                                Set<String> removedJobIds) {
+        // Every change was undone within its window
+        if (addedJobIds.isEmpty() && removedJobIds.isEmpty()) {
+            return ApiFutures.immediateFuture(null);
+        }
+
+        DocumentReference applicantReference;
+        try {
+            applicantReference = FireStoreUtils.getFireStore()
                     .collection(APPLICANT_ACCOUNTS_COLLECTION).document(applicantId);
+        } catch (IOException e) {
+            return ApiFutures.immediateFailedFuture(e);
+        }
 
-            if (interested) {
-                // Remove the jobId
-                // Does nothing if it already isn't there
-                documentReference.update(INTERESTED_JOBS_FIELD, FieldValue.arrayRemove(jobId));
-            } else {
-                // Add the jobId
-                // Does nothing if it already exists
-                documentReference.update(INTERESTED_JOBS_FIELD, FieldValue.arrayUnion(jobId));
-            }
+        // No list goes back to the legacy array once it has been moved, so this is never read again
+        ApiFuture<Void> migration;
+        if (migratedApplicantIds.getIfPresent(applicantId) != null) {
+            migration = ApiFutures.immediateFuture(null);
+        } else {
+            migration = migrateLegacyInterestedJobs(applicantReference, MAX_INTERESTED_JOBS_WRITE_ATTEMPTS);
+            runOnSuccess(migration, () -> migratedApplicantIds.put(applicantId, Boolean.TRUE));
+        }
 
-            return documentReference;
-        });
+        return ApiFutures.transformAsync(
+            migration,
+            ignored -> {
+                CollectionReference interestedJobsCollection =
+                        applicantReference.collection(INTERESTED_JOBS_COLLECTION);
+                WriteBatch batch = applicantReference.getFirestore().batch();
+                long addedTimestamp = System.currentTimeMillis();
+
+                for (String jobId : addedJobIds) {
+                    batch.set(interestedJobsCollection.document(jobId), ImmutableMap.of(
+                            JOB_ID_FIELD, jobId, ADDED_TIMESTAMP_FIELD, addedTimestamp));
+                }
+
+                for (String jobId : removedJobIds) {
+                    batch.delete(interestedJobsCollection.document(jobId));
+                }
+
+                // Also fails if the applicant doesn't have a corresponding document
+                batch.update(applicantReference, INTERESTED_JOBS_COUNT_FIELD,
+                        FieldValue.increment(addedJobIds.size() - removedJobIds.size()));
+
+                return ApiFutures.transform(batch.commit(), writeResults -> null, MoreExecutors.directExecutor());
+            },
+            MoreExecutors.directExecutor()
+        );
+    }
+
+    /**
+     * Moves the applicant's legacy interested jobs array to the subcollection, if it is still there.
+     * The jobs are written first, in batches, and are given the same added timestamps as the legacy page
+     * tokens use. The array is then replaced with the count, only if the applicant did not change in between.
+     * Writing the jobs again is harmless, so a migration that failed midway is simply run again.
+     */
+    private static ApiFuture<Void> migrateLegacyInterestedJobs(DocumentReference applicantReference, int attemptsLeft) {
+        ApiFuture<Void> migration = ApiFutures.transformAsync(
+            applicantReference.get(),
+            applicantSnapshot -> {
+                if (!applicantSnapshot.exists()) {
+                    throw new IllegalArgumentException("Invalid applicantId");
+                }
+
+                List<String> legacyInterestedList = (List<String>) applicantSnapshot.get(INTERESTED_JOBS_FIELD);
+                if (legacyInterestedList == null) {
+                    return ApiFutures.immediateFuture(null);
+                }
+
+                List<String> interestedList = ImmutableList.copyOf(new LinkedHashSet<>(legacyInterestedList));
+                ApiFuture<Void> jobsWritten = writeLegacyInterestedJobs(applicantReference,
+                        Lists.partition(interestedList, FIRESTORE_MAX_BATCH_WRITES), /* batchIndex= */ 0);
+
+                return ApiFutures.transformAsync(
+                    jobsWritten,
+                    ignored -> ApiFutures.transform(
+                        applicantReference.update(
+                                Precondition.updatedAt(applicantSnapshot.getUpdateTime()),
+                                INTERESTED_JOBS_COUNT_FIELD, interestedList.size(),
+                                INTERESTED_JOBS_FIELD, FieldValue.delete()),
+                        writeResult -> null,
+                        MoreExecutors.directExecutor()
+                    ),
+                    MoreExecutors.directExecutor()
+                );
+            },
+            MoreExecutors.directExecutor()
+        );
+
+        return ApiFutures.catchingAsync(
+            migration,
+            Throwable.class,
+            t -> attemptsLeft > 1 && hasStatusCode(t, StatusCode.Code.FAILED_PRECONDITION)
+                    ? migrateLegacyInterestedJobs(applicantReference, attemptsLeft - 1)
+                    : ApiFutures.immediateFailedFuture(t),
+            MoreExecutors.directExecutor()
+        );
+    }
+
+    /** Writes the batches of legacy interested jobs one after the other, starting from the batch index. */
+    private static ApiFuture<Void> writeLegacyInterestedJobs(DocumentReference applicantReference,
+                                                             List<List<String>> batches, int batchIndex) {
+        if (batchIndex == batches.size()) {
+            return ApiFutures.immediateFuture(null);
+        }
+
+        CollectionReference interestedJobsCollection = applicantReference.collection(INTERESTED_JOBS_COLLECTION);
+        WriteBatch batch = applicantReference.getFirestore().batch();
+        List<String> jobIds = batches.get(batchIndex);
+        for (int i = 0; i < jobIds.size(); i++) {
+            int legacyIndex = batchIndex * FIRESTORE_MAX_BATCH_WRITES + i;
+            batch.set(interestedJobsCollection.document(jobIds.get(i)), ImmutableMap.of(
+                    JOB_ID_FIELD, jobIds.get(i), ADDED_TIMESTAMP_FIELD, getLegacyAddedTimestamp(legacyIndex)));
+        }
+
+        return ApiFutures.transformAsync(
+            batch.commit(),
+            writeResults -> writeLegacyInterestedJobs(applicantReference, batches, batchIndex + 1),
+            MoreExecutors.directExecutor()
+        );
+    }
+
+    /**
+     * Returns the added timestamp given to the job at the index of a legacy interested jobs array. The array
+     * is in the order the jobs were added, and all of them were added before any job with a real timestamp.
+     */
+    private static long getLegacyAddedTimestamp(int legacyIndex) {
+        return legacyIndex;
     }
 }
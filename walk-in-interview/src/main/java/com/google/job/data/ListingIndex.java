@@ -0,0 +1,282 @@
+package com.google.job.data;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of the ACTIVE job posts sorted by annual max pay, with one partition per region and one
+ * for {@link SingaporeRegion#ENTIRE}, that answers a page of the salary listings in O(log n + page size).
+ *
+ * Each partition is a set of parallel sorted arrays that never change once published: a change copies the
+ * arrays of the two partitions it touches with the job post inserted or removed, and publishes them with
+ * a single volatile write. Readers therefore never block on writers, and always see a whole version.
+ */
+final class ListingIndex implements ActiveJobsListener {
+    // Guarded by this
+    private final Map<String, Job> jobsById = new HashMap<>();
+
+    private volatile Map<SingaporeRegion, Partition> partitions = createPartitions(new HashMap<>());
+
+    /** A job post of a listing page, with the annual max pay it is sorted by. */
+    static final class ListedJob {
+        private final String jobId;
+        private final Job job;
+        private final long salary;
+
+        ListedJob(String jobId, Job job, long salary) {
+            this.jobId = jobId;
+            this.job = job;
+            this.salary = salary;
+        }
+
+        /** Returns the cloud firestore id of the job post. */
+        String getJobId() {
+            return jobId;
+        }
+
+        /** Returns the job post. */
+        Job getJob() {
+            return job;
+        }
+
+        /** Returns the annual max pay of the job post. */
+        long getSalary() {
+            return salary;
+        }
+    }
+
+    /** The job posts of one region, sorted by salary and then by id, both ascending. */
+    private static final class Partition {
+        private static final Partition EMPTY = new Partition(new long[0], new String[0], new Job[0]);
+
+        private final long[] salaries;
+        private final String[] jobIds;
+        private final Job[] jobs;
+
+        private Partition(long[] salaries, String[] jobIds, Job[] jobs) {
+            this.salaries = salaries;
+            this.jobIds = jobIds;
+            this.jobs = jobs;
+        }
+
+        private int size() {
+            return salaries.length;
+        }
+
+        /** Returns the number of job posts that come before the salary and id, or are equal to them if inclusive. */
+        private int rank(long salary, String jobId, boolean inclusive) {
+            int low = 0;
+            int high = salaries.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int comparison = Long.compare(salaries[middle], salary);
+                if (comparison == 0) {
+                    comparison = jobIds[middle].compareTo(jobId);
+                }
+
+                if (comparison < 0 || (inclusive && comparison == 0)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            return low;
+        }
+
+        /** Returns the number of job posts paid less than the salary, or at most the salary if inclusive. */
+        private int rank(long salary, boolean inclusive) {
+            int low = 0;
+            int high = salaries.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (salaries[middle] < salary || (inclusive && salaries[middle] == salary)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            return low;
+        }
+
+        private Partition with(String jobId, Job job) {
+            long salary = job.getJobPay().getAnnualMax();
+            int index = rank(salary, jobId, /* inclusive= */ false);
+            int size = size();
+
+            long[] newSalaries = new long[size + 1];
+            String[] newJobIds = new String[size + 1];
+            Job[] newJobs = new Job[size + 1];
+            System.arraycopy(salaries, 0, newSalaries, 0, index);
+            System.arraycopy(jobIds, 0, newJobIds, 0, index);
+            System.arraycopy(jobs, 0, newJobs, 0, index);
+            newSalaries[index] = salary;
+            newJobIds[index] = jobId;
+            newJobs[index] = job;
+            System.arraycopy(salaries, index, newSalaries, index + 1, size - index);
+            System.arraycopy(jobIds, index, newJobIds, index + 1, size - index);
+            System.arraycopy(jobs, index, newJobs, index + 1, size - index);
+
+            return new Partition(newSalaries, newJobIds, newJobs);
+        }
+
+        private Partition without(String jobId, Job job) {
+            int index = rank(job.getJobPay().getAnnualMax(), jobId, /* inclusive= */ false);
+            if (index == size() || !jobIds[index].equals(jobId)) {
+                return this;
+            }
+
+            int size = size();
+            long[] newSalaries = new long[size - 1];
+            String[] newJobIds = new String[size - 1];
+            Job[] newJobs = new Job[size - 1];
+            System.arraycopy(salaries, 0, newSalaries, 0, index);
+            System.arraycopy(jobIds, 0, newJobIds, 0, index);
+            System.arraycopy(jobs, 0, newJobs, 0, index);
+            System.arraycopy(salaries, index + 1, newSalaries, index, size - index - 1);
+            System.arraycopy(jobIds, index + 1, newJobIds, index, size - index - 1);
+            System.arraycopy(jobs, index + 1, newJobs, index, size - index - 1);
+
+            return new Partition(newSalaries, newJobIds, newJobs);
+        }
+    }
+
+    /**
+     * Returns a page of the job posts of the region within the salary limits, in the order of the database
+     * query of the salary listings: by salary and then by id, both ascending or both descending.
+     *
+     * @param region The region, or {@link SingaporeRegion#ENTIRE} for all of them.
+     * @param minSalary The lowest annual max pay, inclusive.
+     * @param maxSalary The highest annual max pay, inclusive.
+     * @param order Whether the lowest or the highest paid job posts come first.
+     * @param after Only the job posts after this one in the order are returned, or null to skip the offset instead.
+     * @param offset Number of job posts skipped when there is no cursor.
+     * @param limit The maximum number of job posts returned.
+     * @return The job posts of the page.
+     */
+    List<ListedJob> getPage(SingaporeRegion region, long minSalary, long maxSalary, Order order,
+                            @Nullable ListedJob after, int offset, int limit) {
+        Partition partition = partitions.get(region);
+
+        // The job posts within the limits are the ones in [low, high)
+        int low = partition.rank(minSalary, /* inclusive= */ false);
+        int high = Math.max(low, partition.rank(maxSalary, /* inclusive= */ true));
+
+        ImmutableList.Builder<ListedJob> page = ImmutableList.builder();
+        if (order == Order.ASCENDING) {
+            int start = after == null
+                    ? low + offset
+                    : Math.max(low, partition.rank(after.getSalary(), after.getJobId(), /* inclusive= */ true));
+            for (int i = start; i < high && i < start + limit; i++) {
+                page.add(new ListedJob(partition.jobIds[i], partition.jobs[i], partition.salaries[i]));
+            }
+        } else {
+            int start = after == null
+                    ? high - 1 - offset
+                    : Math.min(high, partition.rank(after.getSalary(), after.getJobId(), /* inclusive= */ false)) - 1;
+            for (int i = start; i >= low && i > start - limit; i--) {
+                page.add(new ListedJob(partition.jobIds[i], partition.jobs[i], partition.salaries[i]));
+            }
+        }
+
+        return page.build();
+    }
+
+    @Override
+    public synchronized void onReload(Map<String, Job> activeJobsById) {
+        jobsById.clear();
+        jobsById.putAll(activeJobsById);
+        partitions = createPartitions(jobsById);
+    }
+
+    @Override
+    public synchronized void onUpsert(String jobId, Job job) {
+        Job previousJob = jobsById.put(jobId, job);
+
+        Map<SingaporeRegion, Partition> newPartitions = new EnumMap<>(partitions);
+        if (previousJob != null) {
+            remove(newPartitions, jobId, previousJob);
+        }
+
+        add(newPartitions, jobId, job);
+        partitions = newPartitions;
+    }
+
+    @Override
+    public synchronized void onRemove(String jobId) {
+        Job previousJob = jobsById.remove(jobId);
+        if (previousJob == null) {
+            return;
+        }
+
+        Map<SingaporeRegion, Partition> newPartitions = new EnumMap<>(partitions);
+        remove(newPartitions, jobId, previousJob);
+        partitions = newPartitions;
+    }
+
+    private static void add(Map<SingaporeRegion, Partition> partitions, String jobId, Job job) {
+        SingaporeRegion region = job.getJobLocation().getRegion();
+        partitions.put(region, partitions.get(region).with(jobId, job));
+        if (region != SingaporeRegion.ENTIRE) {
+            partitions.put(SingaporeRegion.ENTIRE, partitions.get(SingaporeRegion.ENTIRE).with(jobId, job));
+        }
+    }
+
+    private static void remove(Map<SingaporeRegion, Partition> partitions, String jobId, Job job) {
+        SingaporeRegion region = job.getJobLocation().getRegion();
+        partitions.put(region, partitions.get(region).without(jobId, job));
+        if (region != SingaporeRegion.ENTIRE) {
+            partitions.put(SingaporeRegion.ENTIRE, partitions.get(SingaporeRegion.ENTIRE).without(jobId, job));
+        }
+    }
+
+    /** Sorts all the job posts into their partitions at once, which is cheaper than inserting them one by one. */
+    private static Map<SingaporeRegion, Partition> createPartitions(Map<String, Job> jobsById) {
+        Comparator<Map.Entry<String, Job>> bySalary = Comparator
+                .comparingLong((Map.Entry<String, Job> entry) -> entry.getValue().getJobPay().getAnnualMax())
+                .thenComparing(Map.Entry::getKey);
+
+        List<Map.Entry<String, Job>> entries = new ArrayList<>(jobsById.entrySet());
+        entries.sort(bySalary);
+
+        Map<SingaporeRegion, Partition> partitions = new EnumMap<>(SingaporeRegion.class);
+        for (SingaporeRegion region : SingaporeRegion.values()) {
+            int size = 0;
+            for (Map.Entry<String, Job> entry : entries) {
+                if (region == SingaporeRegion.ENTIRE || entry.getValue().getJobLocation().getRegion() == region) {
+                    size++;
+                }
+            }
+
+            if (size == 0) {
+                partitions.put(region, Partition.EMPTY);
+                continue;
+            }
+
+            long[] salaries = new long[size];
+            String[] jobIds = new String[size];
+            Job[] jobs = new Job[size];
+            int i = 0;
+            for (Map.Entry<String, Job> entry : entries) {
+                if (region == SingaporeRegion.ENTIRE || entry.getValue().getJobLocation().getRegion() == region) {
+                    salaries[i] = entry.getValue().getJobPay().getAnnualMax();
+                    jobIds[i] = entry.getKey();
+                    jobs[i] = entry.getValue();
+                    i++;
+                }
+            }
+
+            partitions.put(region, new Partition(salaries, jobIds, jobs));
+        }
+
+        return partitions;
+    }
+}
@@ -1,6 +1,9 @@
 package com.google.job.data;
 
+import com.google.gson.annotations.JsonAdapter;
+
 /** Class that represents the location of a job or an applicant. */
+@JsonAdapter(LocationTypeAdapter.class)
 public final class Location {
     // TODO(issue/23): Add a postalCode attribute to Location; address is only optional for applicant
     private final String address;
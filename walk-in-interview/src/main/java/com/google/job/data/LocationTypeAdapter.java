@@ -0,0 +1,84 @@
+package com.google.job.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Json adapter for {@link Location}. Writes only the location fields and reads them back through the
+ * constructor, so that the input is validated. Fields missing from the input keep their default values.
+ */
+final class LocationTypeAdapter extends TypeAdapter<Location> {
+    private static final String ADDRESS_FIELD = "address";
+    private static final String POSTAL_CODE_FIELD = "postalCode";
+    private static final String REGION_FIELD = "region";
+    private static final String LATITUDE_FIELD = "latitude";
+    private static final String LONGITUDE_FIELD = "longitude";
+
+    @Override
+    public void write(JsonWriter out, Location location) throws IOException {
+        if (location == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name(ADDRESS_FIELD).value(location.getAddress());
+        out.name(POSTAL_CODE_FIELD).value(location.getPostalCode());
+        out.name(REGION_FIELD).value(location.getRegion().getRegionId());
+        out.name(LATITUDE_FIELD).value(location.getLatitude());
+        out.name(LONGITUDE_FIELD).value(location.getLongitude());
+        out.endObject();
+    }
+
+    /** @throws IllegalArgumentException If the location is invalid. */
+    @Override
+    public Location read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        Location defaults = new Location();
+        String address = defaults.getAddress();
+        String postalCode = defaults.getPostalCode();
+        SingaporeRegion region = defaults.getRegion();
+        double latitude = defaults.getLatitude();
+        double longitude = defaults.getLongitude();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case ADDRESS_FIELD:
+                    address = in.nextString();
+                    break;
+                case POSTAL_CODE_FIELD:
+                    postalCode = in.nextString();
+                    break;
+                case REGION_FIELD:
+                    region = SingaporeRegion.getFromId(in.nextString());
+                    break;
+                case LATITUDE_FIELD:
+                    latitude = in.nextDouble();
+                    break;
+                case LONGITUDE_FIELD:
+                    longitude = in.nextDouble();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return new Location(address, postalCode, region, latitude, longitude);
+    }
+}
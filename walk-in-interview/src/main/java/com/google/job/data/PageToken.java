@@ -0,0 +1,93 @@
+package com.google.job.data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor that lets a paginated query continue after the last document of the previous page.
+ * It is handed to the client as an url-safe string and should be passed back unchanged.
+ *
+ * The token records a hash of the query it was issued for, so that it is not applied to another query,
+ * whose order or filters the last value and the offset would not mean the same for.
+ */
+final class PageToken {
+    private static final String SEPARATOR = ":";
+
+    private final int queryHash;
+    private final int offset;
+    private final long lastValue;
+    private final String lastDocumentId;
+
+    PageToken(int queryHash, int offset, long lastValue, String lastDocumentId) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset should not be negative");
+        }
+
+        if (lastDocumentId.isEmpty()) {
+            throw new IllegalArgumentException("lastDocumentId should be an non-empty string");
+        }
+
+        this.queryHash = queryHash;
+        this.offset = offset;
+        this.lastValue = lastValue;
+        this.lastDocumentId = lastDocumentId;
+    }
+
+    /** Returns the hash of the query the token was issued for. */
+    int getQueryHash() {
+        return queryHash;
+    }
+
+    /** Returns the number of items shown on the pages before the one this token points to. */
+    int getOffset() {
+        return offset;
+    }
+
+    /** Returns the value of the ordering field of the last document on the previous page. */
+    long getLastValue() {
+        return lastValue;
+    }
+
+    /** Returns the id of the last document on the previous page. */
+    String getLastDocumentId() {
+        return lastDocumentId;
+    }
+
+    /** Returns the token in the url-safe form that is sent to the client. */
+    String encode() {
+        String raw = queryHash + SEPARATOR + offset + SEPARATOR + lastValue + SEPARATOR + lastDocumentId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a token previously produced by {@link #encode()} for the query.
+     *
+     * @param token The encoded token.
+     * @param queryHash The hash of the query the token is used with.
+     * @return The token.
+     * @throws IllegalArgumentException If the token is malformed or was issued for another query.
+     */
+    static PageToken decode(String token, int queryHash) throws IllegalArgumentException {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+
+        // Document id is last so that it may contain the separator itself
+        String[] parts = raw.split(SEPARATOR, /* limit= */ 4);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid page token: " + token);
+        }
+
+        PageToken pageToken;
+        try {
+            pageToken = new PageToken(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                    Long.parseLong(parts[2]), parts[3]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page token: " + token, e);
+        }
+
+        if (pageToken.getQueryHash() != queryHash) {
+            throw new IllegalArgumentException("page token does not match the query: " + token);
+        }
+
+        return pageToken;
+    }
+}
@@ -0,0 +1,35 @@
+package com.google.job.data;
+
+/** Enumeration for where {@link JobsDatabase} serves its reads of the ACTIVE job posts from. */
+public enum ReadMode {
+    // Every read goes to cloud firestore, or to the caches in front of it
+    DATABASE("DATABASE"),
+    // Reads are served from the live in-memory replica while it is fresh enough, see ActiveJobsReplica
+    REPLICA("REPLICA");
+
+    private final String readModeId;
+
+    ReadMode(String readModeId) {
+        this.readModeId = readModeId;
+    }
+
+    /** Returns the stable id representing the read mode. Can be stored in configuration. */
+    public String getReadModeId() {
+        return readModeId;
+    }
+
+    /**
+     * Returns the read mode enum matching the provided id.
+     *
+     * @throws IllegalArgumentException If a read mode stable id cannot be found for provided id.
+     */
+    public static ReadMode getFromId(String id) throws IllegalArgumentException {
+        for (ReadMode readMode: values()){
+            if (readMode.getReadModeId().equals(id)){
+                return readMode;
+            }
+        }
+
+        throw new IllegalArgumentException("Invalid read mode id: " + id);
+    }
+}
@@ -4,21 +4,31 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 /** Enumeration that represents the requirements of jobs. */
 public enum Requirement {
     // TODO(issue/26): add more requirements
-    O_LEVEL("O_LEVEL", ImmutableMap.of("en", "O Level")),
-    ENGLISH("LANGUAGE_ENGLISH", ImmutableMap.of("en", "English")),
-    DRIVING_LICENSE_C("DRIVING_LICENSE_C", ImmutableMap.of("en", "Category C Driving License"));
+    // Bit positions only make up the requirements masks computed in memory; they are never stored in the database.
+    O_LEVEL("O_LEVEL", /* bitPosition= */ 0, ImmutableMap.of("en", "O Level")),
+    ENGLISH("LANGUAGE_ENGLISH", /* bitPosition= */ 1, ImmutableMap.of("en", "English")),
+    DRIVING_LICENSE_C("DRIVING_LICENSE_C", /* bitPosition= */ 2, ImmutableMap.of("en", "Category C Driving License"));
+
+    private static final int MAX_BIT_POSITION = Long.SIZE - 1;
 
     private final String requirementId;
+    private final int bitPosition;
     private final Map<String, String> localizedNameByLanguage;
 
-    Requirement(String requirementId, Map<String, String> localizedNameByLanguage){
+    Requirement(String requirementId, int bitPosition, Map<String, String> localizedNameByLanguage){
+        if (bitPosition < 0 || bitPosition > MAX_BIT_POSITION) {
+            throw new IllegalArgumentException("bitPosition should be between 0 and " + MAX_BIT_POSITION);
+        }
+
         this.requirementId = requirementId;
+        this.bitPosition = bitPosition;
         this.localizedNameByLanguage = localizedNameByLanguage;
     }
 
@@ -27,6 +37,45 @@ public enum Requirement {
         return requirementId;
     }
 
+    /** Returns the mask with only the bit of this requirement set. */
+    public long getBitMask() {
+        return 1L << bitPosition;
+    }
+
+    /**
+     * Returns the mask with the bits of the given requirements set. Unknown ids are ignored.
+     *
+     * @param requirementIds Requirement stable ids.
+     * @return Bit mask of the requirements.
+     */
+    public static long getRequirementsMask(Collection<String> requirementIds) {
+        long mask = 0;
+        for (Requirement requirement: values()) {
+            if (requirementIds.contains(requirement.getRequirementId())) {
+                mask |= requirement.getBitMask();
+            }
+        }
+
+        return mask;
+    }
+
+    /**
+     * Returns the mask with the bits of the requirements that are true in the map. Unknown ids are ignored.
+     *
+     * @param requirements Map of requirement stable id to whether it is required.
+     * @return Bit mask of the required requirements.
+     */
+    public static long getRequirementsMask(Map<String, Boolean> requirements) {
+        long mask = 0;
+        for (Requirement requirement: values()) {
+            if (Boolean.TRUE.equals(requirements.get(requirement.getRequirementId()))) {
+                mask |= requirement.getBitMask();
+            }
+        }
+
+        return mask;
+    }
+
     /** Gets the requirement stable ids given enum value. */
     public static List<String> getRequirementIds(List<Requirement> requirements) {
         ImmutableList.Builder<String> requirementIds = ImmutableList.builder();
@@ -0,0 +1,54 @@
+package com.google.job.data;
+
+import com.google.cloud.Timestamp;
+
+/** Class that represents a job post as read from the database, with the version it was read at. */
+public final class VersionedJob {
+    private final Job job;
+    private final Timestamp updateTime;
+
+    /**
+     * @param job The job post.
+     * @param updateTime Time the document of the job post was last updated, which identifies the version.
+     */
+    public VersionedJob(Job job, Timestamp updateTime) {
+        this.job = job;
+        this.updateTime = updateTime;
+    }
+
+    /** Returns the job post. */
+    public Job getJob() {
+        return job;
+    }
+
+    /** Returns the time the document of the job post was last updated. */
+    public Timestamp getUpdateTime() {
+        return updateTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        VersionedJob that = (VersionedJob) o;
+        return job.equals(that.job) && updateTime.equals(that.updateTime);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+
+        int c = job.hashCode();
+        result = 31 * result + c;
+
+        c = updateTime.hashCode();
+        result = 31 * result + c;
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("VersionedJob{job=%s, updateTime=%s}", job, updateTime);
+    }
+}
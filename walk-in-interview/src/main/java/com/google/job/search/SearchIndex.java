@@ -0,0 +1,343 @@
+package com.google.job.search;
+
+import com.google.common.collect.ImmutableList;
+import com.google.job.data.ActiveJobsListener;
+import com.google.job.data.Job;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * In-memory inverted index of the titles and descriptions of the ACTIVE job posts, that ranks them against
+ * a search query with BM25. Unlike the other indexes of the job posts, it is updated in place on every
+ * change rather than rebuilt, since rebuilding the postings of every job post is too slow to do per write.
+ * A removed job post only leaves a tombstone behind, and the postings are compacted once the tombstones
+ * outnumber the job posts. A reload is indexed aside and then swapped in, so that searches go on meanwhile.
+ */
+public final class SearchIndex implements ActiveJobsListener {
+    /** Orders the best matches first. Ties are broken by job id, so that the order of a page token is unambiguous. */
+    public static final Comparator<ScoredJob> BEST_FIRST = Comparator
+            .comparingDouble((ScoredJob scoredJob) -> -scoredJob.getScore())
+            .thenComparing(ScoredJob::getJobId);
+
+    // Usual BM25 parameters: how quickly the score saturates with the term frequency, and how much the
+    // length of the job post matters
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    /** Terms of the title are counted this many times, so that a match in the title ranks higher. */
+    private static final int TITLE_WEIGHT = 2;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 1024;
+
+    // Rough sizes on a 64-bit JVM with compressed references, used to estimate the memory use
+    private static final int OBJECT_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    private static final int HASH_MAP_ENTRY_BYTES = 32;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock; the documents are numbered in the order they were added, and the postings refer to
+    // them by number
+    private Map<String, Integer> documentsByJobId = new HashMap<>();
+    private String[] jobIds = new String[INITIAL_CAPACITY];
+    // null for the removed documents
+    private Job[] jobs = new Job[INITIAL_CAPACITY];
+    private int[] documentLengths = new int[INITIAL_CAPACITY];
+    private int documentCount = 0;
+    private long liveTermCount = 0;
+    private Map<String, Postings> postingsByTerm = new HashMap<>();
+
+    /** A job post that matches a search query, with its score. */
+    public static final class ScoredJob {
+        private final String jobId;
+        private final Job job;
+        private final float score;
+
+        public ScoredJob(String jobId, Job job, float score) {
+            this.jobId = jobId;
+            this.job = job;
+            this.score = score;
+        }
+
+        /** Returns the cloud firestore id of the job post. */
+        public String getJobId() {
+            return jobId;
+        }
+
+        /** Returns the job post. */
+        public Job getJob() {
+            return job;
+        }
+
+        /** Returns how well the job post matches the query; higher is better. */
+        public float getScore() {
+            return score;
+        }
+    }
+
+    /** The documents a term appears in, in the order they were added, with how often it appears in each. */
+    private static final class Postings {
+        private int[] documents = new int[1];
+        private int[] frequencies = new int[1];
+        private int size = 0;
+        // Number of the documents that have not been removed
+        private int liveCount = 0;
+
+        private void add(int document, int frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+            liveCount++;
+        }
+    }
+
+    /**
+     * Returns the job posts that best match the query, best first.
+     *
+     * @param query The search query. A job post matches when it has any of its terms.
+     * @param filter Job posts that do not match it are left out.
+     * @param after Only the job posts after this one in the best first order are returned, or null for all.
+     * @param limit The maximum number of job posts returned.
+     * @return The best matching job posts.
+     */
+    public List<ScoredJob> search(String query, Predicate<Job> filter, @Nullable ScoredJob after, int limit) {
+        Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+
+        lock.readLock().lock();
+        try {
+            int liveCount = documentsByJobId.size();
+            if (terms.isEmpty() || liveCount == 0 || limit <= 0) {
+                return ImmutableList.of();
+            }
+
+            float averageLength = (float) liveTermCount / liveCount;
+            float[] scores = new float[documentCount];
+            for (String term : terms) {
+                Postings postings = postingsByTerm.get(term);
+                if (postings == null) {
+                    continue;
+                }
+
+                float idf = (float) Math.log(1 + (liveCount - postings.liveCount + 0.5) / (postings.liveCount + 0.5));
+                for (int i = 0; i < postings.size; i++) {
+                    int document = postings.documents[i];
+                    if (jobs[document] == null) {
+                        continue;
+                    }
+
+                    int frequency = postings.frequencies[i];
+                    float lengthNorm = K1 * (1 - B + B * documentLengths[document] / averageLength);
+                    scores[document] += idf * frequency * (K1 + 1) / (frequency + lengthNorm);
+                }
+            }
+
+            // Keeps the best ones seen so far, worst first so that it is the one dropped
+            PriorityQueue<ScoredJob> best = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+            for (int document = 0; document < documentCount; document++) {
+                float score = scores[document];
+                if (score == 0 || (best.size() == limit && score < best.peek().getScore())) {
+                    continue;
+                }
+
+                ScoredJob scoredJob = new ScoredJob(jobIds[document], jobs[document], score);
+                if ((after != null && BEST_FIRST.compare(scoredJob, after) <= 0) || !filter.test(scoredJob.getJob())) {
+                    continue;
+                }
+
+                best.add(scoredJob);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+
+            List<ScoredJob> found = new ArrayList<>(best);
+            found.sort(BEST_FIRST);
+            return ImmutableList.copyOf(found);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Returns the number of distinct terms in the index. */
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return postingsByTerm.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns an estimate of the memory used by the index, in bytes. The job posts themselves are shared
+     * with the rest of the instance, so only the references to them are counted.
+     */
+    public long getMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = arrayBytes(jobIds.length, REFERENCE_BYTES)
+                    + arrayBytes(jobs.length, REFERENCE_BYTES)
+                    + arrayBytes(documentLengths.length, Integer.BYTES)
+                    + (long) documentsByJobId.size() * (HASH_MAP_ENTRY_BYTES + OBJECT_HEADER_BYTES + Integer.BYTES);
+
+            for (Map.Entry<String, Postings> entry : postingsByTerm.entrySet()) {
+                Postings postings = entry.getValue();
+                bytes += HASH_MAP_ENTRY_BYTES
+                        + OBJECT_HEADER_BYTES + Integer.BYTES + arrayBytes(entry.getKey().length(), Character.BYTES)
+                        + OBJECT_HEADER_BYTES + 2 * REFERENCE_BYTES + 2 * Integer.BYTES
+                        + arrayBytes(postings.documents.length, Integer.BYTES)
+                        + arrayBytes(postings.frequencies.length, Integer.BYTES);
+            }
+
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onReload(Map<String, Job> activeJobsById) {
+        // Not shared until it is swapped in, so it is built without the lock
+        SearchIndex rebuilt = new SearchIndex();
+        rebuilt.clear(activeJobsById.size());
+        activeJobsById.forEach(rebuilt::add);
+
+        lock.writeLock().lock();
+        try {
+            documentsByJobId = rebuilt.documentsByJobId;
+            jobIds = rebuilt.jobIds;
+            jobs = rebuilt.jobs;
+            documentLengths = rebuilt.documentLengths;
+            documentCount = rebuilt.documentCount;
+            liveTermCount = rebuilt.liveTermCount;
+            postingsByTerm = rebuilt.postingsByTerm;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onUpsert(String jobId, Job job) {
+        lock.writeLock().lock();
+        try {
+            remove(jobId);
+            add(jobId, job);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onRemove(String jobId) {
+        lock.writeLock().lock();
+        try {
+            remove(jobId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Only called with the write lock held, or on an index that is not shared yet
+    private void add(String jobId, Job job) {
+        if (documentCount == jobs.length) {
+            int capacity = documentCount * 2;
+            jobIds = Arrays.copyOf(jobIds, capacity);
+            jobs = Arrays.copyOf(jobs, capacity);
+            documentLengths = Arrays.copyOf(documentLengths, capacity);
+        }
+
+        int document = documentCount++;
+        Map<String, Integer> frequencies = getTermFrequencies(job);
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postingsByTerm.computeIfAbsent(entry.getKey(), term -> new Postings()).add(document, entry.getValue());
+            length += entry.getValue();
+        }
+
+        jobIds[document] = jobId;
+        jobs[document] = job;
+        documentLengths[document] = length;
+        documentsByJobId.put(jobId, document);
+        liveTermCount += length;
+    }
+
+    // Only called with the write lock held
+    private void remove(String jobId) {
+        Integer document = documentsByJobId.remove(jobId);
+        if (document == null) {
+            return;
+        }
+
+        // The postings keep the document until the next compaction, and skip it in the meantime
+        for (String term : getTermFrequencies(jobs[document]).keySet()) {
+            Postings postings = postingsByTerm.get(term);
+            postings.liveCount--;
+            if (postings.liveCount == 0) {
+                postingsByTerm.remove(term);
+            }
+        }
+
+        liveTermCount -= documentLengths[document];
+        jobs[document] = null;
+
+        int tombstoneCount = documentCount - documentsByJobId.size();
+        if (tombstoneCount >= MIN_TOMBSTONES_TO_COMPACT && tombstoneCount > documentsByJobId.size()) {
+            compact();
+        }
+    }
+
+    /** Indexes the remaining job posts again, so that the removed ones no longer take up room. */
+    private void compact() {
+        Map<String, Job> liveJobsById = new HashMap<>();
+        documentsByJobId.forEach((jobId, document) -> liveJobsById.put(jobId, jobs[document]));
+
+        clear(liveJobsById.size());
+        liveJobsById.forEach(this::add);
+    }
+
+    private void clear(int expectedSize) {
+        int capacity = Math.max(INITIAL_CAPACITY, expectedSize);
+        documentsByJobId.clear();
+        jobIds = new String[capacity];
+        jobs = new Job[capacity];
+        documentLengths = new int[capacity];
+        documentCount = 0;
+        liveTermCount = 0;
+        postingsByTerm.clear();
+    }
+
+    private static Map<String, Integer> getTermFrequencies(Job job) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : Tokenizer.tokenize(job.getJobTitle())) {
+            frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+
+        for (String term : Tokenizer.tokenize(job.getJobDescription())) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+
+        return frequencies;
+    }
+
+    private static long arrayBytes(int length, int elementBytes) {
+        return OBJECT_HEADER_BYTES + (long) length * elementBytes;
+    }
+}
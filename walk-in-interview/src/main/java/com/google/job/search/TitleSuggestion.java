@@ -0,0 +1,61 @@
+package com.google.job.search;
+
+/** Class that represents a job title suggested for a typed prefix, with how many ACTIVE job posts have it. */
+public final class TitleSuggestion {
+    private final String title;
+    private final int count;
+
+    /**
+     * @param title The job title, as it was last posted.
+     * @param count Number of ACTIVE job posts with the title.
+     */
+    public TitleSuggestion(String title, int count) {
+        if (title.isEmpty()) {
+            throw new IllegalArgumentException("title should be an non-empty string");
+        }
+
+        if (count <= 0) {
+            throw new IllegalArgumentException("count should be positive");
+        }
+
+        this.title = title;
+        this.count = count;
+    }
+
+    /** Returns the job title. */
+    public String getTitle() {
+        return title;
+    }
+
+    /** Returns the number of ACTIVE job posts with the title. */
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TitleSuggestion that = (TitleSuggestion) o;
+        return count == that.count &&
+                title.equals(that.title);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+
+        int c = title.hashCode();
+        result = 31 * result + c;
+
+        c = Integer.hashCode(count);
+        result = 31 * result + c;
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TitleSuggestion{title=%s, count=%d}", title, count);
+    }
+}
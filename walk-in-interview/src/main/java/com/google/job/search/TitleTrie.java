@@ -0,0 +1,409 @@
+package com.google.job.search;
+
+import com.google.common.collect.ImmutableList;
+import com.google.job.data.ActiveJobsListener;
+import com.google.job.data.Job;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compact prefix tree of the distinct titles of the ACTIVE job posts, that suggests the most posted titles
+ * starting with what has been typed. Titles are matched ignoring case and repeated spaces.
+ *
+ * It is a radix tree: chains of nodes with a single child are merged into one edge, so that there are at most
+ * two nodes per distinct title whatever its length. Each node also keeps the largest count below it, so that
+ * a lookup only expands the branches that can still hold one of the best titles. It is updated in place as
+ * job posts are added and removed, while a reload builds a new tree aside and then swaps it in.
+ */
+public final class TitleTrie implements ActiveJobsListener {
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    // Rough sizes on a 64-bit JVM with compressed references, used to estimate the memory use
+    private static final int OBJECT_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    private static final int HASH_MAP_ENTRY_BYTES = 32;
+
+    /** Most posted first; titles are expanded before the branches of the same count so that they come out first. */
+    private static final Comparator<Candidate> BEST_FIRST = Comparator
+            .comparingInt((Candidate candidate) -> -candidate.count)
+            .thenComparing(candidate -> !candidate.isTitle);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock; the title of each job post, to know which one to count down when it changes
+    private Map<String, String> titlesByJobId = new HashMap<>();
+    private Node root = new Node("");
+
+    /** A node of the tree, reached from its parent through the characters of its label. */
+    private static final class Node {
+        private String label;
+        // Sorted by the first character of their label, which is unique among siblings
+        private Node[] children = NO_CHILDREN;
+        // Number of job posts whose title ends here
+        private int count = 0;
+        // How the title that ends here was last posted; null when no title ends here
+        @Nullable
+        private String title;
+        // Largest count of this node and the nodes below it
+        private int maxCount = 0;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        /** Returns the index of the child whose label starts with the character, or (-insertion point - 1). */
+        private int findChild(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char middleChar = children[middle].label.charAt(0);
+                if (middleChar < c) {
+                    low = middle + 1;
+                } else if (middleChar > c) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+
+            return -low - 1;
+        }
+
+        private void insertChild(int index, Node child) {
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newChildren[index] = child;
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            children = newChildren;
+        }
+
+        private void removeChild(int index) {
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            children = newChildren.length == 0 ? NO_CHILDREN : newChildren;
+        }
+
+        private void updateMaxCount() {
+            int max = count;
+            for (Node child : children) {
+                max = Math.max(max, child.maxCount);
+            }
+
+            maxCount = max;
+        }
+    }
+
+    /** A title, or a branch of titles, waiting to be looked at during a lookup. */
+    private static final class Candidate {
+        private final Node node;
+        private final boolean isTitle;
+        private final int count;
+
+        private Candidate(Node node, boolean isTitle) {
+            this.node = node;
+            this.isTitle = isTitle;
+            this.count = isTitle ? node.count : node.maxCount;
+        }
+    }
+
+    /**
+     * Returns the most posted titles that start with the prefix. Titles posted equally often come in
+     * no particular order.
+     *
+     * @param prefix What has been typed so far.
+     * @param limit The maximum number of titles returned, at most {@link #MAX_SUGGESTIONS}.
+     * @return The suggested titles, most posted first.
+     * @throws IllegalArgumentException If the limit is out of range.
+     */
+    public List<TitleSuggestion> suggest(String prefix, int limit) throws IllegalArgumentException {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("limit should be between 1 and " + MAX_SUGGESTIONS);
+        }
+
+        // Trailing spaces are kept, so that a finished word does not match longer words
+        String key = normalize(prefix, /* trim= */ false);
+
+        lock.readLock().lock();
+        try {
+            Node node = findPrefix(key);
+            if (node == null || node.maxCount == 0) {
+                return ImmutableList.of();
+            }
+
+            ImmutableList.Builder<TitleSuggestion> suggestions = ImmutableList.builder();
+            int found = 0;
+            PriorityQueue<Candidate> candidates = new PriorityQueue<>(BEST_FIRST);
+            candidates.add(new Candidate(node, /* isTitle= */ false));
+            while (found < limit && !candidates.isEmpty()) {
+                Candidate candidate = candidates.poll();
+                if (candidate.isTitle) {
+                    suggestions.add(new TitleSuggestion(candidate.node.title, candidate.count));
+                    found++;
+                    continue;
+                }
+
+                if (candidate.node.count > 0) {
+                    candidates.add(new Candidate(candidate.node, /* isTitle= */ true));
+                }
+
+                for (Node child : candidate.node.children) {
+                    candidates.add(new Candidate(child, /* isTitle= */ false));
+                }
+            }
+
+            return suggestions.build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Returns the number of distinct titles in the tree. */
+    public int getTitleCount() {
+        lock.readLock().lock();
+        try {
+            return countTitles(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns an estimate of the memory used by the tree, in bytes. The titles are shared with the job posts,
+     * so only the references to them are counted.
+     */
+    public long getMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) titlesByJobId.size() * (HASH_MAP_ENTRY_BYTES + REFERENCE_BYTES) + getMemoryBytes(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onReload(Map<String, Job> activeJobsById) {
+        // Not shared until it is swapped in, so it is built without the lock
+        TitleTrie rebuilt = new TitleTrie();
+        activeJobsById.forEach(rebuilt::upsert);
+
+        lock.writeLock().lock();
+        try {
+            titlesByJobId = rebuilt.titlesByJobId;
+            root = rebuilt.root;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onUpsert(String jobId, Job job) {
+        lock.writeLock().lock();
+        try {
+            upsert(jobId, job);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onRemove(String jobId) {
+        lock.writeLock().lock();
+        try {
+            String title = titlesByJobId.remove(jobId);
+            if (title != null) {
+                remove(title);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Only called with the write lock held, or on a tree that is not shared yet
+    private void upsert(String jobId, Job job) {
+        String title = job.getJobTitle();
+        String previousTitle = titlesByJobId.put(jobId, title);
+        if (title.equals(previousTitle)) {
+            return;
+        }
+
+        if (previousTitle != null) {
+            remove(previousTitle);
+        }
+
+        add(title);
+    }
+
+    // Only called with the write lock held
+    private void add(String title) {
+        String key = normalize(title, /* trim= */ true);
+        if (key.isEmpty()) {
+            return;
+        }
+
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int index = node.findChild(key.charAt(i));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(i));
+                node.insertChild(-index - 1, leaf);
+                path.add(leaf);
+                node = leaf;
+                break;
+            }
+
+            Node child = node.children[index];
+            int common = getCommonPrefixLength(child.label, key, i);
+            if (common < child.label.length()) {
+                // Splits the edge, so that the title ends at or branches off from the new node
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children = new Node[] {child};
+                middle.maxCount = child.maxCount;
+                node.children[index] = middle;
+                child = middle;
+            }
+
+            path.add(child);
+            node = child;
+            i += common;
+        }
+
+        node.count++;
+        node.title = title;
+        updateMaxCounts(path);
+    }
+
+    // Only called with the write lock held
+    private void remove(String title) {
+        String key = normalize(title, /* trim= */ true);
+        if (key.isEmpty()) {
+            return;
+        }
+
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int index = node.findChild(key.charAt(i));
+            if (index < 0 || !key.startsWith(node.children[index].label, i)) {
+                return;
+            }
+
+            node = node.children[index];
+            path.add(node);
+            i += node.label.length();
+        }
+
+        node.count--;
+        if (node.count == 0) {
+            node.title = null;
+        }
+
+        // Drops the nodes no title needs any more, from the bottom up, so that the tree stays compact
+        for (int j = path.size() - 1; j > 0; j--) {
+            Node current = path.get(j);
+            if (current.count > 0 || current.children.length > 1) {
+                continue;
+            }
+
+            Node parent = path.get(j - 1);
+            int index = parent.findChild(current.label.charAt(0));
+            if (current.children.length == 0) {
+                parent.removeChild(index);
+            } else {
+                Node onlyChild = current.children[0];
+                onlyChild.label = current.label + onlyChild.label;
+                parent.children[index] = onlyChild;
+            }
+
+        }
+
+        updateMaxCounts(path);
+    }
+
+    /** Returns the node below which all the titles start with the key, or null if there is none. */
+    @Nullable
+    private Node findPrefix(String key) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int index = node.findChild(key.charAt(i));
+            if (index < 0) {
+                return null;
+            }
+
+            Node child = node.children[index];
+            // The key may end in the middle of the label
+            int length = Math.min(child.label.length(), key.length() - i);
+            if (!child.label.regionMatches(0, key, i, length)) {
+                return null;
+            }
+
+            node = child;
+            i += length;
+        }
+
+        return node;
+    }
+
+    private static void updateMaxCounts(List<Node> path) {
+        for (int j = path.size() - 1; j >= 0; j--) {
+            path.get(j).updateMaxCount();
+        }
+    }
+
+    private static int countTitles(Node node) {
+        int count = node.count > 0 ? 1 : 0;
+        for (Node child : node.children) {
+            count += countTitles(child);
+        }
+
+        return count;
+    }
+
+    private static long getMemoryBytes(Node node) {
+        // The node with its fields, its label and its children array
+        long bytes = OBJECT_HEADER_BYTES + 3 * REFERENCE_BYTES + 2 * Integer.BYTES
+                + OBJECT_HEADER_BYTES + Integer.BYTES + OBJECT_HEADER_BYTES + (long) node.label.length() * Character.BYTES
+                + (node.children.length == 0 ? 0 : OBJECT_HEADER_BYTES + (long) node.children.length * REFERENCE_BYTES);
+
+        for (Node child : node.children) {
+            bytes += getMemoryBytes(child);
+        }
+
+        return bytes;
+    }
+
+    private static int getCommonPrefixLength(String label, String key, int offset) {
+        int length = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < length && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+
+        return i;
+    }
+
+    /** Lower-cases the text and collapses its runs of spaces, dropping the leading ones. */
+    private static String normalize(String text, boolean trim) {
+        String normalized = text.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        return trim ? normalized.trim() : normalized.replaceAll("^ ", "");
+    }
+}
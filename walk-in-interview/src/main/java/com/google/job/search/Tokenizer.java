@@ -0,0 +1,46 @@
+package com.google.job.search;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/** Splits the text of job posts and of search queries into the terms of the {@link SearchIndex}. */
+public final class Tokenizer {
+    /** Words too common in job posts to tell them apart. */
+    private static final Set<String> STOP_WORDS = ImmutableSet.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of", "on", "or",
+            "the", "to", "with");
+
+    private Tokenizer() {}
+
+    /**
+     * Returns the terms of the text, in order and with repeats: the lower-cased runs of letters and digits,
+     * without the stop words.
+     *
+     * @param text Any text.
+     * @return The terms of the text.
+     */
+    public static List<String> tokenize(String text) {
+        ImmutableList.Builder<String> terms = ImmutableList.builder();
+
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean partOfTerm = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (partOfTerm && start < 0) {
+                start = i;
+            } else if (!partOfTerm && start >= 0) {
+                String term = text.substring(start, i).toLowerCase(Locale.ROOT);
+                if (!STOP_WORDS.contains(term)) {
+                    terms.add(term);
+                }
+
+                start = -1;
+            }
+        }
+
+        return terms.build();
+    }
+}
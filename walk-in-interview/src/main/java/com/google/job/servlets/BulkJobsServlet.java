@@ -0,0 +1,157 @@
+package com.google.job.servlets;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.job.data.*;
+import com.google.utils.ServletUtils;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Servlet that handles posting many new job posts at once.
+ * The body is either a json array of job posts, or one job post per line (NDJSON). Each job post is
+ * validated on its own, and the response holds the result of each of them in the same order.
+ */
+@WebServlet(value = "/jobs/bulk", asyncSupported = true)
+public final class BulkJobsServlet extends HttpServlet {
+    private static final Logger log = Logger.getLogger(BulkJobsServlet.class.getName());
+
+    private static final long TIMEOUT_SECONDS = 60;
+    static final int MAX_JOBS_PER_REQUEST = 5000;
+
+    private JobsDatabase jobsDatabase;
+
+    @Override
+    public void init() {
+        this.jobsDatabase = JobsDatabase.getInstance();
+    }
+
+    @Override
+    public void doPost(HttpServletRequest request, HttpServletResponse response) {
+        try {
+            List<JsonElement> jobsJson = parseJobsJson(request);
+
+            // Invalid job posts are reported without being sent to the database
+            List<JobWriteResult> parseResults = new ArrayList<>(jobsJson.size());
+            List<Job> validJobs = new ArrayList<>();
+            for (JsonElement jobJson : jobsJson) {
+                try {
+                    Job rawJob = ServletUtils.parseFromJsonUsingGson(jobJson, Job.class);
+
+                    // New jobs always start in ACTIVE status.
+                    validJobs.add(rawJob.toBuilder().setJobStatus(JobStatus.ACTIVE).build());
+                    parseResults.add(null);
+                } catch (IllegalArgumentException | IllegalStateException | JsonParseException e) {
+                    parseResults.add(JobWriteResult.failure("invalid job post: " + e.getMessage()));
+                }
+            }
+
+            ApiFuture<List<JobWriteResult>> results = ApiFutures.transform(
+                this.jobsDatabase.addJobs(validJobs),
+                writeResults -> mergeResults(parseResults, writeResults),
+                MoreExecutors.directExecutor()
+            );
+
+            ServletUtils.respondAsync(request, response, results, TIMEOUT_SECONDS, ServletUtils::writeJson);
+        } catch (IllegalArgumentException | IOException e) {
+            log.log(Level.SEVERE, "unable to add jobs", e);
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Returns the json of each job post in the request body.
+     *
+     * @throws IllegalArgumentException If the body is empty, is not valid json, or holds too many job posts.
+     */
+    private static List<JsonElement> parseJobsJson(HttpServletRequest request)
+            throws IOException, IllegalArgumentException {
+        List<JsonElement> jobsJson = new ArrayList<>();
+
+        try (BufferedReader bufferedReader = request.getReader()) {
+            bufferedReader.mark(/* readAheadLimit= */ 1);
+            int firstChar = skipWhitespace(bufferedReader);
+            bufferedReader.reset();
+
+            if (firstChar == '[') {
+                JsonReader jsonReader = new JsonReader(bufferedReader);
+                jsonReader.beginArray();
+                while (jsonReader.hasNext()) {
+                    addJobJson(jobsJson, JsonParser.parseReader(jsonReader));
+                }
+                jsonReader.endArray();
+            } else {
+                String line;
+                while ((line = bufferedReader.readLine()) != null) {
+                    if (!line.trim().isEmpty()) {
+                        addJobJson(jobsJson, JsonParser.parseString(line));
+                    }
+                }
+            }
+        } catch (IllegalStateException | JsonParseException e) {
+            throw new IllegalArgumentException("Json for Job objects is invalid", e);
+        }
+
+        if (jobsJson.isEmpty()) {
+            throw new IllegalArgumentException("Json for Job objects is Empty");
+        }
+
+        return jobsJson;
+    }
+
+    private static void addJobJson(List<JsonElement> jobsJson, JsonElement jobJson) throws IllegalArgumentException {
+        if (jobsJson.size() == MAX_JOBS_PER_REQUEST) {
+            throw new IllegalArgumentException("At most " + MAX_JOBS_PER_REQUEST + " jobs can be added at once");
+        }
+
+        jobsJson.add(jobJson);
+    }
+
+    /**
+     * Skips the leading whitespace, leaving the reader marked at the first other character.
+     *
+     * @return The first character that is not whitespace, or -1 at the end of the stream.
+     */
+    private static int skipWhitespace(BufferedReader bufferedReader) throws IOException {
+        int c = bufferedReader.read();
+        while (c != -1 && Character.isWhitespace(c)) {
+            bufferedReader.mark(/* readAheadLimit= */ 1);
+            c = bufferedReader.read();
+        }
+
+        return c;
+    }
+
+    /**
+     * Fills the gaps that the valid job posts left in the parse results with their write results.
+     *
+     * @param parseResults Result of each job post, or null for the ones that were valid.
+     * @param writeResults Write result of each valid job post, in the same order.
+     * @return Result of each job post.
+     */
+    private static List<JobWriteResult> mergeResults(List<JobWriteResult> parseResults,
+                                                     List<JobWriteResult> writeResults) {
+        List<JobWriteResult> results = new ArrayList<>(parseResults.size());
+
+        int writeIndex = 0;
+        for (JobWriteResult parseResult : parseResults) {
+            results.add(parseResult == null ? writeResults.get(writeIndex++) : parseResult);
+        }
+
+        return results;
+    }
+}
@@ -0,0 +1,49 @@
+package com.google.job.servlets;
+
+import com.google.api.core.ApiFuture;
+import com.google.common.collect.ImmutableMap;
+import com.google.job.data.JobsDatabase;
+import com.google.utils.ServletUtils;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.logging.Logger;
+
+/**
+ * Servlet that handles the scheduled sweep that marks expired job posts as EXPIRED, see cron.xml.
+ * Responds with the number of job posts expired and the sweep lag.
+ */
+@WebServlet(value = "/tasks/expire-jobs", asyncSupported = true)
+public final class ExpireJobsServlet extends HttpServlet {
+    private static final Logger log = Logger.getLogger(ExpireJobsServlet.class.getName());
+
+    // Set by App Engine on cron requests, and stripped from the requests of anyone else
+    private static final String CRON_HEADER = "X-Appengine-Cron";
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private JobsDatabase jobsDatabase;
+
+    @Override
+    public void init() {
+        this.jobsDatabase = JobsDatabase.getInstance();
+    }
+
+    @Override
+    public void doGet(HttpServletRequest request, HttpServletResponse response) {
+        if (!"true".equals(request.getHeader(CRON_HEADER))) {
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        ApiFuture<Integer> expiredCount = this.jobsDatabase.expireJobs(System.currentTimeMillis());
+
+        ServletUtils.respondAsync(request, response, expiredCount, TIMEOUT_SECONDS, (asyncResponse, count) -> {
+            long lagMillis = this.jobsDatabase.getExpirySweepLagMillis();
+            log.info(String.format("expired %d job posts, sweep lag: %d ms", count, lagMillis));
+
+            ServletUtils.writeJson(asyncResponse, ImmutableMap.of("expiredCount", count, "lagMillis", lagMillis));
+        });
+    }
+}
@@ -1,5 +1,7 @@
 package com.google.job.servlets;
 
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.DocumentReference;
 import com.google.job.data.*;
 import com.google.utils.ServletUtils;
 
@@ -9,43 +11,36 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 /** Servlet that handles adding/removing and getting an applicant's interested jobs. */
-@WebServlet("/my-interested-list")
+@WebServlet(value = "/my-interested-list", asyncSupported = true)
 public final class InterestedJobsServlet extends HttpServlet {
     private static final Logger log = Logger.getLogger(InterestedJobsServlet.class.getName());
 
     private static final long TIMEOUT_SECONDS = 5;
 
     private static final String PAGE_SIZE_PARAM = "pageSize";
-    private static final String PAGE_INDEX_PARAM = "pageIndex";
     private static final String INTERESTED_PARAM = "interested";
 
     private JobsDatabase jobsDatabase;
 
     @Override
     public void init() {
-        this.jobsDatabase = new JobsDatabase();
+        this.jobsDatabase = JobsDatabase.getInstance();
     }
 
     @Override
-    public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    public void doGet(HttpServletRequest request, HttpServletResponse response) {
         try {
+            int pageSize = JobsListingsServlet.parsePageSize(request);
+            String pageToken = JobsListingsServlet.parsePageToken(request);
 
-            int pageSize = JobsListingsServlet.parsePageIndex(request);
-            int pageIndex = JobsListingsServlet.parsePageIndex(request);
-            
-            JobPage jobPage = fetchJobPageDetails(pageSize, pageIndex);
+            ApiFuture<JobPage> jobPage = fetchJobPageDetails(pageSize, pageToken);
 
-            String json = ServletUtils.convertToJsonUsingGson(jobPage);
-            response.setContentType("application/json;");
-            response.getWriter().println(json);
-        } catch(IllegalArgumentException | ServletException | ExecutionException | TimeoutException e) {
+            ServletUtils.respondAsync(request, response, jobPage, TIMEOUT_SECONDS, ServletUtils::writeJson);
+        } catch(IllegalArgumentException | IOException e) {
             log.log(Level.SEVERE, "unable to get interested list", e);
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
         }
@@ -54,36 +49,31 @@ public final class InterestedJobsServlet extends HttpServlet {
     @Override
     public void doPost(HttpServletRequest request, HttpServletResponse response) {
         try {
-
             String jobId = JobServlet.parseJobId(request);
             // true if the applicant is already interested (they want to remove it now)
             boolean interested = parseInterested(request);
 
-            updateInterestedList(jobId, interested);
+            ApiFuture<DocumentReference> update = updateInterestedList(jobId, interested);
 
-            response.setStatus(HttpServletResponse.SC_OK);
-        } catch (ExecutionException | IllegalArgumentException | ServletException | TimeoutException e) {
+            ServletUtils.respondAsync(request, response, update, TIMEOUT_SECONDS,
+                    (asyncResponse, documentReference) -> asyncResponse.setStatus(HttpServletResponse.SC_OK));
+        } catch (IllegalArgumentException | ServletException e) {
             log.log(Level.SEVERE, "unable to update interestedList", e);
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
         }
     }
 
     /**
-     * Returns the JobPage object.
+     * Returns future of the JobPage object.
      *
      * @param pageSize The the number of jobs to be shown on the page.
-     * @param pageIndex The page number on which we are at.
-     * @return JobPage object with all the details for the GET response.
+     * @param pageToken The cursor of the page, or empty for the first page.
+     * @return Future of the JobPage object with all the details for the GET response.
      */
-    private JobPage fetchJobPageDetails(int pageSize, int pageIndex) throws ServletException, ExecutionException, TimeoutException {
-        try {
-            // TODO(issue/91): get userId from firebase session cookie
-            String applicantId = "";
-            return this.jobsDatabase.fetchInterestedJobPage(applicantId, pageSize, pageIndex)
-                    .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
-        } catch (InterruptedException | IOException | IllegalArgumentException e) {
-            throw new ServletException(e);
-        }
+    private ApiFuture<JobPage> fetchJobPageDetails(int pageSize, String pageToken) throws IOException {
+        // TODO(issue/91): get userId from firebase session cookie
+        String applicantId = "";
+        return this.jobsDatabase.fetchInterestedJobPage(applicantId, pageSize, pageToken);
     }
 
     /**
@@ -91,14 +81,14 @@ public final class InterestedJobsServlet extends HttpServlet {
      *
      * @param jobId The job id.
      * @param interested Whether the applicant is currently interested in it or not.
+     * @return Future of the update.
      */
-    private void updateInterestedList(String jobId, boolean interested) throws ServletException, ExecutionException, TimeoutException {
+    private ApiFuture<DocumentReference> updateInterestedList(String jobId, boolean interested) throws ServletException {
         try {
             // TODO(issue/91): get userId from firebase session cookie
             String applicantId = "";
-            this.jobsDatabase.updateInterestedJobsList(applicantId, jobId, interested)
-                    .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
-        } catch (Exception e) {
+            return this.jobsDatabase.updateInterestedJobsList(applicantId, jobId, interested);
+        } catch (IOException e) {
             throw new ServletException(e);
         }
     }
@@ -0,0 +1,95 @@
+package com.google.job.servlets;
+
+import com.google.api.core.ApiFuture;
+import com.google.job.data.JobCluster;
+import com.google.job.data.JobsDatabase;
+import com.google.utils.ServletUtils;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+
+/**
+ * Servlet that handles getting the clusters of the job posts in a map view. The clusters are pre-aggregated,
+ * so the response has about the same size whatever the number of job posts in the view.
+ */
+@WebServlet(value = "/jobs/clusters", asyncSupported = true)
+public final class JobClustersServlet extends HttpServlet {
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private static final String NORTH_PARAM = "north";
+    private static final String SOUTH_PARAM = "south";
+    private static final String EAST_PARAM = "east";
+    private static final String WEST_PARAM = "west";
+    private static final String ZOOM_PARAM = "zoom";
+
+    private JobsDatabase jobsDatabase;
+
+    @Override
+    public void init() {
+        this.jobsDatabase = JobsDatabase.getInstance();
+    }
+
+    @Override
+    public void doGet(HttpServletRequest request, HttpServletResponse response) {
+        try {
+            double north = parseCoordinate(request, NORTH_PARAM);
+            double south = parseCoordinate(request, SOUTH_PARAM);
+            double east = parseCoordinate(request, EAST_PARAM);
+            double west = parseCoordinate(request, WEST_PARAM);
+            int zoom = parseZoom(request);
+
+            ApiFuture<List<JobCluster>> clusters = this.jobsDatabase.fetchJobClusters(south, west, north, east, zoom);
+
+            ServletUtils.respondAsync(request, response, clusters, TIMEOUT_SECONDS, ServletUtils::writeJson);
+        } catch(IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Returns one of the bounds of the map view, in degrees.
+     *
+     * @param request From the GET request.
+     * @param parameterName The name of the param.
+     * @return the coordinate.
+     * @throws IllegalArgumentException if the coordinate is invalid.
+     */
+    private static double parseCoordinate(HttpServletRequest request, String parameterName)
+            throws IllegalArgumentException {
+        String coordinateStr = ServletUtils.getStringParameter(request, parameterName, /* defaultValue= */ "");
+
+        if (coordinateStr.isEmpty()) {
+            throw new IllegalArgumentException(parameterName + " param should not be empty");
+        }
+
+        try {
+            return Double.parseDouble(coordinateStr);
+        } catch(NumberFormatException e) {
+            throw new IllegalArgumentException(parameterName + " param should be a number");
+        }
+    }
+
+    /**
+     * Returns the zoom level of the map as an int.
+     *
+     * @param request From the GET request.
+     * @return the zoom level.
+     * @throws IllegalArgumentException if the zoom level is invalid.
+     */
+    private static int parseZoom(HttpServletRequest request) throws IllegalArgumentException {
+        String zoomStr = ServletUtils.getStringParameter(request, ZOOM_PARAM, /* defaultValue= */ "");
+
+        if (zoomStr.isEmpty()) {
+            throw new IllegalArgumentException("zoom param should not be empty");
+        }
+
+        try {
+            return Integer.parseInt(zoomStr);
+        } catch(NumberFormatException e) {
+            throw new IllegalArgumentException("zoom param should be an int");
+        }
+    }
+}
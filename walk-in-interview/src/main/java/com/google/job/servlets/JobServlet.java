@@ -1,9 +1,17 @@
 package com.google.job.servlets;
 
+import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.WriteResult;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.google.job.data.*;
 import com.google.utils.ServletUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import javax.annotation.Nullable;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -11,9 +19,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.time.format.DateTimeParseException;
 import java.util.stream.Collectors;
 import java.util.Optional;
 
@@ -21,17 +27,19 @@ import java.util.Optional;
  * Servlet that handles posting new job posts, updating existing job posts,
  * and getting an individual job post.
  */
-@WebServlet("/jobs")
+@WebServlet(value = "/jobs", asyncSupported = true)
 public final class JobServlet extends HttpServlet {
     private static final String PATCH_METHOD_TYPE = "PATCH";
     private static final long TIMEOUT_SECONDS = 5;
     private static final String JOB_ID_FIELD = "jobId";
+    private static final String IF_MATCH_HEADER = "If-Match";
+    private static final String ETAG_HEADER = "ETag";
 
     private JobsDatabase jobsDatabase;
 
     @Override
     public void init() {
-        this.jobsDatabase = new JobsDatabase();
+        this.jobsDatabase = JobsDatabase.getInstance();
     }
 
     @Override
@@ -44,22 +52,27 @@ public final class JobServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Handles the GET request of one job post. The response has an ETag with the version of the job post,
+     * which the client sends back in the If-Match header of its PATCH request.
+     */
     @Override
     public void doGet(HttpServletRequest request, HttpServletResponse response) {
         try {
             String jobId = parseJobId(request);
 
-            Optional<Job> job = fetchJobDetails(jobId);
+            ApiFuture<Optional<VersionedJob>> job = this.jobsDatabase.fetchJob(jobId);
 
-            if (!job.isPresent()) {
-                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
-                return;
-            }
+            ServletUtils.respondAsync(request, response, job, TIMEOUT_SECONDS, (asyncResponse, optionalJob) -> {
+                if (!optionalJob.isPresent()) {
+                    asyncResponse.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                    return;
+                }
 
-            String json = ServletUtils.convertToJsonUsingGson(job.get());
-            response.setContentType("application/json;");
-            response.getWriter().println(json);
-        } catch(IllegalArgumentException | ServletException | ExecutionException | TimeoutException | IOException e) {
+                asyncResponse.setHeader(ETAG_HEADER, toEntityTag(optionalJob.get().getUpdateTime()));
+                ServletUtils.writeJson(asyncResponse, optionalJob.get().getJob());
+            });
+        } catch(IllegalArgumentException | IOException e) {
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
         }
     }
@@ -74,11 +87,12 @@ public final class JobServlet extends HttpServlet {
             Job job = rawJob.toBuilder().setJobStatus(JobStatus.ACTIVE).build();
 
             // Stores job post into the database
-            storeJobPost(job);
+            ApiFuture<WriteResult> write = this.jobsDatabase.addJob(job);
 
-            // Sends the success status code in the response
-            response.setStatus(HttpServletResponse.SC_OK);
-        } catch (ExecutionException | IllegalArgumentException | ServletException | IOException | TimeoutException e) {
+            // Sends the success status code in the response once it is stored
+            ServletUtils.respondAsync(request, response, write, TIMEOUT_SECONDS,
+                    (asyncResponse, writeResult) -> asyncResponse.setStatus(HttpServletResponse.SC_OK));
+        } catch (IllegalArgumentException | IOException e) {
             // TODO(issue/47): use custom exceptions
             System.err.println("Error occur: " + e.getCause());
             // Sends the fail status code in the response
@@ -86,19 +100,29 @@ public final class JobServlet extends HttpServlet {
         }
     }
 
-    /** Handles the PATCH request from client. */
+    /**
+     * Handles the PATCH request from client. The body holds the job id and the fields to change, in the same
+     * json format as the job post; fields that are left out keep their current values. The fields are written
+     * as they are, unless the request has an If-Match header with the ETag of the version they were made from,
+     * in which case the request fails with 412 if the job post has changed since then.
+     */
     public void doPatch(HttpServletRequest request, HttpServletResponse response) {
         try {
-            // Gets job post (with cloud firestore id) from the form
-            Job updatedJob = parseRawJobPost(request);
-            String jobId = updatedJob.getJobId();
-
-            // Stores job post into the database
-            updateJobPost(jobId, updatedJob);
-
-            // Sends the success status code in the response
-            response.setStatus(HttpServletResponse.SC_OK);
-        } catch (ExecutionException | IllegalArgumentException | ServletException | TimeoutException | IOException e) {
+            // Gets the changed fields of the job post (with cloud firestore id) from the form
+            JsonObject jobPatchJson = parseJobPatch(request);
+            String jobId = parseJobId(jobPatchJson);
+            JobPatch jobPatch = parseJobPatch(jobPatchJson);
+            Timestamp expectedUpdateTime = parseIfMatch(request);
+
+            // Stores the changed fields into the database
+            ApiFuture<WriteResult> update = this.jobsDatabase.updateJob(jobId, jobPatch, expectedUpdateTime);
+
+            // Sends the success status code in the response once it is stored, with the new version
+            ServletUtils.respondAsync(request, response, update, TIMEOUT_SECONDS, (asyncResponse, writeResult) -> {
+                asyncResponse.setHeader(ETAG_HEADER, toEntityTag(writeResult.getUpdateTime()));
+                asyncResponse.setStatus(HttpServletResponse.SC_OK);
+            });
+        } catch (IllegalArgumentException | IOException e) {
             // TODO(issue/47): use custom exceptions
             System.err.println("Error occur: " + e.getCause());
             // Sends the fail status code in the response
@@ -106,58 +130,86 @@ public final class JobServlet extends HttpServlet {
         }
     }
 
-    /** Parses into valid Job object from json received from client request. */
-    private Job parseRawJobPost(HttpServletRequest request) throws IOException, IllegalArgumentException {
-        // Parses job object from the POST request
+    /** Parses the json object of the changed fields received from client request. */
+    private static JsonObject parseJobPatch(HttpServletRequest request) throws IOException, IllegalArgumentException {
         try (BufferedReader bufferedReader = request.getReader()) {
-            String jobPostJsonStr = bufferedReader.lines().collect(Collectors.joining(System.lineSeparator())).trim();
+            JsonElement jobPatch = JsonParser.parseReader(bufferedReader);
 
-            if (StringUtils.isBlank(jobPostJsonStr)) {
-                throw new IllegalArgumentException("Json for Job object is Empty");
+            if (!jobPatch.isJsonObject()) {
+                throw new IllegalArgumentException("Json for Job object should be an object");
             }
 
-            Job rawJob = ServletUtils.parseFromJsonUsingGson(jobPostJsonStr, Job.class);
-
-            // Validates the attributes via build()
-            return rawJob.toBuilder().build();
+            return jobPatch.getAsJsonObject();
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("Invalid json for Job object", e);
         }
     }
 
-    /** Stores the job post into the database. */
-    private void storeJobPost(Job job) throws ServletException, ExecutionException, TimeoutException {
-        try {
-            // Blocks the operation.
-            // Use timeout in case it blocks forever.
-            this.jobsDatabase.addJob(job).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
-        } catch (InterruptedException | IOException e) {
-            throw new ServletException(e);
+    /** Returns the job id of the changed fields. */
+    private static String parseJobId(JsonObject jobPatch) throws IllegalArgumentException {
+        JsonElement jobId = jobPatch.get(JOB_ID_FIELD);
+
+        if (jobId == null || !jobId.isJsonPrimitive() || jobId.getAsString().isEmpty()) {
+            throw new IllegalArgumentException("job id should not be empty");
         }
+
+        return jobId.getAsString();
     }
 
-    /** Updates the target job post in the database. */
-    private void updateJobPost(String jobId, Job job)
-            throws IllegalArgumentException, ServletException, ExecutionException, TimeoutException {
+    /** Parses the changed fields, each of them validated on its own. */
+    private static JobPatch parseJobPatch(JsonObject jobPatchJson) throws IllegalArgumentException {
         try {
-            // Blocks the operation.
-            // Use timeout in case it blocks forever.
-            this.jobsDatabase.setJob(jobId, job).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
-        } catch (InterruptedException | IOException e) {
-            throw new ServletException(e);
+            return ServletUtils.parseFromJsonUsingGson(jobPatchJson, JobPatch.class);
+        } catch (IllegalStateException | JsonParseException e) {
+            throw new IllegalArgumentException("Invalid json for Job object", e);
         }
     }
 
     /**
-     * Returns the optional Job object.
+     * Returns the update time the client expects the job post to have.
      *
-     * @param jobId The job id that corresponds to the job we want to get.
-     * @return optional Job object with all the details of the job.
+     * @param request From the PATCH request.
+     * @return The update time from the If-Match header, or null if the header is missing or matches any version.
+     * @throws IllegalArgumentException If the header is not an ETag of this servlet.
      */
-    private Optional<Job> fetchJobDetails(String jobId) throws ServletException, ExecutionException, TimeoutException {
+    @Nullable
+    private static Timestamp parseIfMatch(HttpServletRequest request) throws IllegalArgumentException {
+        String ifMatch = request.getHeader(IF_MATCH_HEADER);
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String entityTag = ifMatch.trim();
+        if (entityTag.length() < 2 || !entityTag.startsWith("\"") || !entityTag.endsWith("\"")) {
+            throw new IllegalArgumentException("If-Match should be a single strong ETag");
+        }
+
         try {
-            return this.jobsDatabase.fetchJob(jobId)
-                    .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
-        } catch (InterruptedException | IOException e) {
-            throw new ServletException(e);
+            return Timestamp.parseTimestamp(entityTag.substring(1, entityTag.length() - 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid ETag in If-Match: " + entityTag, e);
+        }
+    }
+
+    /** Returns the ETag of the version of the job post written at the update time. */
+    private static String toEntityTag(Timestamp updateTime) {
+        return "\"" + updateTime + "\"";
+    }
+
+    /** Parses into valid Job object from json received from client request. */
+    private Job parseRawJobPost(HttpServletRequest request) throws IOException, IllegalArgumentException {
+        // Parses job object from the POST request
+        try (BufferedReader bufferedReader = request.getReader()) {
+            String jobPostJsonStr = bufferedReader.lines().collect(Collectors.joining(System.lineSeparator())).trim();
+
+            if (StringUtils.isBlank(jobPostJsonStr)) {
+                throw new IllegalArgumentException("Json for Job object is Empty");
+            }
+
+            Job rawJob = ServletUtils.parseFromJsonUsingGson(jobPostJsonStr, Job.class);
+
+            // Validates the attributes via build()
+            return rawJob.toBuilder().build();
         }
     }
 
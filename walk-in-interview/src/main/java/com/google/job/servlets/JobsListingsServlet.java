@@ -1,27 +1,20 @@
 package com.google.job.servlets;
 
+import com.google.api.core.ApiFuture;
 import com.google.job.data.*;
 import com.google.utils.ServletUtils;
 
-import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import java.io.IOException;
-
-import java.sql.Time;
-
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.*;
 
 /**
  * Servlet that handles getting the job listings given the filters.
  */
-@WebServlet("/jobs/listings")
+@WebServlet(value = "/jobs/listings", asyncSupported = true)
 public final class JobsListingsServlet extends HttpServlet {
     private static final long TIMEOUT_SECONDS = 5;
 
@@ -31,46 +24,32 @@ public final class JobsListingsServlet extends HttpServlet {
     private static final String SORT_BY_PARAM = "sortBy";
     private static final String ORDER_PARAM = "order";
     private static final String PAGE_SIZE_PARAM = "pageSize";
-    private static final String PAGE_INDEX_PARAM = "pageIndex";
+    private static final String PAGE_TOKEN_PARAM = "pageToken";
+    private static final String LATITUDE_PARAM = "latitude";
+    private static final String LONGITUDE_PARAM = "longitude";
+    private static final String MAX_DISTANCE_PARAM = "maxDistance";
+    private static final String SEARCH_TEXT_PARAM = "query";
 
     private JobsDatabase jobsDatabase;
 
     @Override
     public void init() {
-        this.jobsDatabase = new JobsDatabase();
+        this.jobsDatabase = JobsDatabase.getInstance();
     }
 
     @Override
-    public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    public void doGet(HttpServletRequest request, HttpServletResponse response) {
         try {
-            
             JobQuery jobQuery = parseJobQuery(request);
 
-            JobPage jobPage = fetchJobPageDetails(jobQuery);
+            ApiFuture<JobPage> jobPage = this.jobsDatabase.fetchJobPage(jobQuery);
 
-            String json = ServletUtils.convertToJsonUsingGson(jobPage);
-            response.setContentType("application/json;");
-            response.getWriter().println(json);
-        } catch(IllegalArgumentException | ServletException | ExecutionException | TimeoutException e) {
+            ServletUtils.respondAsync(request, response, jobPage, TIMEOUT_SECONDS, ServletUtils::writeJson);
+        } catch(IllegalArgumentException e) {
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
         }
     }
 
-    /**
-     * Returns the JobPage object.
-     *
-     * @param jobQuery The job query object with all the filtering/sorting params.
-     * @return JobPage object with all the details for the GET response.
-     */
-    private JobPage fetchJobPageDetails(JobQuery jobQuery) throws ServletException, ExecutionException, TimeoutException {
-        try {
-            return this.jobsDatabase.fetchJobPage(jobQuery)
-                    .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
-        } catch (InterruptedException | IOException e) {
-            throw new ServletException(e);
-        }
-    }
-
     /**
      * Returns the job query object.
      *
@@ -84,14 +63,91 @@ public final class JobsListingsServlet extends HttpServlet {
         SingaporeRegion region = parseRegion(request);
         Filter sortBy = parseSortBy(request);
         Order order = parseOrder(request);
-        // TODO(issue/34): parse page size and index once pagination is implemented
-        
-        return new JobQuery()
+        int pageSize = parsePageSize(request);
+        String pageToken = parsePageToken(request);
+
+        JobQuery jobQuery = new JobQuery()
                         .setMinLimit(minLimit)
                         .setMaxLimit(maxLimit)
                         .setRegion(region)
                         .setSortBy(sortBy)
-                        .setOrder(order);
+                        .setOrder(order)
+                        .setPageSize(pageSize)
+                        .setPageToken(pageToken);
+
+        // The place is only needed when sorting by distance
+        if (sortBy.equals(Filter.DISTANCE)) {
+            double latitude = parseCoordinate(request, LATITUDE_PARAM);
+            double longitude = parseCoordinate(request, LONGITUDE_PARAM);
+            jobQuery.setLocation(latitude, longitude);
+
+            String maxDistanceStr = ServletUtils.getStringParameter(request, MAX_DISTANCE_PARAM, /* defaultValue= */ "");
+            if (!maxDistanceStr.isEmpty()) {
+                jobQuery.setMaxDistance(parseMaxDistance(maxDistanceStr));
+            }
+        }
+
+        // The search text is only needed when sorting by relevance
+        if (sortBy.equals(Filter.RELEVANCE)) {
+            jobQuery.setSearchText(parseSearchText(request));
+        }
+
+        return jobQuery;
+    }
+
+    /**
+     * Returns the text the job posts are matched against.
+     *
+     * @param request From the GET request.
+     * @return the search text.
+     * @throws IllegalArgumentException if the search text is empty.
+     */
+    private static String parseSearchText(HttpServletRequest request) throws IllegalArgumentException {
+        String searchText = ServletUtils.getStringParameter(request, SEARCH_TEXT_PARAM, /* defaultValue= */ "");
+
+        if (searchText.trim().isEmpty()) {
+            throw new IllegalArgumentException("query param should not be empty when sorting by relevance");
+        }
+
+        return searchText;
+    }
+
+    /**
+     * Returns the latitude or longitude in degrees.
+     *
+     * @param request From the GET request.
+     * @param parameterName The name of the param.
+     * @return the coordinate.
+     * @throws IllegalArgumentException if the coordinate is invalid.
+     */
+    private static double parseCoordinate(HttpServletRequest request, String parameterName)
+            throws IllegalArgumentException {
+        String coordinateStr = ServletUtils.getStringParameter(request, parameterName, /* defaultValue= */ "");
+
+        if (coordinateStr.isEmpty()) {
+            throw new IllegalArgumentException(parameterName + " param should not be empty when sorting by distance");
+        }
+
+        try {
+            return Double.parseDouble(coordinateStr);
+        } catch(NumberFormatException e) {
+            throw new IllegalArgumentException(parameterName + " param should be a number");
+        }
+    }
+
+    /**
+     * Returns the maximum distance in meters.
+     *
+     * @param maxDistanceStr The max distance param.
+     * @return the maximum distance.
+     * @throws IllegalArgumentException if the max distance is invalid.
+     */
+    private static int parseMaxDistance(String maxDistanceStr) throws IllegalArgumentException {
+        try {
+            return Integer.parseInt(maxDistanceStr);
+        } catch(NumberFormatException e) {
+            throw new IllegalArgumentException("max distance param should be an int");
+        }
     }
 
     /**
@@ -208,23 +264,12 @@ public final class JobsListingsServlet extends HttpServlet {
     }
 
     /**
-     * Returns the page index as an int.
+     * Returns the page token. It is optional and empty when the first page is requested.
      *
      * @param request From the GET request.
-     * @return the page index.
-     * @throws IllegalArgumentException if the page index is invalid.
+     * @return the page token or an empty string.
      */
-    public static int parsePageIndex(HttpServletRequest request) throws IllegalArgumentException {
-        String pageIndexStr = ServletUtils.getStringParameter(request, PAGE_INDEX_PARAM, /* defaultValue= */ "");
-
-        if (pageIndexStr.isEmpty()) {
-            throw new IllegalArgumentException("page index param should not be empty");
-        }
-
-        try {
-            return Integer.parseInt(pageIndexStr);
-        } catch(NumberFormatException e) {
-            throw new IllegalArgumentException("page index param should be an int");
-        }
+    public static String parsePageToken(HttpServletRequest request) {
+        return ServletUtils.getStringParameter(request, PAGE_TOKEN_PARAM, /* defaultValue= */ "");
     }
 }
@@ -1,6 +1,9 @@
 package com.google.job.servlets;
 
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.DocumentReference;
 import com.google.job.data.JobsDatabase;
+import com.google.utils.ServletUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.servlet.ServletException;
@@ -10,13 +13,10 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /** Servlet that handles changing status of the existing job posts to DELETED. */
-@WebServlet("/jobs/delete")
+@WebServlet(value = "/jobs/delete", asyncSupported = true)
 public final class MarkJobDeleteServlet extends HttpServlet {
     private static final String PATCH_METHOD_TYPE = "PATCH";
     private static final long TIMEOUT_SECONDS = 5;
@@ -25,7 +25,7 @@ public final class MarkJobDeleteServlet extends HttpServlet {
 
     @Override
     public void init() {
-        this.jobsDatabase = new JobsDatabase();
+        this.jobsDatabase = JobsDatabase.getInstance();
     }
 
     @Override
@@ -45,12 +45,12 @@ public final class MarkJobDeleteServlet extends HttpServlet {
             String jobId = getJobId(request);
 
             // Changes the status to DELETED
-            this.jobsDatabase.markJobPostAsDeleted(jobId).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            ApiFuture<DocumentReference> update = this.jobsDatabase.markJobPostAsDeleted(jobId);
 
-            // Sends the success status code in the response
-            response.setStatus(HttpServletResponse.SC_OK);
-        } catch (IllegalArgumentException | IOException
-                | InterruptedException | ExecutionException | TimeoutException e) {
+            // Sends the success status code in the response once it is done
+            ServletUtils.respondAsync(request, response, update, TIMEOUT_SECONDS,
+                    (asyncResponse, documentReference) -> asyncResponse.setStatus(HttpServletResponse.SC_OK));
+        } catch (IllegalArgumentException | IOException e) {
             // TODO(issue/47): use custom exceptions
             System.err.println("Error occur: " + e.getCause());
             // Sends the fail status code in the response
@@ -0,0 +1,32 @@
+package com.google.job.servlets;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.job.data.JobsDatabase;
+import com.google.utils.ServletUtils;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Servlet that reports the read mode of this instance and how far behind the database its replica of the
+ * ACTIVE job posts is, for monitoring. The lag is -1 until the replica has received its first snapshot.
+ */
+@WebServlet("/jobs/replica-status")
+public final class ReplicaStatusServlet extends HttpServlet {
+    private JobsDatabase jobsDatabase;
+
+    @Override
+    public void init() {
+        this.jobsDatabase = JobsDatabase.getInstance();
+    }
+
+    @Override
+    public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ServletUtils.writeJson(response, ImmutableMap.of(
+                "readMode", this.jobsDatabase.getReadMode().getReadModeId(),
+                "lagMillis", this.jobsDatabase.getReplicaLagMillis()));
+    }
+}
@@ -0,0 +1,39 @@
+package com.google.job.servlets;
+
+import com.google.job.data.JobsDatabase;
+import com.google.job.data.ReadMode;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Warms up the instance while the application starts, so that the first request does not pay for
+ * creating the cloud firestore client and loading the in-memory indexes. The read mode of the
+ * {@link JobsDatabase} is taken from the {@link #READ_MODE_PROPERTY} system property first.
+ */
+@WebListener
+public final class StartupListener implements ServletContextListener {
+    private static final Logger log = Logger.getLogger(StartupListener.class.getName());
+
+    static final String READ_MODE_PROPERTY = "jobs.readMode";
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        String readModeId = System.getProperty(READ_MODE_PROPERTY, ReadMode.DATABASE.getReadModeId());
+        try {
+            JobsDatabase.getInstance().setReadMode(ReadMode.getFromId(readModeId));
+        } catch (IllegalArgumentException | IOException e) {
+            // The database read mode still works, only slower
+            log.log(Level.WARNING, "could not set the read mode to " + readModeId, e);
+        }
+
+        WarmupServlet.warmUp();
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {}
+}
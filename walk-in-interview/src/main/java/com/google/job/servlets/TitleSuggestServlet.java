@@ -0,0 +1,67 @@
+package com.google.job.servlets;
+
+import com.google.api.core.ApiFuture;
+import com.google.job.data.JobsDatabase;
+import com.google.job.search.TitleSuggestion;
+import com.google.utils.ServletUtils;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+
+/**
+ * Servlet that handles suggesting job titles as they are typed. The titles are looked up in memory,
+ * so that every keystroke can be sent without reading from the database.
+ */
+@WebServlet(value = "/jobs/suggest", asyncSupported = true)
+public final class TitleSuggestServlet extends HttpServlet {
+    private static final long TIMEOUT_SECONDS = 5;
+    private static final int DEFAULT_LIMIT = 5;
+
+    private static final String PREFIX_PARAM = "prefix";
+    private static final String LIMIT_PARAM = "limit";
+
+    private JobsDatabase jobsDatabase;
+
+    @Override
+    public void init() {
+        this.jobsDatabase = JobsDatabase.getInstance();
+    }
+
+    @Override
+    public void doGet(HttpServletRequest request, HttpServletResponse response) {
+        try {
+            String prefix = ServletUtils.getStringParameter(request, PREFIX_PARAM, /* defaultValue= */ "");
+            int limit = parseLimit(request);
+
+            ApiFuture<List<TitleSuggestion>> suggestions = this.jobsDatabase.fetchTitleSuggestions(prefix, limit);
+
+            ServletUtils.respondAsync(request, response, suggestions, TIMEOUT_SECONDS, ServletUtils::writeJson);
+        } catch(IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Returns the maximum number of suggestions as an int. We assume {@link #DEFAULT_LIMIT} if it is empty.
+     *
+     * @param request From the GET request.
+     * @return the maximum number of suggestions.
+     * @throws IllegalArgumentException if the limit is invalid.
+     */
+    private static int parseLimit(HttpServletRequest request) throws IllegalArgumentException {
+        String limitStr = ServletUtils.getStringParameter(request, LIMIT_PARAM, /* defaultValue= */ "");
+
+        if (limitStr.isEmpty()) {
+            return DEFAULT_LIMIT;
+        }
+
+        try {
+            return Integer.parseInt(limitStr);
+        } catch(NumberFormatException e) {
+            throw new IllegalArgumentException("limit param should be an int");
+        }
+    }
+}
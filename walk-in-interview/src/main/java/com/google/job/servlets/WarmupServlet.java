@@ -0,0 +1,57 @@
+package com.google.job.servlets;
+
+import com.google.common.base.Stopwatch;
+import com.google.job.data.JobsDatabase;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Servlet that handles the warmup requests App Engine sends to a new instance before routing traffic to it.
+ * Usually the instance is already warm by then, see {@link StartupListener}.
+ */
+@WebServlet("/_ah/warmup")
+public final class WarmupServlet extends HttpServlet {
+    private static final Logger log = Logger.getLogger(WarmupServlet.class.getName());
+
+    static final long TIMEOUT_SECONDS = 30;
+
+    @Override
+    public void doGet(HttpServletRequest request, HttpServletResponse response) {
+        if (warmUp()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+        } else {
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Warms up the shared {@link JobsDatabase} and logs how long it took. Failures are logged, since the
+     * instance can still serve requests without it.
+     *
+     * @return Whether the instance is warm.
+     */
+    static boolean warmUp() {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+
+        try {
+            JobsDatabase.getInstance().warmUp().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            log.info(String.format("warm-up: done in %d ms", stopwatch.elapsed(TimeUnit.MILLISECONDS)));
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            log.log(Level.WARNING, String.format("warm-up: failed after %d ms",
+                    stopwatch.elapsed(TimeUnit.MILLISECONDS)), e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
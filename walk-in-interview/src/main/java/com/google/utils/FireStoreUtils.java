@@ -15,13 +15,15 @@ import java.util.Optional;
 
 /** Util methods related to Cloud Firestore database. */
 public final class FireStoreUtils {
+    // Volatile so that it is only seen once it is fully initialized, without taking the lock on every call
     @Nullable
-    private static Firestore firestore;
+    private static volatile Firestore firestore;
 
     private FireStoreUtils() {}
 
     // Use the application default credentials
-    private static void init() throws IOException {
+    // Must hold the lock of this class, so that concurrent first calls initialize the firebase app only once
+    private static Firestore init() throws IOException {
         GoogleCredentials credentials = GoogleCredentials.getApplicationDefault();
         FirebaseOptions options = new FirebaseOptions.Builder()
                 .setCredentials(credentials)
@@ -32,22 +34,29 @@ public final class FireStoreUtils {
             FirebaseApp.initializeApp(options);
         }
 
-        firestore = FirestoreClient.getFirestore();
+        return FirestoreClient.getFirestore();
     }
 
     /**
-     * Gets the only cloud firestore database.
+     * Gets the only cloud firestore database. Safe to call from concurrent requests.
      *
      * @return The only cloud firestore database.
      * @throws IOException If error occurs when creating database.
      */
     public static Firestore getFireStore() throws IOException {
-        if (firestore == null) {
-            init();
-            // TODO(issue/10.1): error handling for IOException
+        Firestore current = firestore;
+        if (current != null) {
+            return current;
         }
 
-        return firestore;
+        synchronized (FireStoreUtils.class) {
+            if (firestore == null) {
+                // TODO(issue/10.1): error handling for IOException
+                firestore = init();
+            }
+
+            return firestore;
+        }
     }
 
     /**
@@ -0,0 +1,107 @@
+package com.google.utils;
+
+/** Util methods related to geographic coordinates. */
+public final class GeoUtils {
+    /** Mean radius of the earth, in meters. */
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    /** Length of one degree of latitude, in meters. */
+    public static final double METERS_PER_DEGREE = Math.PI * EARTH_RADIUS_METERS / 180;
+
+    private static final String GEOHASH_ALPHABET = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final int BITS_PER_GEOHASH_CHARACTER = 5;
+    private static final int MAX_GEOHASH_PRECISION = 12;
+
+    private GeoUtils() {}
+
+    /**
+     * Encodes the coordinates as a geohash. Places that share a geohash prefix are in the same cell, so that
+     * a prefix range query finds the places within a cell.
+     *
+     * @param latitude Latitude in degrees.
+     * @param longitude Longitude in degrees.
+     * @param precision Number of characters of the geohash, each of which makes the cell 32 times smaller.
+     * @return The geohash of the coordinates.
+     * @throws IllegalArgumentException If the coordinates or the precision are out of range.
+     */
+    public static String encodeGeohash(double latitude, double longitude, int precision)
+            throws IllegalArgumentException {
+        checkCoordinates(latitude, longitude);
+
+        if (precision < 1 || precision > MAX_GEOHASH_PRECISION) {
+            throw new IllegalArgumentException("precision should be between 1 and " + MAX_GEOHASH_PRECISION);
+        }
+
+        double minLatitude = -90;
+        double maxLatitude = 90;
+        double minLongitude = -180;
+        double maxLongitude = 180;
+
+        StringBuilder geohash = new StringBuilder(precision);
+        // Bits alternate between longitude and latitude, starting with longitude
+        boolean longitudeBit = true;
+        int bits = 0;
+        int character = 0;
+        while (geohash.length() < precision) {
+            character <<= 1;
+            if (longitudeBit) {
+                double middle = (minLongitude + maxLongitude) / 2;
+                if (longitude >= middle) {
+                    character |= 1;
+                    minLongitude = middle;
+                } else {
+                    maxLongitude = middle;
+                }
+            } else {
+                double middle = (minLatitude + maxLatitude) / 2;
+                if (latitude >= middle) {
+                    character |= 1;
+                    minLatitude = middle;
+                } else {
+                    maxLatitude = middle;
+                }
+            }
+
+            longitudeBit = !longitudeBit;
+            bits++;
+            if (bits == BITS_PER_GEOHASH_CHARACTER) {
+                geohash.append(GEOHASH_ALPHABET.charAt(character));
+                bits = 0;
+                character = 0;
+            }
+        }
+
+        return geohash.toString();
+    }
+
+    /**
+     * Returns the great-circle distance between two places, using the haversine formula.
+     *
+     * @return The distance in meters.
+     */
+    public static double distanceMeters(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double latitudeDelta = Math.toRadians(latitude2 - latitude1);
+        double longitudeDelta = Math.toRadians(longitude2 - longitude1);
+
+        double a = Math.pow(Math.sin(latitudeDelta / 2), 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.pow(Math.sin(longitudeDelta / 2), 2);
+
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Checks that the coordinates are on earth.
+     *
+     * @throws IllegalArgumentException If the latitude or the longitude is out of range.
+     */
+    public static void checkCoordinates(double latitude, double longitude) throws IllegalArgumentException {
+        if (!(latitude >= -90 && latitude <= 90)) {
+            throw new IllegalArgumentException("Latitude should be between -90 and 90");
+        }
+
+        if (!(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Longitude should be between -180 and 180");
+        }
+    }
+}
@@ -1,26 +1,73 @@
 package com.google.utils;
 
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.DeadlineExceededException;
+import com.google.api.gax.rpc.FailedPreconditionException;
+import com.google.api.gax.rpc.ResourceExhaustedException;
+import com.google.api.gax.rpc.UnavailableException;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
 
+import javax.annotation.Nullable;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /** Util methods related to servlet. */
 public final class ServletUtils {
+    private static final Logger log = Logger.getLogger(ServletUtils.class.getName());
+
+    // Gson is thread-safe, sharing one keeps the reflection setup to once per class instead of per call
+    private static final Gson gson = new Gson();
+
+    // Responses up to this size are sent in one piece with a Content-Length, larger ones are chunked
+    static final int RESPONSE_BUFFER_BYTES = 64 * 1024;
+
     private ServletUtils() {}
 
+    /** Writes the response for the result of a request that is handled asynchronously. */
+    @FunctionalInterface
+    public interface ResponseWriter<T> {
+        /**
+         * @param response Http response.
+         * @param result Result of the request.
+         * @throws IOException If the response cannot be written.
+         */
+        void write(HttpServletResponse response, T result) throws IOException;
+    }
+
     /**
      * @return the value of parameter with the {@code name} in the {@code request}
      *         or returns {@code defaultValue} if that parameter does not exist.
      */
     public static String getStringParameter(HttpServletRequest request, String name, String defaultValue) {
-        String value = request.getParameter(name).trim();
-        if (value == null || value.isEmpty()) {
+        String value = request.getParameter(name);
+        if (value == null || value.trim().isEmpty()) {
             return defaultValue;
         }
-        return value;
+        return value.trim();
     }
 
     /**
@@ -109,9 +156,25 @@ public final class ServletUtils {
      * @return Target item in json format.
      */
     public static <T> String convertToJsonUsingGson(T item) {
-        Gson gson = new Gson();
-        String json = gson.toJson(item);
-        return json;
+        return gson.toJson(item);
+    }
+
+    /**
+     * Writes the target item as the json body of the response.
+     * The json is streamed to the response, without building the whole payload as a string first.
+     *
+     * @param response Http response.
+     * @param item Target item.
+     * @throws IOException If the response cannot be written.
+     */
+    public static <T> void writeJson(HttpServletResponse response, T item) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        OutputStream body = new ContentLengthOutputStream(response);
+        try (JsonWriter jsonWriter = new JsonWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8))) {
+            gson.toJson(item, item.getClass(), jsonWriter);
+        }
     }
 
     /**
@@ -123,8 +186,183 @@ public final class ServletUtils {
      * @return Object in the target class type.
      */
     public static <T> T parseFromJsonUsingGson(String jsonStr, Class<T> classType) {
-        Gson gson = new Gson();
-        T object = gson.fromJson(jsonStr, classType);
-        return object;
+        return gson.fromJson(jsonStr, classType);
+    }
+
+    /**
+     * Converts the already parsed json into the target class type.
+     *
+     * @param json Target json.
+     * @param classType Target class type.
+     * @param <T> Generic format.
+     * @return Object in the target class type.
+     */
+    public static <T> T parseFromJsonUsingGson(JsonElement json, Class<T> classType) {
+        return gson.fromJson(json, classType);
+    }
+
+    /**
+     * Handles the request asynchronously: the container thread is released right away, and the response
+     * is completed once the future is done. A failed future is answered with the status of
+     * {@link #getErrorStatus(Throwable)}, and a future that is not done within the timeout with 504.
+     * The servlet must be declared with {@code asyncSupported = true}.
+     *
+     * @param request Http request.
+     * @param response Http response.
+     * @param future Future of the result of the request.
+     * @param timeoutSeconds Time to wait for the future.
+     * @param responseWriter Writes the response for the result.
+     */
+    public static <T> void respondAsync(HttpServletRequest request, HttpServletResponse response,
+                                        ApiFuture<T> future, long timeoutSeconds,
+                                        ResponseWriter<T> responseWriter) {
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(TimeUnit.SECONDS.toMillis(timeoutSeconds));
+
+        // The future and the container timeout race to complete the request; only the first one does
+        AtomicBoolean responded = new AtomicBoolean(false);
+
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                if (responded.compareAndSet(false, true)) {
+                    log.log(Level.WARNING, "request timed out: " + request.getRequestURI());
+                    response.setStatus(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+                    asyncContext.complete();
+                }
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                if (responded.compareAndSet(false, true)) {
+                    log.log(Level.SEVERE, "request failed: " + request.getRequestURI(), event.getThrowable());
+                    asyncContext.complete();
+                }
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {}
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {}
+        });
+
+        ApiFutures.addCallback(future, new ApiFutureCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                if (!responded.compareAndSet(false, true)) {
+                    return;
+                }
+
+                // Writing may block, so it is done on a container thread instead of the one completing the future
+                asyncContext.start(() -> {
+                    try {
+                        responseWriter.write(response, result);
+                    } catch (IOException | RuntimeException e) {
+                        log.log(Level.SEVERE, "unable to write response: " + request.getRequestURI(), e);
+                        if (!response.isCommitted()) {
+                            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                        }
+                    } finally {
+                        asyncContext.complete();
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                if (!responded.compareAndSet(false, true)) {
+                    return;
+                }
+
+                int status = getErrorStatus(t);
+                log.log(status == HttpServletResponse.SC_BAD_REQUEST ? Level.WARNING : Level.SEVERE,
+                        "request failed: " + request.getRequestURI(), t);
+                response.setStatus(status);
+                asyncContext.complete();
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Returns the status for a failed request: 400 if the request was invalid, 412 if a precondition of a
+     * write did not hold, 504 if it timed out, 503 if the backend is unavailable for now, or else 500.
+     */
+    static int getErrorStatus(Throwable t) {
+        Throwable cause = t;
+        while ((cause instanceof ExecutionException || cause instanceof UncheckedExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        if (cause instanceof IllegalArgumentException) {
+            return HttpServletResponse.SC_BAD_REQUEST;
+        }
+
+        for (Throwable chainedCause : Throwables.getCausalChain(cause)) {
+            if (chainedCause instanceof FailedPreconditionException) {
+                return HttpServletResponse.SC_PRECONDITION_FAILED;
+            }
+
+            if (chainedCause instanceof TimeoutException || chainedCause instanceof DeadlineExceededException) {
+                return HttpServletResponse.SC_GATEWAY_TIMEOUT;
+            }
+
+            if (chainedCause instanceof UnavailableException || chainedCause instanceof ResourceExhaustedException) {
+                return HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+            }
+        }
+
+        return HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+    }
+
+    /**
+     * Holds back the first {@link #RESPONSE_BUFFER_BYTES} of the body, so that a body that fits is sent
+     * with its Content-Length. Once the body outgrows the buffer, it is passed through to the response.
+     * Closing it finishes the body but leaves the response stream open for the container.
+     */
+    private static final class ContentLengthOutputStream extends OutputStream {
+        private final HttpServletResponse response;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        // Null while the body still fits in the buffer
+        @Nullable
+        private OutputStream responseStream;
+
+        private ContentLengthOutputStream(HttpServletResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, /* off= */ 0, /* len= */ 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (responseStream == null) {
+                if (buffer.size() + len <= RESPONSE_BUFFER_BYTES) {
+                    buffer.write(b, off, len);
+                    return;
+                }
+
+                responseStream = response.getOutputStream();
+                buffer.writeTo(responseStream);
+                buffer.reset();
+            }
+
+            responseStream.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (responseStream == null) {
+                response.setContentLength(buffer.size());
+                buffer.writeTo(response.getOutputStream());
+                return;
+            }
+
+            responseStream.flush();
+        }
     }
 }
@@ -6,6 +6,8 @@ export const API = {
   'update-job': '/jobs',
   'get-individual-job': '/jobs',
   'get-job-listings': '/jobs/listings',
+  'get-job-clusters': '/jobs/clusters',
+  'get-title-suggestions': '/jobs/suggest',
   'delete-job': '/jobs/delete',
   'expire-job': '/jobs/expire',
   'business-log-in': '/business-log-in',
@@ -20,7 +20,8 @@ const JOB_STRINGS = AppStrings['job'];
 const JOB_DETAILS_PATH = '../job-details/index.html';
 const HOMEPAGE_PATH = '../index.html';
 
-// TODO(issue/34): implement pagination for job listings
+// Token of the page after the one shown, empty when it is the last page
+let nextPageToken = '';
 
 let map;
 
@@ -44,8 +45,23 @@ async function loadAndDisplayInterestedJobListings() {
     document.getElementById('job-listings-title');
   jobListingsTitle.innerText = STRINGS['job-listings-title'];
 
+  const nextPageButton = document.getElementById('next-page');
+  nextPageButton.innerText = JOB_STRINGS['next-page'];
+  nextPageButton.addEventListener('click', (_) => {
+    loadAndDisplayJobPage(nextPageToken);
+  });
+
+  await loadAndDisplayJobPage(/* pageToken= */ '');
+}
+
+/**
+ * Loads one page of the jobs and shows it in place of the current one.
+ *
+ * @param {string} pageToken The token of the page, empty for the first page.
+ */
+async function loadAndDisplayJobPage(pageToken) {
   const jobPageData =
-    await getInterestedJobs(DEFAULT_PAGE_SIZE, /* pageIndex= */ 0)
+    await getInterestedJobs(DEFAULT_PAGE_SIZE, pageToken)
         .catch((error) => {
           console.error('error fetching job listings', error);
           setErrorMessage(/* errorMessageElementId= */ 'error-message',
@@ -62,19 +78,19 @@ async function loadAndDisplayInterestedJobListings() {
  * This function is called when the interest page is loaded.
  *
  * @param {int} pageSize The number of jobs for one page.
- * @param {int} pageIndex The page index (starting from 0).
+ * @param {string} pageToken The token of the page, empty for the first page.
  * @return {Object} The data returned from the servlet.
  */
-function getInterestedJobs(pageSize, pageIndex) {
+function getInterestedJobs(pageSize, pageToken) {
   // Checks input type
   const pageSizeParam = parseInt(pageSize);
-  const pageIndexParam = parseInt(pageIndex);
 
-  if (Number.isNaN(pageSizeParam) || Number.isNaN(pageIndexParam)) {
+  if (Number.isNaN(pageSizeParam)) {
     throw new Error('Illegal pagination param');
   }
 
-  const params = `pageSize=${pageSizeParam}&pageIndex=${pageIndexParam}`;
+  const params = `pageSize=${pageSizeParam}` +
+    `&pageToken=${encodeURIComponent(pageToken)}`;
 
   return fetch(`${API['applicant-interested-list']}?${params}`, {
     method: 'GET',
@@ -98,10 +114,12 @@ function getInterestedJobs(pageSize, pageIndex) {
 function displayInterestedJobListings(jobPageData) {
   const jobListingsElement = document.getElementById('job-listings');
   const jobShowing = document.getElementById('job-listings-showing');
+  const nextPageButton = document.getElementById('next-page');
 
   /* reset the list so we don't render the same jobs twice */
   jobListingsElement.innerHTML = '';
   jobShowing.innerHTML = '';
+  nextPageButton.hidden = true;
 
   if (jobPageData === undefined ||
     !jobPageData.hasOwnProperty('jobList') ||
@@ -120,8 +138,10 @@ function displayInterestedJobListings(jobPageData) {
 
   jobShowing.innerText = JOB_STRINGS['jobShowing']
       .replace('{MINIMUM}', jobPageData['range'].minimum)
-      .replace('{MAXIMUM}', jobPageData['range'].maximum)
-      .replace('{TOTAL_COUNT}', jobPageData['totalCount']);
+      .replace('{MAXIMUM}', jobPageData['range'].maximum);
+
+  nextPageToken = jobPageData['nextPageToken'];
+  nextPageButton.hidden = !jobPageData['hasMore'];
 }
 
 /**
@@ -19,7 +19,8 @@ const JOB_STRINGS = AppStrings['job'];
 const JOB_DETAILS_PATH = '../job-details/index.html';
 const HOMEPAGE_PATH = '../index.html';
 
-// TODO(issue/34): implement pagination for job listings
+// Token of the page after the one shown, empty when it is the last page
+let nextPageToken = '';
 
 window.onload = () => {
   loadAndDisplayJobListings();
@@ -39,8 +40,23 @@ async function loadAndDisplayJobListings() {
     document.getElementById('job-listings-title');
   jobListingsTitle.innerText = STRINGS['job-listings-title'];
 
+  const nextPageButton = document.getElementById('next-page');
+  nextPageButton.innerText = JOB_STRINGS['next-page'];
+  nextPageButton.addEventListener('click', (_) => {
+    loadAndDisplayJobPage(nextPageToken);
+  });
+
+  await loadAndDisplayJobPage(/* pageToken= */ '');
+}
+
+/**
+ * Loads one page of the jobs and shows it in place of the current one.
+ *
+ * @param {string} pageToken The token of the page, empty for the first page.
+ */
+async function loadAndDisplayJobPage(pageToken) {
   const jobPageData =
-    await getJobsMade(DEFAULT_PAGE_SIZE, /* pageIndex= */ 0)
+    await getJobsMade(DEFAULT_PAGE_SIZE, pageToken)
         .catch((error) => {
           console.error('error fetching job listings', error);
           setErrorMessage(/* errorMessageElementId= */ 'error-message',
@@ -57,19 +73,19 @@ async function loadAndDisplayJobListings() {
  * This function is called when the interest page is loaded.
  *
  * @param {int} pageSize The number of jobs for one page.
- * @param {int} pageIndex The page index (starting from 0).
+ * @param {string} pageToken The token of the page, empty for the first page.
  * @return {Object} The data returned from the servlet.
  */
-function getJobsMade(pageSize, pageIndex) {
+function getJobsMade(pageSize, pageToken) {
   // Checks input type
   const pageSizeParam = parseInt(pageSize);
-  const pageIndexParam = parseInt(pageIndex);
 
-  if (Number.isNaN(pageSizeParam) || Number.isNan(pageIndexParam)) {
+  if (Number.isNaN(pageSizeParam)) {
     throw new Error('Illegal pagination param');
   }
 
-  const params = `pageSize=${pageSizeParam}&pageIndex=${pageIndexParam}`;
+  const params = `pageSize=${pageSizeParam}` +
+    `&pageToken=${encodeURIComponent(pageToken)}`;
 
   return fetch(`${API['business-jobs-list']}?${params}`, {
     method: 'GET',
@@ -93,10 +109,12 @@ function getJobsMade(pageSize, pageIndex) {
 function displayJobListings(jobPageData) {
   const jobListingsElement = document.getElementById('job-listings');
   const jobShowing = document.getElementById('job-listings-showing');
+  const nextPageButton = document.getElementById('next-page');
 
   /* reset the list so we don't render the same jobs twice */
   jobListingsElement.innerHTML = '';
   jobShowing.innerHTML = '';
+  nextPageButton.hidden = true;
 
   if (jobPageData === undefined ||
     !jobPageData.hasOwnProperty('jobList') ||
@@ -115,8 +133,10 @@ function displayJobListings(jobPageData) {
 
   jobShowing.innerText = JOB_STRINGS['jobShowing']
       .replace('{MINIMUM}', jobPageData['range'].minimum)
-      .replace('{MAXIMUM}', jobPageData['range'].maximum)
-      .replace('{TOTAL_COUNT}', jobPageData['totalCount']);
+      .replace('{MAXIMUM}', jobPageData['range'].maximum);
+
+  nextPageToken = jobPageData['nextPageToken'];
+  nextPageButton.hidden = !jobPageData['hasMore'];
 }
 
 /**
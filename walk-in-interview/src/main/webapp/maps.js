@@ -59,6 +59,34 @@ function addMarker(map, job) {
   });
 }
 
+/**
+ * Adds a marker for a cluster of jobs, labelled with how many jobs it has.
+ * Clicking on it zooms the map in on the cluster.
+ *
+ * @param {google.maps.Map} map The map to add the marker to.
+ * @param {Object} cluster The cluster to be added to the marker.
+ * @return {google.maps.Marker} The marker created.
+ */
+function addClusterMarker(map, cluster) {
+  if (map === null) {
+    throw new Error('map should not be null');
+  }
+
+  const position = {lat: cluster['latitude'], lng: cluster['longitude']};
+  const marker = new google.maps.Marker({
+    position: position,
+    map: map,
+    label: String(cluster['count']),
+  });
+
+  marker.addListener('click', () => {
+    map.setCenter(position);
+    map.setZoom(map.getZoom() + 2);
+  });
+
+  return marker;
+}
+
 /**
  * Finds the coordinates based on the Singapore postal code.
  *
@@ -104,4 +132,4 @@ function findCoordinates(postalCode) {
   });
 }
 
-export {createMap, addMarker, findCoordinates, JOB_MAP_ZOOM};
+export {createMap, addMarker, addClusterMarker, findCoordinates, JOB_MAP_ZOOM};
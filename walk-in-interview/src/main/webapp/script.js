@@ -14,7 +14,8 @@ const CurrentLocale = 'en';
 import {AppStrings} from './strings.en.js';
 import {JOB_ID_PARAM, DEFAULT_PAGE_SIZE,
   getRequirementsList, setErrorMessage} from './common-functions.js';
-import {createMap, addMarker} from './maps.js';
+import {createMap, addClusterMarker} from './maps.js';
+import {API} from './apis.js';
 
 const STRINGS = AppStrings['homepage'];
 const LOG_IN_PAGE_PATH = '/log-in/index.html';
@@ -23,6 +24,7 @@ const JOB_DETAILS_PATH = '/job-details/index.html';
 const POSTS_MADE_PATH = '/business-jobs-list/index.html';
 const INTEREST_JOBS_PATH = '/applicant-interested-list/index.html';
 const SALARY_PARAM = 'SALARY';
+const RELEVANCE_PARAM = 'RELEVANCE';
 
 /**
  * Note that this is needed because in JS we can hold bigger Integer
@@ -30,10 +32,23 @@ const SALARY_PARAM = 'SALARY';
  */
 const JAVA_INTEGER_MAX_VALUE = Math.pow(2, 31) - 1;
 
-// TODO(issue/34): implement pagination for job listings
-
 let map;
 
+// Markers of the job clusters in the map view, replaced whenever it changes
+let clusterMarkers = [];
+
+// Number of the latest clusters request, so that an older response is ignored
+let clustersRequest = 0;
+
+// Number of the latest title suggestions request, for the same reason
+let suggestionsRequest = 0;
+
+/** Filters of the listings shown, which the next pages are fetched with. */
+let listingFilters;
+
+// Token of the page after the one shown, empty when it is the last page
+let nextPageToken = '';
+
 window.onload = () => {
   renderHomepageElements();
 };
@@ -80,6 +95,21 @@ function renderHomepageElements() {
 
   renderSelectOptions('show-by-region');
 
+  const searchTextTitle = document.getElementById('search-text-title');
+  searchTextTitle.innerText = STRINGS['search-text-title'];
+
+  const searchText = document.getElementById('search-text');
+  searchText.setAttribute('type', 'search');
+  searchText.setAttribute('placeholder', STRINGS['search-text']);
+  searchText.addEventListener('input', (_) => {
+    loadAndDisplayTitleSuggestions(searchText.value);
+  });
+  searchText.addEventListener('keydown', (event) => {
+    if (event.key === 'Enter') {
+      loadAndDisplayJobListings();
+    }
+  });
+
   const LimitsTitle = document.getElementById('filter-limits-title');
   LimitsTitle.innerText = STRINGS['filter-limits-title'];
 
@@ -97,7 +127,17 @@ function renderHomepageElements() {
     document.getElementById('job-listings-title');
   jobListingsTitle.innerText = STRINGS['job-listings-title'];
 
+  const nextPageButton = document.getElementById('next-page');
+  nextPageButton.innerText = STRINGS['next-page'];
+  nextPageButton.addEventListener('click', (_) => {
+    loadAndDisplayJobPage(nextPageToken);
+  });
+
   map = createMap('homepage-map');
+  /* fires once the map has settled after being panned or zoomed */
+  map.addListener('idle', () => {
+    loadAndDisplayJobClusters();
+  });
 
   loadAndDisplayJobListings();
 
@@ -198,10 +238,12 @@ function renderJobFiltersSubmit() {
 function displayJobListings(jobPageData) {
   const jobListingsElement = document.getElementById('job-listings');
   const jobShowing = document.getElementById('job-listings-showing');
+  const nextPageButton = document.getElementById('next-page');
 
   /* reset the list so we don't render the same jobs twice */
   jobListingsElement.innerHTML = '';
   jobShowing.innerHTML = '';
+  nextPageButton.hidden = true;
 
   if (jobPageData === undefined ||
     !jobPageData.hasOwnProperty('jobList') ||
@@ -219,8 +261,10 @@ function displayJobListings(jobPageData) {
   });
 
   jobShowing.innerText = `${jobPageData['range'].minimum} -` +
-    ` ${jobPageData['range'].maximum} ${STRINGS['job-listings-showing']} ` +
-    `${jobPageData['totalCount']}`;
+    ` ${jobPageData['range'].maximum}`;
+
+  nextPageToken = jobPageData['nextPageToken'];
+  nextPageButton.hidden = !jobPageData['hasMore'];
 }
 
 /**
@@ -281,22 +325,6 @@ function buildJobElement(job) {
     detailsForm.submit();
   });
 
-  const marker = addMarker(map, job);
-  marker.addListener('click', function() {
-    new google.maps.InfoWindow({
-      content: jobPostPreview.innerHTML,
-    }).open(map, marker);
-    // TODO(issue/73): link this to the job in the list?
-  });
-
-  /* double clicking on the marker goes to the job details page */
-  marker.addListener('dblclick', function() {
-    if (jobId === '') {
-      throw new Error('jobId should not be empty');
-    }
-    detailsForm.submit();
-  });
-
   return jobPostPreview;
 }
 
@@ -326,7 +354,9 @@ async function loadAndDisplayJobListings() {
     return;
   }
 
-  const sortByParam = SALARY_PARAM;
+  /* jobs matching the search text are sorted by how well they match it */
+  const searchTextParam = document.getElementById('search-text').value.trim();
+  const sortByParam = searchTextParam === '' ? SALARY_PARAM : RELEVANCE_PARAM;
   const orderByParam = sortingParam.substring(7);
 
   if (Number.isNaN(minLimitParam)) {
@@ -337,9 +367,29 @@ async function loadAndDisplayJobListings() {
     maxLimitParam = JAVA_INTEGER_MAX_VALUE;
   }
 
-  const jobPageData = await getJobListings(regionParam, sortByParam,
-      minLimitParam, maxLimitParam, orderByParam,
-      DEFAULT_PAGE_SIZE, /* pageIndex= */ 0)
+  /* the page token is only valid for the filters it was given for */
+  listingFilters = {
+    region: regionParam,
+    sortBy: sortByParam,
+    minLimit: minLimitParam,
+    maxLimit: maxLimitParam,
+    order: orderByParam,
+    searchText: searchTextParam,
+  };
+
+  await loadAndDisplayJobPage(/* pageToken= */ '');
+}
+
+/**
+ * Loads one page of the job listings for the current filters and shows it
+ * in place of the current one.
+ * @param {String} pageToken The token of the page, empty for the first page.
+ */
+async function loadAndDisplayJobPage(pageToken) {
+  const jobPageData = await getJobListings(listingFilters.region,
+      listingFilters.sortBy, listingFilters.minLimit, listingFilters.maxLimit,
+      listingFilters.order, listingFilters.searchText, DEFAULT_PAGE_SIZE,
+      pageToken)
       .catch((error) => {
         console.error('error fetching job listings', error);
         setErrorMessage(/* errorMessageElementId= */ 'error-message',
@@ -359,15 +409,17 @@ async function loadAndDisplayJobListings() {
  * @param {int} minLimit The lower limit for filtering.
  * @param {int} maxLimit The upper limit for filtering.
  * @param {String} order The order of the sorting.
+ * @param {String} searchText The text to match the jobs against, or empty.
  * @param {int} pageSize The number of jobs for one page.
- * @param {int} pageIndex The page index (starting from 0).
+ * @param {String} pageToken The token of the page, empty for the first page.
  * @return {Object} The data returned from the servlet.
  */
 function getJobListings(region, sortBy, minLimit, maxLimit,
-    order, pageSize, pageIndex) {
+    order, searchText, pageSize, pageToken) {
   const params = `region=${region}&sortBy=${sortBy}&minLimit=${minLimit}&` +
     `maxLimit=${maxLimit}&order=${order}&pageSize=${pageSize}` +
-    `&pageIndex=${pageIndex}`;
+    `&query=${encodeURIComponent(searchText)}` +
+    `&pageToken=${encodeURIComponent(pageToken)}`;
 
   return fetch(`/jobs/listings?${params}`)
       .then((response) => response.json())
@@ -379,3 +431,111 @@ function getJobListings(region, sortBy, minLimit, maxLimit,
         return data;
       });
 }
+
+/**
+ * Shows the clusters of the jobs in the map view, in place of the current
+ * ones. A cluster of a single job goes to its details when double clicked.
+ */
+async function loadAndDisplayJobClusters() {
+  const bounds = map.getBounds();
+  if (bounds === undefined || bounds === null) {
+    return;
+  }
+
+  const request = ++clustersRequest;
+  const clusters = await getJobClusters(bounds, map.getZoom())
+      .catch((error) => {
+        console.error('error fetching job clusters', error);
+      });
+
+  /* the map view changed again while this was being fetched */
+  if (clusters === undefined || request !== clustersRequest) {
+    return;
+  }
+
+  clusterMarkers.forEach((marker) => marker.setMap(null));
+  clusterMarkers = clusters.map((cluster) => {
+    const marker = addClusterMarker(map, cluster);
+
+    if (cluster['count'] === 1) {
+      marker.addListener('dblclick', function() {
+        window.location.href = `${JOB_DETAILS_PATH}?${JOB_ID_PARAM}=` +
+          `${encodeURIComponent(cluster['sampleJobId'])}`;
+      });
+    }
+
+    return marker;
+  });
+}
+
+/**
+ * Makes GET request to retrieve the clusters of the jobs in the map view.
+ * @param {google.maps.LatLngBounds} bounds The bounds of the map view.
+ * @param {int} zoom The zoom of the map.
+ * @return {Array} The clusters returned from the servlet.
+ */
+function getJobClusters(bounds, zoom) {
+  const southWest = bounds.getSouthWest();
+  const northEast = bounds.getNorthEast();
+  const params = `south=${southWest.lat()}&west=${southWest.lng()}&` +
+    `north=${northEast.lat()}&east=${northEast.lng()}&zoom=${zoom}`;
+
+  return fetch(`${API['get-job-clusters']}?${params}`)
+      .then((response) => {
+        if (!response.ok) {
+          throw new Error(`job clusters request failed: ${response.status}`);
+        }
+        return response.json();
+      });
+}
+
+/**
+ * Suggests the job titles starting with the text typed in the search box,
+ * in place of the current suggestions.
+ * @param {String} prefix The text typed so far.
+ */
+async function loadAndDisplayTitleSuggestions(prefix) {
+  const request = ++suggestionsRequest;
+  const suggestionsElement = document.getElementById('title-suggestions');
+
+  if (prefix.trim() === '') {
+    suggestionsElement.innerHTML = '';
+    return;
+  }
+
+  const suggestions = await getTitleSuggestions(prefix.trim())
+      .catch((error) => {
+        console.error('error fetching title suggestions', error);
+      });
+
+  /* more was typed while this was being fetched */
+  if (suggestions === undefined || request !== suggestionsRequest) {
+    return;
+  }
+
+  suggestionsElement.innerHTML = '';
+  suggestions.forEach((suggestion) => {
+    const option = document.createElement('option');
+    option.value = suggestion['title'];
+    option.label = STRINGS['title-suggestion-count']
+        .replace('{COUNT}', suggestion['count']);
+    suggestionsElement.appendChild(option);
+  });
+}
+
+/**
+ * Makes GET request to retrieve the job titles starting with the prefix.
+ * @param {String} prefix The start of the job title.
+ * @return {Array} The suggestions returned from the servlet.
+ */
+function getTitleSuggestions(prefix) {
+  return fetch(`${API['get-title-suggestions']}?` +
+    `prefix=${encodeURIComponent(prefix)}`)
+      .then((response) => {
+        if (!response.ok) {
+          throw new Error('title suggestions request failed: ' +
+            response.status);
+        }
+        return response.json();
+      });
+}
@@ -40,13 +40,16 @@ AppStrings['homepage'] = {
     'NORTH': 'North Singapore',
     'NORTH_EAST': 'North-East Singapore',
   },
+  'search-text-title': 'Search Job Titles (optional)',
+  'search-text': 'e.g. Barista',
+  'title-suggestion-count': '{COUNT} jobs',
   'filter-limits-title': 'Add Limits (optional)',
   'filter-min-limit': 'min (annual pay for salary)',
   'filter-max-limit': 'max (annual pay for salary)',
   'filters-submit': 'Apply Filters',
   'job-listings-title': 'Job Listings:',
   'details': 'Show Details',
-  'job-listings-showing': 'out of',
+  'next-page': 'Next Page',
   'no-jobs-error-message': 'There are no jobs to display at the moment.',
   'get-jobs-error-message': 'An error occurred while getting the job listings.',
   'job-details-error-message': 'An error occurred while getting ' +
@@ -135,7 +138,8 @@ AppStrings['job'] = {
   'jobAddressDescription': '{ADDRESS}, {POSTAL_CODE}',
   'jobPayDescription': '{MIN_PAY} - {MAX_PAY} {CURRENCY} ({FREQUENCY})',
   'requirementsDescription': 'Requirements List: {REQUIREMENTS_LIST}',
-  'jobShowing': '{MINIMUM} - {MAXIMUM} out of {TOTAL_COUNT}',
+  'jobShowing': '{MINIMUM} - {MAXIMUM}',
+  'next-page': 'Next Page',
 };
 
 /**
@@ -158,6 +162,8 @@ AppStrings['update-job'] = {
     'There was an error while loading the job post. Please try again',
   'storing-error-message':
     'There was an error while storing the job post. Please try again',
+  'conflict-error-message':
+    'The job post was changed since it was loaded. Please reload and try again',
 };
 
 /**
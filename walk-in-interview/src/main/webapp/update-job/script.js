@@ -24,10 +24,15 @@ const UPDATE_JOB_STRINGS = AppStrings['update-job'];
 const COMMON_STRINGS = AppStrings['common'];
 const HOMEPAGE_PATH = '../index.html';
 const BAD_REQUEST_STATUS_CODE = 400;
+const PRECONDITION_FAILED_STATUS_CODE = 412;
 
 // Status of this job post, default to be ACTIVE
 let status = 'ACTIVE';
 
+// ETag of the loaded version of this job post, so that the update fails
+// instead of overwriting changes made since then
+let jobVersion = null;
+
 /**
  * Note that this is needed because in JS we can hold bigger Integer
  * values than in Java.
@@ -81,7 +86,10 @@ function loadAndShowJob(jobId) {
     method: 'GET',
     headers: {'Content-Type': 'application/json'},
   })
-      .then((response) => response.json())
+      .then((response) => {
+        jobVersion = response.headers.get('ETag');
+        return response.json();
+      })
       .then((job) => {
         addPrefilledInfo(job);
         // Sets the status of this job post
@@ -443,12 +451,23 @@ submitButton.addEventListener('click', (_) => {
   }
 
   getJobDetailsFromUserInput().then((jobDetails) => {
+    const headers = {'Content-Type': 'application/json'};
+    if (jobVersion !== null) {
+      headers['If-Match'] = jobVersion;
+    }
+
     fetch(API['update-job'], {
       method: 'PATCH',
-      headers: {'Content-Type': 'application/json'},
+      headers: headers,
       body: JSON.stringify(jobDetails),
     })
         .then((response) => {
+          if (response.status == PRECONDITION_FAILED_STATUS_CODE) {
+            setErrorMessage(/* errorMessageElementId= */'error-message',
+                /* msg= */ UPDATE_JOB_STRINGS['conflict-error-message'],
+                /* includesDefault= */false);
+            throw new Error(UPDATE_JOB_STRINGS['storing-error-message']);
+          }
           if (response.status == BAD_REQUEST_STATUS_CODE) {
             setErrorMessage(/* errorMessageElementId= */'error-message',
                 /* msg= */ UPDATE_JOB_STRINGS['storing-error-message'],
@@ -0,0 +1,45 @@
+package com.google.configuration;
+
+import org.junit.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/** Tests for {@link ConfigurationFactory} class. */
+public final class ConfigurationFactoryTest {
+    private static final int THREAD_COUNT = 32;
+
+    @Test
+    public void getFireStoreConfiguration_concurrentFirstCalls_sameInstance() throws Exception {
+        // Arrange.
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<FireStoreConfiguration>> futures = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return ConfigurationFactory.getFireStoreConfiguration();
+            }));
+        }
+
+        // Act.
+        start.countDown();
+
+        List<FireStoreConfiguration> configurations = new ArrayList<>();
+        for (Future<FireStoreConfiguration> future : futures) {
+            configurations.add(future.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // Assert.
+        FireStoreConfiguration expectedConfiguration = ConfigurationFactory.getFireStoreConfiguration();
+        for (FireStoreConfiguration configuration : configurations) {
+            assertSame(expectedConfiguration, configuration);
+        }
+        assertEquals("google.com:walk-in-interview", expectedConfiguration.getProjectId());
+    }
+}
@@ -0,0 +1,249 @@
+package com.google.job.data;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.SettableApiFuture;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/** Tests for {@link ActiveJobsFeed} class. */
+public final class ActiveJobsFeedTest {
+    private static final long LOADED_AT_MILLIS = 1_000_000;
+
+    private List<SettableApiFuture<Map<String, Job>>> loads;
+    private boolean liveUpdates;
+    private Map<String, Job> heldJobsById;
+    private ActiveJobsFeed feed;
+
+    @Before
+    public void setUp() {
+        loads = new ArrayList<>();
+        liveUpdates = false;
+        heldJobsById = new HashMap<>();
+        feed = new ActiveJobsFeed(() -> {
+            SettableApiFuture<Map<String, Job>> load = SettableApiFuture.create();
+            loads.add(load);
+            return load;
+        }, () -> liveUpdates, MoreExecutors.directExecutor());
+        feed.addListener(new ActiveJobsListener() {
+            @Override
+            public void onReload(Map<String, Job> activeJobsById) {
+                heldJobsById = new HashMap<>(activeJobsById);
+            }
+
+            @Override
+            public void onUpsert(String jobId, Job job) {
+                heldJobsById.put(jobId, job);
+            }
+
+            @Override
+            public void onRemove(String jobId) {
+                heldJobsById.remove(jobId);
+            }
+        });
+    }
+
+    @Test
+    public void ensureLoaded_neverLoaded_waitsForLoad() {
+        // Act.
+        ApiFuture<Void> firstLoaded = feed.ensureLoaded(LOADED_AT_MILLIS);
+        ApiFuture<Void> secondLoaded = feed.ensureLoaded(LOADED_AT_MILLIS);
+        boolean doneBeforeLoad = firstLoaded.isDone();
+        loads.get(0).set(ImmutableMap.of("job", createJob()));
+
+        // Assert.
+        assertFalse(doneBeforeLoad);
+        assertSame(firstLoaded, secondLoaded);
+        assertEquals(1, loads.size());
+        assertTrue(firstLoaded.isDone());
+        assertEquals(ImmutableSet.of("job"), heldJobsById.keySet());
+    }
+
+    @Test
+    public void ensureLoaded_stale_servesOldSetWhileReloading() {
+        // Arrange.
+        feed.ensureLoaded(LOADED_AT_MILLIS);
+        loads.get(0).set(ImmutableMap.of("old", createJob()));
+
+        // Act.
+        ApiFuture<Void> loaded = feed.ensureLoaded(LOADED_AT_MILLIS + ActiveJobsFeed.RELOAD_INTERVAL_MILLIS);
+        boolean doneBeforeReload = loaded.isDone();
+        Map<String, Job> heldBeforeReload = heldJobsById;
+        feed.ensureLoaded(LOADED_AT_MILLIS + ActiveJobsFeed.RELOAD_INTERVAL_MILLIS + 1);
+        loads.get(1).set(ImmutableMap.of("new", createJob()));
+
+        // Assert.
+        assertTrue(doneBeforeReload);
+        assertEquals(ImmutableSet.of("old"), heldBeforeReload.keySet());
+        assertEquals(2, loads.size());
+        assertEquals(ImmutableSet.of("new"), heldJobsById.keySet());
+    }
+
+    @Test
+    public void ensureLoaded_liveUpdates_notReloaded() {
+        // Arrange.
+        feed.ensureLoaded(LOADED_AT_MILLIS);
+        loads.get(0).set(ImmutableMap.of());
+        liveUpdates = true;
+
+        // Act.
+        ApiFuture<Void> loaded = feed.ensureLoaded(LOADED_AT_MILLIS + 10 * ActiveJobsFeed.RELOAD_INTERVAL_MILLIS);
+
+        // Assert.
+        assertTrue(loaded.isDone());
+        assertEquals(1, loads.size());
+    }
+
+    @Test
+    public void upsertAndRemove_duringLoad_replayedOverLoadedSet() {
+        // Arrange.
+        feed.ensureLoaded(LOADED_AT_MILLIS);
+
+        // Act.
+        feed.upsert("added", createJob());
+        feed.remove("removed");
+        loads.get(0).set(ImmutableMap.of("kept", createJob(), "removed", createJob()));
+
+        // Assert.
+        assertEquals(ImmutableSet.of("kept", "added"), heldJobsById.keySet());
+    }
+
+    @Test
+    public void addListener_afterReload_startsFromHeldSet() {
+        // Arrange.
+        feed.reload(ImmutableMap.of("job", createJob()));
+        feed.upsert("other", createJob());
+        Map<String, Job> seededJobsById = new HashMap<>();
+
+        // Act.
+        feed.addListener(new ActiveJobsListener() {
+            @Override
+            public void onReload(Map<String, Job> activeJobsById) {
+                seededJobsById.putAll(activeJobsById);
+            }
+
+            @Override
+            public void onUpsert(String jobId, Job job) {}
+
+            @Override
+            public void onRemove(String jobId) {}
+        });
+
+        // Assert.
+        assertEquals(ImmutableSet.of("job", "other"), seededJobsById.keySet());
+        assertTrue(loads.isEmpty());
+    }
+
+    @Test
+    public void removeListener_changesNotPassedOn() {
+        // Arrange.
+        feed.reload(ImmutableMap.of("job", createJob()));
+        Map<String, Job> otherJobsById = new HashMap<>();
+        ActiveJobsListener otherListener = createListener(otherJobsById);
+        feed.addListener(otherListener);
+
+        // Act.
+        feed.removeListener(otherListener);
+        feed.upsert("other", createJob());
+
+        // Assert.
+        assertEquals(ImmutableSet.of("job"), otherJobsById.keySet());
+        assertEquals(ImmutableSet.of("job", "other"), heldJobsById.keySet());
+    }
+
+    @Test
+    public void addListener_reAddedDuringLoad_startsOverFromLoadedSet() {
+        // Arrange.
+        feed.ensureLoaded(LOADED_AT_MILLIS);
+        loads.get(0).set(ImmutableMap.of("old", createJob()));
+        Map<String, Job> otherJobsById = new HashMap<>();
+        ActiveJobsListener otherListener = createListener(otherJobsById);
+        feed.addListener(otherListener);
+        feed.ensureLoaded(LOADED_AT_MILLIS + ActiveJobsFeed.RELOAD_INTERVAL_MILLIS);
+
+        // Act.
+        feed.removeListener(otherListener);
+        feed.addListener(otherListener);
+        feed.upsert("added", createJob());
+        loads.get(1).set(ImmutableMap.of("new", createJob()));
+
+        // Assert.
+        assertEquals(ImmutableSet.of("new", "added"), otherJobsById.keySet());
+        assertEquals(ImmutableSet.of("new", "added"), heldJobsById.keySet());
+    }
+
+    @Test
+    public void addListener_writerDuringSeed_notBlockedAndReplayed() {
+        // Arrange.
+        feed.reload(ImmutableMap.of("job", createJob()));
+        Map<String, Job> otherJobsById = new HashMap<>();
+        ActiveJobsListener seededListener = createListener(otherJobsById);
+        List<Boolean> writerDone = new ArrayList<>();
+
+        // Act.
+        feed.addListener(new ActiveJobsListener() {
+            @Override
+            public void onReload(Map<String, Job> activeJobsById) {
+                seededListener.onReload(activeJobsById);
+
+                // Would wait for the lock forever if the set were handed over while holding it
+                Thread writer = new Thread(() -> feed.upsert("during", createJob()));
+                writer.start();
+                try {
+                    writer.join(/* millis= */ 5_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                writerDone.add(!writer.isAlive());
+            }
+
+            @Override
+            public void onUpsert(String jobId, Job job) {
+                seededListener.onUpsert(jobId, job);
+            }
+
+            @Override
+            public void onRemove(String jobId) {
+                seededListener.onRemove(jobId);
+            }
+        });
+
+        // Assert.
+        assertEquals(ImmutableList.of(true), writerDone);
+        assertEquals(ImmutableSet.of("job", "during"), otherJobsById.keySet());
+    }
+
+    /** Returns a listener that holds the set it is handed in the given map. */
+    private static ActiveJobsListener createListener(Map<String, Job> jobsById) {
+        return new ActiveJobsListener() {
+            @Override
+            public void onReload(Map<String, Job> activeJobsById) {
+                jobsById.clear();
+                jobsById.putAll(activeJobsById);
+            }
+
+            @Override
+            public void onUpsert(String jobId, Job job) {
+                jobsById.put(jobId, job);
+            }
+
+            @Override
+            public void onRemove(String jobId) {
+                jobsById.remove(jobId);
+            }
+        };
+    }
+
+    private static Job createJob() {
+        return TestJobs.newBuilder().build();
+    }
+}
@@ -0,0 +1,175 @@
+package com.google.job.data;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.EventListener;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/** Tests for {@link ActiveJobsReplica} class. */
+public final class ActiveJobsReplicaTest {
+    private static final long READ_TIME_MILLIS = 1_000_000;
+    private static final long MAX_STALENESS_MILLIS = 5_000;
+
+    private List<EventListener<QuerySnapshot>> subscriptions;
+    private List<String> changes;
+    private ActiveJobsReplica replica;
+
+    @Before
+    public void setUp() {
+        subscriptions = new ArrayList<>();
+        changes = new ArrayList<>();
+        replica = new ActiveJobsReplica(listener -> {
+            subscriptions.add(listener);
+            return () -> {};
+        }, createRecordingListener(), MoreExecutors.directExecutor());
+    }
+
+    @Test
+    public void getFreshView_noSnapshot_null() {
+        // Act.
+        replica.start();
+
+        // Assert.
+        assertEquals(1, subscriptions.size());
+        assertNull(replica.getFreshView(MAX_STALENESS_MILLIS, READ_TIME_MILLIS));
+        assertEquals(-1, replica.getLagMillis(READ_TIME_MILLIS));
+    }
+
+    @Test
+    public void apply_incrementalChanges_newViewPublished() {
+        // Arrange.
+        replica.apply(ImmutableMap.of("job1", createVersionedJob(), "job2", createVersionedJob()), ImmutableSet.of(),
+                /* complete= */ true, READ_TIME_MILLIS, READ_TIME_MILLIS + 10);
+        ActiveJobsReplica.View firstView = replica.getFreshView(MAX_STALENESS_MILLIS, READ_TIME_MILLIS + 10);
+
+        // Act.
+        replica.apply(ImmutableMap.of("job3", createVersionedJob()), ImmutableSet.of("job1"),
+                /* complete= */ false, READ_TIME_MILLIS + 100, READ_TIME_MILLIS + 150);
+        ActiveJobsReplica.View secondView = replica.getFreshView(MAX_STALENESS_MILLIS, READ_TIME_MILLIS + 150);
+
+        // Assert.
+        assertEquals(ImmutableSet.of("job1", "job2"), firstView.getJobsById().keySet());
+        assertEquals(ImmutableSet.of("job2", "job3"), secondView.getJobsById().keySet());
+        assertEquals(READ_TIME_MILLIS + 100, secondView.getReadTimeMillis());
+        assertEquals(50, replica.getLagMillis(READ_TIME_MILLIS + 150));
+        assertEquals(Arrays.asList("reload 2", "upsert job3", "remove job1"), changes);
+    }
+
+    @Test
+    public void apply_incrementalChanges_untouchedJobsShared() {
+        // Arrange.
+        VersionedJob keptJob = createVersionedJob();
+        replica.apply(ImmutableMap.of("job1", keptJob, "job2", createVersionedJob()), ImmutableSet.of(),
+                /* complete= */ true, READ_TIME_MILLIS, READ_TIME_MILLIS);
+        ActiveJobsReplica.View firstView = replica.getFreshView(MAX_STALENESS_MILLIS, READ_TIME_MILLIS);
+
+        // Act.
+        replica.apply(ImmutableMap.of(), ImmutableSet.of("job2"),
+                /* complete= */ false, READ_TIME_MILLIS + 100, READ_TIME_MILLIS + 100);
+        ActiveJobsReplica.View secondView = replica.getFreshView(MAX_STALENESS_MILLIS, READ_TIME_MILLIS + 100);
+
+        // Assert.
+        assertSame(keptJob, secondView.getJob("job1"));
+        assertNull(secondView.getJob("job2"));
+        assertNotNull(firstView.getJob("job2"));
+        assertEquals(2, firstView.size());
+        assertEquals(1, secondView.size());
+    }
+
+    @Test
+    public void apply_listenerExecutor_changesPassedOnOutsideApply() {
+        // Arrange.
+        List<Runnable> tasks = new ArrayList<>();
+        replica = new ActiveJobsReplica(listener -> () -> {}, createRecordingListener(), tasks::add);
+
+        // Act.
+        replica.apply(ImmutableMap.of("job1", createVersionedJob()), ImmutableSet.of(),
+                /* complete= */ true, READ_TIME_MILLIS, READ_TIME_MILLIS);
+        replica.apply(ImmutableMap.of("job2", createVersionedJob()), ImmutableSet.of("job1"),
+                /* complete= */ false, READ_TIME_MILLIS + 100, READ_TIME_MILLIS + 100);
+        List<String> changesBeforeTasks = new ArrayList<>(changes);
+        tasks.forEach(Runnable::run);
+
+        // Assert.
+        assertTrue(changesBeforeTasks.isEmpty());
+        assertEquals(Arrays.asList("reload 1", "upsert job2", "remove job1"), changes);
+    }
+
+    @Test
+    public void apply_completeSnapshot_missingJobsRemoved() {
+        // Arrange.
+        replica.apply(ImmutableMap.of("job1", createVersionedJob(), "job2", createVersionedJob()), ImmutableSet.of(),
+                /* complete= */ true, READ_TIME_MILLIS, READ_TIME_MILLIS);
+
+        // Act.
+        replica.apply(ImmutableMap.of("job2", createVersionedJob()), ImmutableSet.of(),
+                /* complete= */ true, READ_TIME_MILLIS + 100, READ_TIME_MILLIS + 100);
+
+        // Assert.
+        assertEquals(ImmutableSet.of("job2"),
+                replica.getFreshView(MAX_STALENESS_MILLIS, READ_TIME_MILLIS + 100).getJobsById().keySet());
+    }
+
+    @Test
+    public void getFreshView_slowSnapshot_null() {
+        // Act.
+        replica.apply(ImmutableMap.of("job1", createVersionedJob()), ImmutableSet.of(),
+                /* complete= */ true, READ_TIME_MILLIS, READ_TIME_MILLIS + MAX_STALENESS_MILLIS + 1);
+
+        // Assert.
+        assertNull(replica.getFreshView(MAX_STALENESS_MILLIS, READ_TIME_MILLIS + MAX_STALENESS_MILLIS + 1));
+    }
+
+    @Test
+    public void getFreshView_stopped_staleOnceOld() {
+        // Arrange.
+        replica.start();
+        replica.apply(ImmutableMap.of("job1", createVersionedJob()), ImmutableSet.of(),
+                /* complete= */ true, READ_TIME_MILLIS, READ_TIME_MILLIS);
+
+        // Act.
+        replica.stop();
+
+        // Assert.
+        assertNotNull(replica.getFreshView(MAX_STALENESS_MILLIS, READ_TIME_MILLIS + MAX_STALENESS_MILLIS));
+        assertNull(replica.getFreshView(MAX_STALENESS_MILLIS, READ_TIME_MILLIS + MAX_STALENESS_MILLIS + 1));
+        assertEquals(MAX_STALENESS_MILLIS + 1, replica.getLagMillis(READ_TIME_MILLIS + MAX_STALENESS_MILLIS + 1));
+    }
+
+    /** Returns a listener that records the changes it receives into {@link #changes}. */
+    private ActiveJobsListener createRecordingListener() {
+        return new ActiveJobsListener() {
+            @Override
+            public void onReload(Map<String, Job> activeJobsById) {
+                changes.add("reload " + activeJobsById.size());
+            }
+
+            @Override
+            public void onUpsert(String jobId, Job job) {
+                changes.add("upsert " + jobId);
+            }
+
+            @Override
+            public void onRemove(String jobId) {
+                changes.add("remove " + jobId);
+            }
+        };
+    }
+
+    private static VersionedJob createVersionedJob() {
+        Job job = TestJobs.newBuilder().build();
+
+        return new VersionedJob(job, Timestamp.ofTimeMicroseconds(TimeUnit.MILLISECONDS.toMicros(READ_TIME_MILLIS)));
+    }
+}
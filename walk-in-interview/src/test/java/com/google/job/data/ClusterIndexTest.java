@@ -0,0 +1,99 @@
+package com.google.job.data;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.*;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** Tests for {@link ClusterIndex} class. */
+public final class ClusterIndexTest {
+    private static final double DELTA = 1e-9;
+
+    // Raffles Place, Singapore
+    private static final double LATITUDE = 1.2840;
+    private static final double LONGITUDE = 103.8514;
+
+    // Bounds of Singapore
+    private static final double NORTH = 1.4775;
+    private static final double SOUTH = 1.1356;
+    private static final double EAST = 104.1215;
+    private static final double WEST = 103.5582;
+
+    private ClusterIndex clusterIndex;
+
+    @Before
+    public void setUp() {
+        clusterIndex = new ClusterIndex();
+        // Two job posts about 110m apart, and one about 17km north of them
+        clusterIndex.onReload(ImmutableMap.of(
+                "raffles2", createJob(LATITUDE + 0.001),
+                "raffles1", createJob(LATITUDE),
+                "woodlands", createJob(LATITUDE + 0.15)));
+    }
+
+    @Test
+    public void getPrecision_zoomedIn_smallerCells() {
+        // Act & Assert.
+        assertEquals(1, ClusterIndex.getPrecision(/* zoom= */ 0));
+        assertEquals(5, ClusterIndex.getPrecision(/* zoom= */ 11));
+        assertEquals(6, ClusterIndex.getPrecision(/* zoom= */ 15));
+        assertEquals(8, ClusterIndex.getPrecision(ClusterIndex.MAX_ZOOM));
+    }
+
+    @Test
+    public void getClusters_zoomedOut_oneCluster() {
+        // Act.
+        List<JobCluster> clusters = clusterIndex.getClusters(SOUTH, WEST, NORTH, EAST, /* zoom= */ 0);
+
+        // Assert.
+        assertEquals(1, clusters.size());
+        JobCluster cluster = clusters.get(0);
+        assertEquals(3, cluster.getCount());
+        assertEquals(LATITUDE + 0.151 / 3, cluster.getLatitude(), DELTA);
+        assertEquals(LONGITUDE, cluster.getLongitude(), DELTA);
+        assertEquals("raffles1", cluster.getSampleJobId());
+    }
+
+    @Test
+    public void getClusters_zoomedIn_clusterPerCell() {
+        // Act.
+        List<JobCluster> clusters = clusterIndex.getClusters(SOUTH, WEST, NORTH, EAST, /* zoom= */ 15);
+
+        // Assert.
+        assertEquals(2, clusters.size());
+        assertEquals(2, clusters.get(0).getCount());
+        assertEquals("raffles1", clusters.get(0).getSampleJobId());
+        assertEquals(1, clusters.get(1).getCount());
+        assertEquals("woodlands", clusters.get(1).getSampleJobId());
+    }
+
+    @Test
+    public void getClusters_outsideView_leftOut() {
+        // Act.
+        List<JobCluster> clusters = clusterIndex.getClusters(
+                /* south= */ LATITUDE + 0.1, WEST, NORTH, EAST, /* zoom= */ 15);
+
+        // Assert.
+        assertEquals(1, clusters.size());
+        assertEquals("woodlands", clusters.get(0).getSampleJobId());
+    }
+
+    @Test
+    public void getClusters_upsertAndRemove_indexUpdated() {
+        // Act.
+        clusterIndex.onRemove("raffles1");
+        clusterIndex.onUpsert("raffles3", createJob(LATITUDE));
+        List<JobCluster> clusters = clusterIndex.getClusters(SOUTH, WEST, NORTH, EAST, /* zoom= */ 0);
+
+        // Assert.
+        assertEquals(1, clusters.size());
+        assertEquals(3, clusters.get(0).getCount());
+        assertEquals("raffles2", clusters.get(0).getSampleJobId());
+    }
+
+    private static Job createJob(double latitude) {
+        return TestJobs.newBuilder().setLatitude(latitude).setLongitude(LONGITUDE).build();
+    }
+}
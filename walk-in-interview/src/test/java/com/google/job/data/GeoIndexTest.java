@@ -0,0 +1,117 @@
+package com.google.job.data;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** Tests for {@link GeoIndex} class. */
+public final class GeoIndexTest {
+    // Raffles Place, Singapore
+    private static final double LATITUDE = 1.2840;
+    private static final double LONGITUDE = 103.8514;
+
+    private GeoIndex geoIndex;
+
+    @Before
+    public void setUp() {
+        geoIndex = new GeoIndex();
+        // About 110m, 1.1km, 5.5km and 22km north of the place
+        geoIndex.onReload(ImmutableMap.of(
+                "near", createJob(LATITUDE + 0.001, SingaporeRegion.CENTRAL, /* monthlyPay= */ 3000),
+                "walking", createJob(LATITUDE + 0.01, SingaporeRegion.CENTRAL, /* monthlyPay= */ 5000),
+                "commuting", createJob(LATITUDE + 0.05, SingaporeRegion.NORTH, /* monthlyPay= */ 3000),
+                "far", createJob(LATITUDE + 0.2, SingaporeRegion.NORTH, /* monthlyPay= */ 3000)));
+    }
+
+    @Test
+    public void findNearest_noMaxDistance_nearestFirst() {
+        // Act.
+        List<GeoIndex.NearbyJob> nearbyJobs = geoIndex.findNearest(
+                LATITUDE, LONGITUDE, Double.MAX_VALUE, job -> true, /* after= */ null, /* limit= */ 10);
+
+        // Assert.
+        assertEquals(Arrays.asList("near", "walking", "commuting", "far"), getJobIds(nearbyJobs));
+        assertEquals(111, nearbyJobs.get(0).getDistanceCentimeters() / 100);
+    }
+
+    @Test
+    public void findNearest_maxDistance_furtherJobsLeftOut() {
+        // Act.
+        List<GeoIndex.NearbyJob> nearbyJobs = geoIndex.findNearest(
+                LATITUDE, LONGITUDE, /* maxDistanceMeters= */ 2000, job -> true, /* after= */ null, /* limit= */ 10);
+
+        // Assert.
+        assertEquals(Arrays.asList("near", "walking"), getJobIds(nearbyJobs));
+    }
+
+    @Test
+    public void findNearest_limitAndAfter_nextJobs() {
+        // Arrange.
+        List<GeoIndex.NearbyJob> firstPage = geoIndex.findNearest(
+                LATITUDE, LONGITUDE, Double.MAX_VALUE, job -> true, /* after= */ null, /* limit= */ 2);
+
+        // Act.
+        List<GeoIndex.NearbyJob> secondPage = geoIndex.findNearest(
+                LATITUDE, LONGITUDE, Double.MAX_VALUE, job -> true, firstPage.get(1), /* limit= */ 2);
+
+        // Assert.
+        assertEquals(Arrays.asList("near", "walking"), getJobIds(firstPage));
+        assertEquals(Arrays.asList("commuting", "far"), getJobIds(secondPage));
+    }
+
+    @Test
+    public void findNearest_filter_onlyMatchingJobs() {
+        // Act.
+        List<GeoIndex.NearbyJob> nearbyJobs = geoIndex.findNearest(LATITUDE, LONGITUDE, Double.MAX_VALUE,
+                job -> job.getJobLocation().getRegion() == SingaporeRegion.NORTH, /* after= */ null, /* limit= */ 10);
+
+        // Assert.
+        assertEquals(Arrays.asList("commuting", "far"), getJobIds(nearbyJobs));
+    }
+
+    @Test
+    public void findNearest_placeOutsideIndexedArea_nearestFirst() {
+        // Act.
+        // About 33km south of the place, so that every job post is many rings away
+        List<GeoIndex.NearbyJob> nearbyJobs = geoIndex.findNearest(
+                LATITUDE - 0.3, LONGITUDE, Double.MAX_VALUE, job -> true, /* after= */ null, /* limit= */ 3);
+
+        // Assert.
+        assertEquals(Arrays.asList("near", "walking", "commuting"), getJobIds(nearbyJobs));
+    }
+
+    @Test
+    public void findNearest_upsertAndRemove_indexUpdated() {
+        // Act.
+        geoIndex.onRemove("near");
+        geoIndex.onUpsert("nearest", createJob(LATITUDE, SingaporeRegion.CENTRAL, /* monthlyPay= */ 3000));
+        List<GeoIndex.NearbyJob> nearbyJobs = geoIndex.findNearest(
+                LATITUDE, LONGITUDE, Double.MAX_VALUE, job -> true, /* after= */ null, /* limit= */ 2);
+
+        // Assert.
+        assertEquals(Arrays.asList("nearest", "walking"), getJobIds(nearbyJobs));
+    }
+
+    private static Job createJob(double latitude, SingaporeRegion region, int monthlyPay) {
+        return TestJobs.newBuilder()
+                .setLatitude(latitude)
+                .setLongitude(LONGITUDE)
+                .setRegion(region)
+                .setMonthlyPay(monthlyPay)
+                .build();
+    }
+
+    private static List<String> getJobIds(List<GeoIndex.NearbyJob> nearbyJobs) {
+        List<String> jobIds = new ArrayList<>();
+        for (GeoIndex.NearbyJob nearbyJob : nearbyJobs) {
+            jobIds.add(nearbyJob.getJobId());
+        }
+
+        return jobIds;
+    }
+}
@@ -0,0 +1,177 @@
+package com.google.job.data;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.SettableApiFuture;
+import com.google.common.collect.ImmutableSet;
+import org.junit.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/** Tests for {@link InterestedJobsWriter} class. */
+public final class InterestedJobsWriterTest {
+    private static final long WINDOW_MILLIS = 200;
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private ScheduledExecutorService scheduler;
+    private List<Write> writes;
+    private List<SettableApiFuture<Void>> writeFutures;
+    private InterestedJobsWriter interestedJobsWriter;
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        writes = new CopyOnWriteArrayList<>();
+        writeFutures = new CopyOnWriteArrayList<>();
+        interestedJobsWriter = new InterestedJobsWriter(scheduler, WINDOW_MILLIS, (applicantId, addedJobIds, removedJobIds) -> {
+            writes.add(new Write(applicantId, addedJobIds, removedJobIds));
+            SettableApiFuture<Void> writeFuture = SettableApiFuture.create();
+            writeFutures.add(writeFuture);
+            return writeFuture;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void update_togglesWithinWindow_mergedIntoOneWrite()
+            throws ExecutionException, InterruptedException, TimeoutException {
+        // Act.
+        ApiFuture<Void> first = interestedJobsWriter.update("applicant", "job1", /* interested= */ true);
+        ApiFuture<Void> second = interestedJobsWriter.update("applicant", "job2", /* interested= */ true);
+        ApiFuture<Void> third = interestedJobsWriter.update("applicant", "job1", /* interested= */ false);
+        awaitWrites(1);
+
+        // Assert.
+        assertEquals(1, writes.size());
+        // job1 ends the window out of the list, as it was before
+        assertEquals(new Write("applicant", ImmutableSet.of("job2"), ImmutableSet.of()), writes.get(0));
+        assertFalse(first.isDone());
+
+        writeFutures.get(0).set(null);
+        first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        second.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        third.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void update_removedThenAddedBackWithinWindow_notWritten() throws InterruptedException {
+        // Act.
+        interestedJobsWriter.update("applicant", "job1", /* interested= */ false);
+        interestedJobsWriter.update("applicant", "job1", /* interested= */ true);
+        interestedJobsWriter.update("applicant", "job2", /* interested= */ false);
+        awaitWrites(1);
+
+        // Assert.
+        // job1 was in the list and still is, so only job2 changes the count
+        assertEquals(new Write("applicant", ImmutableSet.of(), ImmutableSet.of("job2")), writes.get(0));
+    }
+
+    @Test
+    public void update_differentApplicants_separateWrites() throws InterruptedException {
+        // Act.
+        interestedJobsWriter.update("applicant1", "job1", /* interested= */ true);
+        interestedJobsWriter.update("applicant2", "job1", /* interested= */ true);
+        awaitWrites(2);
+
+        // Assert.
+        assertEquals(2, writes.size());
+    }
+
+    @Test
+    public void update_previousWriteInFlight_waitsForIt() throws InterruptedException {
+        // Arrange.
+        interestedJobsWriter.update("applicant", "job1", /* interested= */ true);
+        awaitWrites(1);
+
+        // Act.
+        interestedJobsWriter.update("applicant", "job1", /* interested= */ false);
+        Thread.sleep(WINDOW_MILLIS * 4);
+
+        // Assert.
+        assertEquals(1, writes.size());
+
+        writeFutures.get(0).set(null);
+        awaitWrites(2);
+        assertEquals(new Write("applicant", ImmutableSet.of(), ImmutableSet.of("job1")), writes.get(1));
+    }
+
+    @Test
+    public void update_writeFails_callersFail() throws InterruptedException, TimeoutException {
+        // Arrange.
+        ApiFuture<Void> update = interestedJobsWriter.update("applicant", "job1", /* interested= */ true);
+        awaitWrites(1);
+        IllegalStateException failure = new IllegalStateException("write failed");
+
+        // Act.
+        writeFutures.get(0).setException(failure);
+
+        // Assert.
+        try {
+            update.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            fail("The update should fail with the write");
+        } catch (ExecutionException e) {
+            assertEquals(failure, e.getCause());
+        }
+    }
+
+    private void awaitWrites(int count) throws InterruptedException {
+        long deadlineMillis = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        while (writes.size() < count && System.currentTimeMillis() < deadlineMillis) {
+            Thread.sleep(WINDOW_MILLIS / 5);
+        }
+    }
+
+    private static final class Write {
+        private final String applicantId;
+        private final Set<String> addedJobIds;
+        private final Set<String> removedJobIds;
+
+        Write(String applicantId, Set<String> addedJobIds, Set<String> removedJobIds) {
+            this.applicantId = applicantId;
+            this.addedJobIds = addedJobIds;
+            this.removedJobIds = removedJobIds;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            Write write = (Write) o;
+            return applicantId.equals(write.applicantId) &&
+                    addedJobIds.equals(write.addedJobIds) &&
+                    removedJobIds.equals(write.removedJobIds);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = applicantId.hashCode();
+            result = 31 * result + addedJobIds.hashCode();
+            result = 31 * result + removedJobIds.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Write{applicantId=%s, addedJobIds=%s, removedJobIds=%s}",
+                    applicantId, addedJobIds, removedJobIds);
+        }
+    }
+}
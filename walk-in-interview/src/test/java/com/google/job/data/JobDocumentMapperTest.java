@@ -0,0 +1,123 @@
+package com.google.job.data;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.job.data.Requirement.*;
+import static org.junit.Assert.*;
+
+/** Tests for {@link JobDocumentMapper} class. */
+public final class JobDocumentMapperTest {
+    private static final Job JOB = Job.newBuilder()
+            .setJobId("jobId")
+            .setJobStatus(JobStatus.ACTIVE)
+            .setJobTitle("Software Engineer")
+            .setLocation(new Location("Google", "123456", SingaporeRegion.CENTRAL, 1.3, 103.8))
+            .setJobDescription("Programming using java")
+            .setJobPay(new JobPayment(10, 20, PaymentFrequency.HOURLY))
+            .setRequirements(ImmutableMap.of(O_LEVEL.getRequirementId(), true))
+            .setPostExpiry(1596240000000L)
+            .setJobDuration(JobDuration.ONE_MONTH)
+            .build();
+
+    @Test
+    public void toDocument_job_includesQueriedFields() {
+        // Act.
+        Map<String, Object> data = JobDocumentMapper.toDocument(JOB);
+
+        // Assert.
+        assertEquals("ACTIVE", data.get("jobStatus"));
+        assertEquals(JOB.getJobPay().getAnnualMax(), ((Map<?, ?>) data.get("jobPay")).get("annualMax"));
+        assertEquals("CENTRAL", ((Map<?, ?>) data.get("jobLocation")).get("region"));
+        assertFalse(((Map<?, ?>) data.get("jobLocation")).containsKey("geohash"));
+        assertFalse(data.containsKey("requirementsMask"));
+    }
+
+    @Test
+    public void toJob_documentOfJob_sameJob() {
+        // Act.
+        Job actualJob = JobDocumentMapper.toJob(JobDocumentMapper.toDocument(JOB));
+
+        // Assert.
+        assertEquals(JOB, actualJob);
+    }
+
+    @Test
+    public void toJob_firestoreNumberTypes_success() {
+        // Arrange.
+        // Firestore reads integers back as Long, including whole doubles written by other clients
+        Map<String, Object> data = JobDocumentMapper.toDocument(JOB);
+        Map<String, Object> jobPay = new HashMap<>((Map<String, Object>) data.get("jobPay"));
+        jobPay.put("min", 10L);
+        jobPay.put("max", 20L);
+        Map<String, Object> location = new HashMap<>((Map<String, Object>) data.get("jobLocation"));
+        location.put("latitude", 1L);
+        data.put("jobPay", jobPay);
+        data.put("jobLocation", location);
+
+        // Act.
+        Job actualJob = JobDocumentMapper.toJob(data);
+
+        // Assert.
+        assertEquals(JOB.getJobPay(), actualJob.getJobPay());
+        assertEquals(1, actualJob.getJobLocation().getLatitude(), /* delta= */ 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void toJob_missingJobTitle_throwsException() {
+        // Arrange.
+        Map<String, Object> data = JobDocumentMapper.toDocument(JOB);
+        data.remove("jobTitle");
+
+        // Act.
+        JobDocumentMapper.toJob(data);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void toJob_wrongFieldType_throwsException() {
+        // Arrange.
+        Map<String, Object> data = JobDocumentMapper.toDocument(JOB);
+        data.put("postExpiryTimestamp", "tomorrow");
+
+        // Act.
+        JobDocumentMapper.toJob(data);
+    }
+
+    @Test
+    public void toDocument_jobPatch_onlySetFieldsWithDerivedFields() {
+        // Arrange.
+        JobPayment jobPay = new JobPayment(10, 30, PaymentFrequency.HOURLY);
+        JobPatch jobPatch = JobPatch.newBuilder()
+                .setJobTitle("Data Engineer")
+                .setJobPay(jobPay)
+                .build();
+
+        // Act.
+        Map<String, Object> data = JobDocumentMapper.toDocument(jobPatch);
+
+        // Assert.
+        assertEquals(ImmutableSet.of("jobTitle", "jobPay"), data.keySet());
+        assertEquals("Data Engineer", data.get("jobTitle"));
+        assertEquals(jobPay.getAnnualMax(), ((Map<?, ?>) data.get("jobPay")).get("annualMax"));
+    }
+
+    @Test
+    public void toDocument_jobPatch_patchedJobSameAsPatchedDocument() {
+        // Arrange.
+        JobPatch jobPatch = JobPatch.newBuilder()
+                .setLocation(new Location("Google", "123456", SingaporeRegion.WEST, 1.3, 103.7))
+                .setRequirements(ImmutableMap.of(ENGLISH.getRequirementId(), true))
+                .build();
+        Map<String, Object> data = JobDocumentMapper.toDocument(JOB);
+
+        // Act.
+        data.putAll(JobDocumentMapper.toDocument(jobPatch));
+
+        // Assert.
+        assertEquals(jobPatch.applyTo(JOB), JobDocumentMapper.toJob(data));
+    }
+}
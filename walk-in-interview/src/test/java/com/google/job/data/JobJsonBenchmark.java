@@ -0,0 +1,102 @@
+package com.google.job.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import org.apache.commons.lang3.Range;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.job.data.Requirement.*;
+
+/**
+ * Compares the json adapters of the data classes against Gson's reflective adapters.
+ * Run after {@code mvn test-compile} with
+ * {@code java -cp target/classes:target/test-classes:<test classpath> org.openjdk.jmh.Main JobJsonBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JobJsonBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    // Never registered, so that asking Gson for the adapter after it skips the @JsonAdapter annotations
+    private static final TypeAdapterFactory SKIP_JSON_ADAPTERS = new TypeAdapterFactory() {
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            return null;
+        }
+    };
+
+    private static final List<Class<?>> DATA_CLASSES =
+            ImmutableList.of(Job.class, JobPage.class, Location.class, JobPayment.class);
+
+    private final Gson gson = new Gson();
+
+    // The path used before the adapters existed, including for the nested objects
+    private final Gson reflectiveGson = new GsonBuilder()
+            .registerTypeAdapterFactory(new TypeAdapterFactory() {
+                @Override
+                public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+                    if (!DATA_CLASSES.contains(type.getRawType())) {
+                        return null;
+                    }
+
+                    return gson.getDelegateAdapter(SKIP_JSON_ADAPTERS, type);
+                }
+            })
+            .create();
+
+    private JobPage jobPage;
+    private String jobJson;
+
+    @Setup
+    public void setUp() {
+        ImmutableList.Builder<Job> jobs = ImmutableList.builder();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            jobs.add(Job.newBuilder()
+                    .setJobId("jobId" + i)
+                    .setJobStatus(JobStatus.ACTIVE)
+                    .setJobTitle("Software Engineer " + i)
+                    .setLocation(new Location("Google", "123456", SingaporeRegion.CENTRAL, 1.3, 103.8))
+                    .setJobDescription("Programming using java")
+                    .setJobPay(new JobPayment(10, 20 + i, PaymentFrequency.HOURLY))
+                    .setRequirements(ImmutableMap.of(O_LEVEL.getRequirementId(), true))
+                    .setPostExpiry(1596240000000L)
+                    .setJobDuration(JobDuration.ONE_MONTH)
+                    .build());
+        }
+
+        jobPage = new JobPage(jobs.build(), Range.between(1, PAGE_SIZE));
+        jobJson = gson.toJson(jobPage.getJobList().get(0));
+    }
+
+    @Benchmark
+    public String writeJobPage_typeAdapters() {
+        return gson.toJson(jobPage);
+    }
+
+    @Benchmark
+    public String writeJobPage_reflective() {
+        return reflectiveGson.toJson(jobPage);
+    }
+
+    @Benchmark
+    public Job readJob_typeAdapters() {
+        return gson.fromJson(jobJson, Job.class);
+    }
+
+    @Benchmark
+    public Job readJob_reflective() {
+        return reflectiveGson.fromJson(jobJson, Job.class);
+    }
+}
@@ -0,0 +1,107 @@
+package com.google.job.data;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.lang3.Range;
+import org.junit.*;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/** Tests for {@link JobPageCache} class. */
+public final class JobPageCacheTest {
+    private static final JobPage JOB_PAGE = new JobPage(ImmutableList.of(), Range.between(0, 0));
+
+    private JobPageCache jobPageCache;
+    private AtomicInteger loadCount;
+
+    @Before
+    public void setUp() {
+        jobPageCache = new JobPageCache();
+        loadCount = new AtomicInteger();
+    }
+
+    @Test
+    public void get_sameQueryTwice_loadsOnce() throws ExecutionException, InterruptedException {
+        // Act.
+        JobPage firstPage = jobPageCache.get(new JobQuery().setRegion(SingaporeRegion.WEST), this::load).get();
+        JobPage secondPage = jobPageCache.get(new JobQuery().setRegion(SingaporeRegion.WEST), this::load).get();
+
+        // Assert.
+        assertEquals(JOB_PAGE, firstPage);
+        assertEquals(JOB_PAGE, secondPage);
+        assertEquals(1, loadCount.get());
+        assertEquals(1, jobPageCache.getHitCount());
+        assertEquals(1, jobPageCache.getMissCount());
+    }
+
+    @Test
+    public void get_concurrentMisses_shareOneLoad() throws ExecutionException, InterruptedException {
+        // Arrange.
+        SettableApiFuture<JobPage> pendingLoad = SettableApiFuture.create();
+
+        // Act.
+        ApiFuture<JobPage> firstPage = jobPageCache.get(new JobQuery(), () -> {
+            loadCount.incrementAndGet();
+            return pendingLoad;
+        });
+        ApiFuture<JobPage> secondPage = jobPageCache.get(new JobQuery(), this::load);
+        pendingLoad.set(JOB_PAGE);
+
+        // Assert.
+        assertEquals(JOB_PAGE, firstPage.get());
+        assertEquals(JOB_PAGE, secondPage.get());
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void invalidateRegion_otherRegionsStayCached() throws ExecutionException, InterruptedException {
+        // Arrange.
+        jobPageCache.get(new JobQuery().setRegion(SingaporeRegion.WEST), this::load).get();
+        jobPageCache.get(new JobQuery().setRegion(SingaporeRegion.EAST), this::load).get();
+        jobPageCache.get(new JobQuery().setRegion(SingaporeRegion.ENTIRE), this::load).get();
+
+        // Act.
+        jobPageCache.invalidateRegion(SingaporeRegion.WEST);
+
+        jobPageCache.get(new JobQuery().setRegion(SingaporeRegion.WEST), this::load).get();
+        jobPageCache.get(new JobQuery().setRegion(SingaporeRegion.EAST), this::load).get();
+        jobPageCache.get(new JobQuery().setRegion(SingaporeRegion.ENTIRE), this::load).get();
+
+        // Assert.
+        // WEST and ENTIRE are loaded again, EAST is still cached
+        assertEquals(5, loadCount.get());
+        assertEquals(1, jobPageCache.getHitCount());
+    }
+
+    @Test
+    public void invalidateRegion_duringLoad_laterGetLoadsAgain() throws ExecutionException, InterruptedException {
+        // Arrange.
+        SettableApiFuture<JobPage> staleLoad = SettableApiFuture.create();
+        JobPage freshPage = new JobPage(ImmutableList.of(), Range.between(0, 0), /* nextPageToken= */ "fresh");
+        ApiFuture<JobPage> firstPage = jobPageCache.get(new JobQuery().setRegion(SingaporeRegion.WEST),
+                () -> staleLoad);
+
+        // Act.
+        jobPageCache.invalidateRegion(SingaporeRegion.WEST);
+        ApiFuture<JobPage> secondPage = jobPageCache.get(new JobQuery().setRegion(SingaporeRegion.WEST),
+                () -> ApiFutures.immediateFuture(freshPage));
+        staleLoad.set(JOB_PAGE);
+        JobPage thirdPage = jobPageCache.get(new JobQuery().setRegion(SingaporeRegion.WEST), this::load).get();
+
+        // Assert.
+        assertEquals(JOB_PAGE, firstPage.get());
+        assertEquals(freshPage, secondPage.get());
+        assertEquals(freshPage, thirdPage);
+        assertEquals(0, loadCount.get());
+    }
+
+    private ApiFuture<JobPage> load() {
+        loadCount.incrementAndGet();
+        return ApiFutures.immediateFuture(JOB_PAGE);
+    }
+}
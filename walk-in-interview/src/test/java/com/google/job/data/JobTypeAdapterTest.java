@@ -0,0 +1,95 @@
+package com.google.job.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.apache.commons.lang3.Range;
+import org.junit.*;
+
+import static com.google.job.data.Requirement.*;
+import static org.junit.Assert.*;
+
+/** Tests for {@link JobTypeAdapter} class. */
+public final class JobTypeAdapterTest {
+    private static final Gson gson = new Gson();
+
+    private static final Job JOB = Job.newBuilder()
+            .setJobId("jobId")
+            .setJobStatus(JobStatus.ACTIVE)
+            .setJobTitle("Software Engineer")
+            .setLocation(new Location("Google", "123456", SingaporeRegion.CENTRAL, 1.3, 103.8))
+            .setJobDescription("Programming using java")
+            .setJobPay(new JobPayment(10, 20, PaymentFrequency.HOURLY))
+            .setRequirements(ImmutableMap.of(O_LEVEL.getRequirementId(), true))
+            .setPostExpiry(1596240000000L)
+            .setJobDuration(JobDuration.ONE_MONTH)
+            .build();
+
+    @Test
+    public void toJson_job_writesOnlyJobFields() {
+        // Act.
+        JsonObject json = gson.toJsonTree(JOB).getAsJsonObject();
+
+        // Assert.
+        assertFalse(json.has("hashCode"));
+        assertFalse(json.getAsJsonObject("jobLocation").has("hashCode"));
+        assertFalse(json.getAsJsonObject("jobPay").has("hashCode"));
+        assertEquals("ACTIVE", json.get("jobStatus").getAsString());
+        assertEquals("CENTRAL", json.getAsJsonObject("jobLocation").get("region").getAsString());
+        assertEquals("HOURLY", json.getAsJsonObject("jobPay").get("paymentFrequency").getAsString());
+        assertEquals("ONE_MONTH", json.get("jobDuration").getAsString());
+    }
+
+    @Test
+    public void fromJson_jobJson_sameJob() {
+        // Act.
+        Job actualJob = gson.fromJson(gson.toJson(JOB), Job.class);
+
+        // Assert.
+        assertEquals(JOB, actualJob);
+    }
+
+    @Test
+    public void fromJson_hashCodeAndUnknownFields_ignored() {
+        // Arrange.
+        JsonObject json = gson.toJsonTree(JOB).getAsJsonObject();
+        json.addProperty("hashCode", 42);
+        json.addProperty("unknown", "value");
+        json.getAsJsonObject("jobPay").addProperty("hashCode", 42);
+
+        // Act.
+        Job actualJob = gson.fromJson(json, Job.class);
+
+        // Assert.
+        assertEquals(JOB, actualJob);
+        assertEquals(JOB.hashCode(), actualJob.hashCode());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromJson_unknownPaymentFrequency_throwsException() {
+        // Arrange.
+        JsonObject json = gson.toJsonTree(JOB).getAsJsonObject();
+        json.getAsJsonObject("jobPay").addProperty("paymentFrequency", "DAILY");
+
+        // Act.
+        gson.fromJson(json, Job.class);
+    }
+
+    @Test
+    public void fromJson_jobPageJson_sameJobPage() {
+        // Arrange.
+        JobPage jobPage = new JobPage(ImmutableList.of(JOB),
+                Range.between(/* inclusive= */ 2, /* inclusive= */ 2), /* nextPageToken= */ "token");
+
+        // Act.
+        String json = gson.toJson(jobPage);
+        JobPage actualJobPage = gson.fromJson(json, JobPage.class);
+
+        // Assert.
+        assertEquals(jobPage, actualJobPage);
+        assertEquals(2, gson.toJsonTree(jobPage).getAsJsonObject()
+                .getAsJsonObject("range").get("minimum").getAsInt());
+        assertTrue(gson.toJsonTree(jobPage).getAsJsonObject().get("hasMore").getAsBoolean());
+    }
+}
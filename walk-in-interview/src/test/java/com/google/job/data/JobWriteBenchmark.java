@@ -0,0 +1,107 @@
+package com.google.job.data;
+
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.job.data.Requirement.*;
+
+/**
+ * Compares the latency of editing and deleting a job post with a read-then-write transaction, as
+ * {@link JobsDatabase} used to, against a single update that only succeeds if the job post exists.
+ * Runs against the Firestore emulator so that it never writes to a real project. Start it with
+ * {@code gcloud beta emulators firestore start --host-port=localhost:8080}, then run after {@code mvn test-compile}
+ * with {@code FIRESTORE_EMULATOR_HOST=localhost:8080 java -cp target/classes:target/test-classes:<test classpath>
+ * org.openjdk.jmh.Main JobWriteBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JobWriteBenchmark {
+    private static final String EMULATOR_HOST_ENV = "FIRESTORE_EMULATOR_HOST";
+    private static final String JOB_COLLECTION = "Jobs";
+    private static final String JOB_STATUS_FIELD = "jobStatus";
+
+    private Firestore firestore;
+    private DocumentReference documentReference;
+    private Map<String, Object> jobDocument;
+
+    @Setup
+    public void setUp() throws ExecutionException, InterruptedException {
+        if (System.getenv(EMULATOR_HOST_ENV) == null) {
+            throw new IllegalStateException(EMULATOR_HOST_ENV + " should point to a running Firestore emulator");
+        }
+
+        firestore = FirestoreOptions.newBuilder()
+                .setProjectId("job-write-benchmark")
+                .build()
+                .getService();
+
+        Job job = Job.newBuilder()
+                .setJobStatus(JobStatus.ACTIVE)
+                .setJobTitle("Software Engineer")
+                .setLocation(new Location("Google", "123456", SingaporeRegion.CENTRAL, 1.3, 103.8))
+                .setJobDescription("Programming using java")
+                .setJobPay(new JobPayment(10, 20, PaymentFrequency.HOURLY))
+                .setRequirements(ImmutableMap.of(O_LEVEL.getRequirementId(), true))
+                .setPostExpiry(System.currentTimeMillis())
+                .setJobDuration(JobDuration.ONE_MONTH)
+                .build();
+
+        documentReference = firestore.collection(JOB_COLLECTION).document();
+        jobDocument = JobDocumentMapper.toDocument(job.toBuilder().setJobId(documentReference.getId()).build());
+        documentReference.set(jobDocument).get();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        documentReference.delete().get();
+        firestore.close();
+    }
+
+    @Benchmark
+    public DocumentReference setJob_transaction() throws ExecutionException, InterruptedException {
+        return firestore.runTransaction(transaction -> {
+            DocumentSnapshot documentSnapshot = transaction.get(documentReference).get();
+            if (!documentSnapshot.exists()) {
+                throw new IllegalArgumentException("Invalid jobId");
+            }
+
+            transaction.set(documentReference, jobDocument);
+            return documentReference;
+        }).get();
+    }
+
+    @Benchmark
+    public Object setJob_update() throws ExecutionException, InterruptedException {
+        return documentReference.update(jobDocument).get();
+    }
+
+    @Benchmark
+    public DocumentReference markJobPostAsDeleted_transaction() throws ExecutionException, InterruptedException {
+        return firestore.runTransaction(transaction -> {
+            DocumentSnapshot documentSnapshot = transaction.get(documentReference).get();
+            if (!documentSnapshot.exists()) {
+                throw new IllegalArgumentException("Invalid jobId");
+            }
+
+            transaction.update(documentReference, JOB_STATUS_FIELD, JobStatus.DELETED.getStatusId());
+            return documentReference;
+        }).get();
+    }
+
+    @Benchmark
+    public Object markJobPostAsDeleted_update() throws ExecutionException, InterruptedException {
+        return documentReference.update(JOB_STATUS_FIELD, JobStatus.DELETED.getStatusId()).get();
+    }
+}
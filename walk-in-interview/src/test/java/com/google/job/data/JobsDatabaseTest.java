@@ -1,6 +1,9 @@
 package com.google.job.data;
 
 import com.google.api.core.ApiFuture;
+import com.google.api.gax.rpc.FailedPreconditionException;
+import com.google.cloud.Timestamp;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.cloud.firestore.*;
 import com.google.utils.FireStoreUtils;
@@ -11,6 +14,7 @@ import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.Range;
 
 import static com.google.job.data.Requirement.*;
@@ -21,6 +25,8 @@ public final class JobsDatabaseTest {
     // TODO(issue/15): Add failure test case
 
     private static final String TEST_JOB_COLLECTION = "Jobs";
+    private static final String TEST_APPLICANT_ACCOUNTS_COLLECTION = "ApplicantAccounts";
+    private static final String TEST_APPLICANT_ID = "stressTestApplicant";
     private static final int BATCH_SIZE = 10;
 
     static JobsDatabase jobsDatabase;
@@ -28,10 +34,15 @@ public final class JobsDatabaseTest {
 
     @BeforeClass
     public static void setUp() throws IOException {
-        jobsDatabase = new JobsDatabase();
         firestore = FireStoreUtils.getFireStore();
     }
 
+    @Before
+    public void createJobsDatabase() {
+        // A new instance for every test so that no in-memory index carries over from a previous test
+        jobsDatabase = new JobsDatabase();
+    }
+
     @Before
     public void clearCollection() {
         try {
@@ -110,70 +121,67 @@ public final class JobsDatabaseTest {
     }
 
     @Test
-    public void setJob_normalInput_success() throws ExecutionException, InterruptedException, IOException {
-        JobStatus expectedJobStatus = JobStatus.ACTIVE;
-        String expectedJobName = "Noogler";
-        Location expectedLocation =  new Location(
-                "Google", "123456", SingaporeRegion.ENTIRE, 0, 0);
-        String expectedJobDescription = "New employee";
-        JobPayment expectedJobPayment = new JobPayment(0, 5000, PaymentFrequency.MONTHLY);
-        Map<String, Boolean> expectedRequirements = ImmutableMap.of(
-                                                        DRIVING_LICENSE_C.getRequirementId(), false,
-                                                        O_LEVEL.getRequirementId(), true,
-                                                        ENGLISH.getRequirementId(), true);
-        long expectedPostExpiry = System.currentTimeMillis();
-        JobDuration expectedJobDuration = JobDuration.ONE_MONTH;
-
-        Job oldJob = Job.newBuilder()
-                .setJobStatus(expectedJobStatus)
-                .setJobTitle(expectedJobName)
-                .setLocation(expectedLocation)
-                .setJobDescription(expectedJobDescription)
-                .setJobPay(expectedJobPayment)
-                .setRequirements(expectedRequirements)
-                .setPostExpiry(expectedPostExpiry)
-                .setJobDuration(expectedJobDuration)
-                .build();
-
-        Future<DocumentReference> addedJobFuture = firestore.collection(TEST_JOB_COLLECTION).add(oldJob);
-
-        DocumentReference documentReference = addedJobFuture.get();
-        // Asynchronously retrieve the document.
-        ApiFuture<DocumentSnapshot> future = documentReference.get();
+    public void updateJob_payChanged_otherFieldsKept() throws ExecutionException, InterruptedException, IOException {
+        // Arrange.
+        Job job = createTestJobs(1).get(0);
+        String jobId = jobsDatabase.addJobs(ImmutableList.of(job)).get().get(0).getJobId();
+        JobPayment expectedJobPayment = new JobPayment(10, 30, PaymentFrequency.HOURLY);
 
-        // future.get() blocks on response.
-        DocumentSnapshot document = future.get();
-        String jobId = document.getId();
+        // Act.
+        jobsDatabase.updateJob(jobId, JobPatch.newBuilder().setJobPay(expectedJobPayment).build(),
+                /* expectedUpdateTime= */ null).get();
 
-        expectedJobName = "Googler";
-        Job updatedJob = Job.newBuilder()
+        // Assert.
+        Job expectedJob = job.toBuilder()
                 .setJobId(jobId)
-                .setJobStatus(expectedJobStatus)
-                .setJobTitle(expectedJobName)
-                .setLocation(expectedLocation)
-                .setJobDescription(expectedJobDescription)
                 .setJobPay(expectedJobPayment)
-                .setRequirements(expectedRequirements)
-                .setPostExpiry(expectedPostExpiry)
-                .setJobDuration(expectedJobDuration)
                 .build();
+        DocumentSnapshot document = firestore.collection(TEST_JOB_COLLECTION).document(jobId).get().get();
+        assertEquals(expectedJob, JobDocumentMapper.toJob(document).get());
+    }
+
+    @Test
+    public void updateJob_staleUpdateTime_notWritten() throws ExecutionException, InterruptedException, IOException {
+        // Arrange.
+        Job job = createTestJobs(1).get(0);
+        String jobId = jobsDatabase.addJobs(ImmutableList.of(job)).get().get(0).getJobId();
+        Timestamp staleUpdateTime = jobsDatabase.updateJob(jobId,
+                JobPatch.newBuilder().setJobTitle("First Edit").build(), /* expectedUpdateTime= */ null)
+                .get().getUpdateTime();
+        jobsDatabase.updateJob(jobId, JobPatch.newBuilder().setJobTitle("Second Edit").build(), staleUpdateTime).get();
 
         // Act.
-        Future<DocumentReference> editedDocRefFuture = jobsDatabase.setJob(jobId, updatedJob);
+        ApiFuture<WriteResult> staleUpdate = jobsDatabase.updateJob(jobId,
+                JobPatch.newBuilder().setJobTitle("Stale Edit").build(), staleUpdateTime);
 
         // Assert.
-        // future.get() blocks on response.
-        DocumentReference editedDocRef = editedDocRefFuture.get();
-
-        // Asynchronously retrieve the document.
-        Future<DocumentSnapshot> documentSnapshotFuture = editedDocRef.get();
+        try {
+            staleUpdate.get();
+            fail("the stale edit should not be written");
+        } catch (ExecutionException e) {
+            assertTrue(Throwables.getCausalChain(e).stream()
+                    .anyMatch(cause -> cause instanceof FailedPreconditionException));
+        }
+        DocumentSnapshot document = firestore.collection(TEST_JOB_COLLECTION).document(jobId).get().get();
+        assertEquals("Second Edit", JobDocumentMapper.toJob(document).get().getJobTitle());
+    }
 
-        // future.get() blocks on response.
-        DocumentSnapshot documentSnapshot = documentSnapshotFuture.get();
+    @Test
+    public void updateJob_updateTimeOfFetchedVersion_written()
+            throws ExecutionException, InterruptedException, IOException {
+        // Arrange.
+        Job job = createTestJobs(1).get(0);
+        String jobId = jobsDatabase.addJobs(ImmutableList.of(job)).get().get(0).getJobId();
+        Timestamp fetchedUpdateTime = jobsDatabase.fetchJob(jobId).get().get().getUpdateTime();
 
-        Job actualJob = documentSnapshot.toObject(Job.class);
+        // Act.
+        WriteResult writeResult = jobsDatabase.updateJob(jobId,
+                JobPatch.newBuilder().setJobTitle("Edit").build(), fetchedUpdateTime).get();
 
-        assertEquals(updatedJob, actualJob);
+        // Assert.
+        VersionedJob fetchAfterUpdate = jobsDatabase.fetchJob(jobId).get().get();
+        assertEquals("Edit", fetchAfterUpdate.getJob().getJobTitle());
+        assertEquals(writeResult.getUpdateTime(), fetchAfterUpdate.getUpdateTime());
     }
 
     @Test
@@ -211,6 +219,25 @@ public final class JobsDatabaseTest {
         assertEquals(JobStatus.DELETED, actualJobStatus);
     }
 
+    @Test
+    public void markJobPostAsDeleted_invalidJobId_throwsException()
+            throws ExecutionException, InterruptedException, IOException {
+        // Act.
+        Future<DocumentReference> editedDocRefFuture = jobsDatabase.markJobPostAsDeleted("nonExistentJobId");
+
+        // Assert.
+        try {
+            editedDocRefFuture.get();
+            fail("Marking a job post that does not exist should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+            assertEquals("Invalid jobId", e.getCause().getMessage());
+        }
+
+        // The failed write does not create the job post
+        assertFalse(firestore.collection(TEST_JOB_COLLECTION).document("nonExistentJobId").get().get().exists());
+    }
+
     @Test
     public void fetchJob_normalInput_success() throws ExecutionException, InterruptedException, IOException {
         // Arrange.
@@ -249,14 +276,40 @@ public final class JobsDatabaseTest {
         String jobId = document.getId();
 
         // Act.
-        Optional<Job> jobOptional = jobsDatabase.fetchJob(jobId).get();
+        Optional<VersionedJob> jobOptional = jobsDatabase.fetchJob(jobId).get();
 
         // Assert.
         assertTrue(jobOptional.isPresent());
 
-        Job actualJob = jobOptional.get();
+        Job actualJob = jobOptional.get().getJob();
 
         assertEquals(job, actualJob);
+        assertEquals(document.getUpdateTime(), jobOptional.get().getUpdateTime());
+    }
+
+    @Test
+    public void fetchJob_cachedThenUpdated_returnsUpdatedJob()
+            throws ExecutionException, InterruptedException, IOException {
+        // Arrange.
+        Job job = createTestJobs(1).get(0);
+        DocumentReference documentReference = firestore.collection(TEST_JOB_COLLECTION).add(job).get();
+        String jobId = documentReference.getId();
+
+        Job updatedJob = job.toBuilder().setJobTitle("Senior Programmer").build();
+
+        // Act.
+        Optional<Job> firstFetch = jobsDatabase.fetchJob(jobId).get().map(VersionedJob::getJob);
+        Optional<Job> secondFetch = jobsDatabase.fetchJob(jobId).get().map(VersionedJob::getJob);
+        jobsDatabase.updateJob(jobId, JobPatch.newBuilder().setJobTitle("Senior Programmer").build(),
+                /* expectedUpdateTime= */ null).get();
+        Optional<Job> fetchAfterUpdate = jobsDatabase.fetchJob(jobId).get().map(VersionedJob::getJob);
+
+        // Assert.
+        assertEquals(Optional.of(job), firstFetch);
+        assertEquals(Optional.of(job), secondFetch);
+        assertEquals(Optional.of(updatedJob), fetchAfterUpdate);
+        assertEquals(1, jobsDatabase.getJobCacheStats().hitCount());
+        assertEquals(2, jobsDatabase.getJobCacheStats().missCount());
     }
 
     @Test
@@ -564,7 +617,7 @@ public final class JobsDatabaseTest {
         firestore.collection(TEST_JOB_COLLECTION).add(job6).get();
 
         JobPage expectedJobPage = new JobPage(/* jobList= */ Arrays.asList(job1, job2, job3),
-            /* totalCount= */ 3, Range.between(1, 3));
+            Range.between(1, 3));
 
         // Act
         // sorting is already defaulted to SALARY and ordering is defaulted to DESCENDING
@@ -605,7 +658,7 @@ public final class JobsDatabaseTest {
         firestore.collection(TEST_JOB_COLLECTION).add(job2).get();
 
         JobPage expectedJobPage = new JobPage(/* jobList= */ Arrays.asList(),
-            /* totalCount= */ 0, Range.between(0, 0));
+            Range.between(0, 0));
 
         // Act
         // sorting is already defaulted to SALARY and ordering is defaulted to DESCENDING
@@ -618,6 +671,277 @@ public final class JobsDatabaseTest {
         assertEquals(expectedJobPage, actualJobPage);
     }
 
+    @Test
+    public void fetchJobPage_multiplePages_success() throws ExecutionException, InterruptedException, IOException {
+        // Arrange
+        List<Job> jobs = createTestJobs(3);
+
+        Job job1 = jobs.get(0).toBuilder()
+                        .setJobPay(new JobPayment(0, 5000, PaymentFrequency.WEEKLY))
+                        .build();
+
+        Job job2 = jobs.get(1).toBuilder()
+                        .setJobPay(new JobPayment(0, 4000, PaymentFrequency.WEEKLY))
+                        .build();
+
+        Job job3 = jobs.get(2).toBuilder()
+                        .setJobPay(new JobPayment(0, 3000, PaymentFrequency.WEEKLY))
+                        .build();
+
+        firestore.collection(TEST_JOB_COLLECTION).add(job2).get();
+        firestore.collection(TEST_JOB_COLLECTION).add(job3).get();
+        firestore.collection(TEST_JOB_COLLECTION).add(job1).get();
+
+        // Act
+        JobQuery firstPageQuery = new JobQuery().setPageSize(2);
+        JobPage firstPage = jobsDatabase.fetchJobPage(firstPageQuery).get();
+
+        JobQuery secondPageQuery = new JobQuery().setPageSize(2).setPageToken(firstPage.getNextPageToken());
+        JobPage secondPage = jobsDatabase.fetchJobPage(secondPageQuery).get();
+
+        // Assert
+        assertEquals(Arrays.asList(job1, job2), firstPage.getJobList());
+        assertEquals(Range.between(1, 2), firstPage.getRange());
+        assertTrue(firstPage.hasMore());
+
+        JobPage expectedSecondPage = new JobPage(/* jobList= */ Arrays.asList(job3),
+            Range.between(3, 3));
+        assertEquals(expectedSecondPage, secondPage);
+    }
+
+    @Test
+    public void fetchAllJobsFromIds_multipleChunks_keepsIdOrder()
+            throws ExecutionException, InterruptedException {
+        // Arrange
+        // more than two chunks of ids, so that the chunks are fetched concurrently
+        List<Job> jobs = createTestJobs(25);
+        List<Job> storedJobs = new ArrayList<>();
+        for (Job job : jobs) {
+            DocumentReference documentReference = firestore.collection(TEST_JOB_COLLECTION).document();
+            Job storedJob = job.toBuilder().setJobId(documentReference.getId()).build();
+            documentReference.set(storedJob).get();
+            storedJobs.add(storedJob);
+        }
+
+        Collections.shuffle(storedJobs);
+        List<String> jobIds = new ArrayList<>();
+        for (Job job : storedJobs) {
+            jobIds.add(job.getJobId());
+        }
+
+        // Act
+        List<Job> actualJobs = new JobsDatabase(/* maxInFlightChunks= */ 2).fetchAllJobsFromIds(jobIds).get();
+
+        // Assert
+        assertEquals(storedJobs, actualJobs);
+    }
+
+    @Test
+    public void fetchJobs_missingAndDeletedJobs_success() throws ExecutionException, InterruptedException {
+        // Arrange
+        List<Job> jobs = createTestJobs(2);
+
+        DocumentReference activeJobReference = firestore.collection(TEST_JOB_COLLECTION).document();
+        Job activeJob = jobs.get(0).toBuilder().setJobId(activeJobReference.getId()).build();
+        activeJobReference.set(activeJob).get();
+
+        DocumentReference deletedJobReference = firestore.collection(TEST_JOB_COLLECTION).document();
+        Job deletedJob = jobs.get(1).toBuilder()
+                .setJobId(deletedJobReference.getId())
+                .setJobStatus(JobStatus.DELETED)
+                .build();
+        deletedJobReference.set(deletedJob).get();
+
+        List<String> jobIds = Arrays.asList(deletedJob.getJobId(), "missingJobId", activeJob.getJobId());
+
+        // Act
+        List<Optional<Job>> actualJobs = jobsDatabase.fetchJobs(jobIds).get();
+        List<Job> actualActiveJobs = jobsDatabase.fetchAllJobsFromIds(jobIds).get();
+
+        // Assert
+        assertEquals(Arrays.asList(Optional.of(deletedJob), Optional.empty(), Optional.of(activeJob)), actualJobs);
+        assertEquals(Arrays.asList(activeJob), actualActiveJobs);
+    }
+
+    @Test
+    public void addJobs_multipleBatches_success() throws ExecutionException, InterruptedException, IOException {
+        // Arrange
+        List<Job> jobs = createTestJobs(1200);
+
+        // Act
+        List<JobWriteResult> results = jobsDatabase.addJobs(jobs).get();
+
+        // Assert
+        assertEquals(jobs.size(), results.size());
+
+        List<String> jobIds = new ArrayList<>();
+        for (JobWriteResult result : results) {
+            assertTrue(result.isSuccess());
+            jobIds.add(result.getJobId());
+        }
+
+        List<Optional<Job>> storedJobs = jobsDatabase.fetchJobs(jobIds).get();
+        for (int i = 0; i < jobs.size(); i++) {
+            Job expectedJob = jobs.get(i).toBuilder().setJobId(jobIds.get(i)).build();
+            assertEquals(Optional.of(expectedJob), storedJobs.get(i));
+        }
+    }
+
+    @Test
+    public void expireJobs_expiredAndUnexpiredJobs_onlyExpiredJobsMarked()
+            throws ExecutionException, InterruptedException, IOException {
+        // Arrange
+        long now = System.currentTimeMillis();
+        List<Job> jobs = createTestJobs(2);
+        Job expiredJob = jobs.get(0).toBuilder().setPostExpiry(now - 1000).build();
+        Job unexpiredJob = jobs.get(1).toBuilder().setPostExpiry(now + TimeUnit.DAYS.toMillis(1)).build();
+
+        List<JobWriteResult> results = jobsDatabase.addJobs(Arrays.asList(expiredJob, unexpiredJob)).get();
+        String expiredJobId = results.get(0).getJobId();
+        String unexpiredJobId = results.get(1).getJobId();
+
+        // Act
+        int expiredCount = jobsDatabase.expireJobs(now).get();
+
+        // Assert
+        assertEquals(1, expiredCount);
+        assertEquals(0, jobsDatabase.getExpirySweepLagMillis());
+
+        List<Optional<Job>> storedJobs = jobsDatabase.fetchJobs(Arrays.asList(expiredJobId, unexpiredJobId)).get();
+        assertEquals(JobStatus.EXPIRED, storedJobs.get(0).get().getJobStatus());
+        assertEquals(JobStatus.ACTIVE, storedJobs.get(1).get().getJobStatus());
+    }
+
+    @Test
+    public void warmUp_calledTwice_warmsUpOnce()throws ExecutionException, InterruptedException {
+        // Act
+        ApiFuture<Void> firstWarmUp = jobsDatabase.warmUp();
+        ApiFuture<Void> secondWarmUp = jobsDatabase.warmUp();
+        firstWarmUp.get();
+
+        // Assert
+        assertSame(firstWarmUp, secondWarmUp);
+        assertSame(firstWarmUp, jobsDatabase.warmUp());
+    }
+
+    @Test
+    public void fetchInterestedJobPage_manyRequestsInFlight_noCallbackThreadBlocked()
+            throws ExecutionException, InterruptedException, IOException {
+        // Arrange
+        int jobCount = 30;
+        int inFlightRequests = 200;
+        List<Job> jobs = createTestJobs(jobCount);
+        List<String> jobIds = new ArrayList<>();
+        for (Job job : jobs) {
+            DocumentReference documentReference = firestore.collection(TEST_JOB_COLLECTION).document();
+            documentReference.set(job.toBuilder().setJobId(documentReference.getId()).build()).get();
+            jobIds.add(documentReference.getId());
+        }
+
+        DocumentReference applicantReference =
+                firestore.collection(TEST_APPLICANT_ACCOUNTS_COLLECTION).document(TEST_APPLICANT_ID);
+        applicantReference.set(ImmutableMap.of("interestedJobs", jobIds)).get();
+
+        try {
+            // Act
+            List<Future<JobPage>> interestedPages = new ArrayList<>();
+            for (int i = 0; i < inFlightRequests; i++) {
+                interestedPages.add(jobsDatabase.fetchInterestedJobPage(TEST_APPLICANT_ID, jobCount, /* pageToken= */ ""));
+            }
+
+            // Looks at every thread until the last request is done, instead of comparing latencies
+            Set<String> blockedCalls = new HashSet<>();
+            for (Future<JobPage> interestedPage : interestedPages) {
+                while (!interestedPage.isDone()) {
+                    blockedCalls.addAll(findBlockedJobsDatabaseCalls());
+                }
+            }
+
+            // Assert
+            for (Future<JobPage> interestedPage : interestedPages) {
+                assertEquals(jobCount, interestedPage.get().getJobList().size());
+            }
+
+            // No thread waits inside the database code, so the callback threads are never held up
+            assertEquals(Collections.emptySet(), blockedCalls);
+        } finally {
+            applicantReference.delete().get();
+        }
+    }
+
+    @Test
+    public void updateInterestedJobsList_legacyInterestedList_migratedAndPaged()
+            throws ExecutionException, InterruptedException, IOException {
+        // Arrange
+        List<String> jobIds = new ArrayList<>();
+        for (JobWriteResult result : jobsDatabase.addJobs(createTestJobs(4)).get()) {
+            jobIds.add(result.getJobId());
+        }
+
+        DocumentReference applicantReference =
+                firestore.collection(TEST_APPLICANT_ACCOUNTS_COLLECTION).document(TEST_APPLICANT_ID);
+        applicantReference.set(ImmutableMap.of("interestedJobs", jobIds.subList(0, 3))).get();
+
+        try {
+            // Act
+            // Adds the last job and removes the first one, the applicant not being interested in it yet or anymore
+            jobsDatabase.updateInterestedJobsList(TEST_APPLICANT_ID, jobIds.get(3), /* interested= */ false).get();
+            jobsDatabase.updateInterestedJobsList(TEST_APPLICANT_ID, jobIds.get(0), /* interested= */ true).get();
+
+            JobPage firstPage = jobsDatabase.fetchInterestedJobPage(
+                    TEST_APPLICANT_ID, /* pageSize= */ 2, /* pageToken= */ "").get();
+            JobPage secondPage = jobsDatabase.fetchInterestedJobPage(
+                    TEST_APPLICANT_ID, /* pageSize= */ 2, firstPage.getNextPageToken()).get();
+
+            // Assert
+            DocumentSnapshot applicantSnapshot = applicantReference.get().get();
+            assertNull(applicantSnapshot.get("interestedJobs"));
+            assertEquals(3L, (long) applicantSnapshot.getLong("interestedJobsCount"));
+
+            // The most recently added first
+            assertEquals(Arrays.asList(jobIds.get(3), jobIds.get(2)), getJobIds(firstPage));
+            assertTrue(firstPage.hasMore());
+            assertEquals(Arrays.asList(jobIds.get(1)), getJobIds(secondPage));
+            assertFalse(secondPage.hasMore());
+        } finally {
+            deleteCollection(applicantReference.collection("InterestedJobs"), BATCH_SIZE);
+            applicantReference.delete().get();
+        }
+    }
+
+    private static List<String> getJobIds(JobPage jobPage) {
+        List<String> jobIds = new ArrayList<>();
+        for (Job job : jobPage.getJobList()) {
+            jobIds.add(job.getJobId());
+        }
+
+        return jobIds;
+    }
+
+    /**
+     * Returns the threads, other than this one, that are waiting while in {@link JobsDatabase} code,
+     * along with the frame they wait in.
+     */
+    private static Set<String> findBlockedJobsDatabaseCalls() {
+        Set<String> blockedCalls = new HashSet<>();
+        for (Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet()) {
+            Thread thread = entry.getKey();
+            if (thread == Thread.currentThread() || (thread.getState() != Thread.State.WAITING
+                    && thread.getState() != Thread.State.TIMED_WAITING)) {
+                continue;
+            }
+
+            for (StackTraceElement frame : entry.getValue()) {
+                if (frame.getClassName().startsWith(JobsDatabase.class.getName())) {
+                    blockedCalls.add(thread.getName() + " at " + frame);
+                    break;
+                }
+            }
+        }
+
+        return blockedCalls;
+    }
+
     private Job requirementFileterTestJobDataCreation(JobStatus jobStatus, Map<String, Boolean> requirements)
             throws ExecutionException, InterruptedException {
         String jobName = "Programmer";
@@ -0,0 +1,112 @@
+package com.google.job.data;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** Tests for {@link ListingIndex} class. */
+public final class ListingIndexTest {
+    private ListingIndex listingIndex;
+
+    @Before
+    public void setUp() {
+        listingIndex = new ListingIndex();
+        listingIndex.onReload(ImmutableMap.of(
+                "central1", createJob(SingaporeRegion.CENTRAL, /* monthlyPay= */ 3000),
+                "central2", createJob(SingaporeRegion.CENTRAL, /* monthlyPay= */ 3000),
+                "east", createJob(SingaporeRegion.EAST, /* monthlyPay= */ 1000),
+                "west", createJob(SingaporeRegion.WEST, /* monthlyPay= */ 5000),
+                "north", createJob(SingaporeRegion.NORTH, /* monthlyPay= */ 2000)));
+    }
+
+    @Test
+    public void getPage_ascending_lowestPaidFirst() {
+        // Act.
+        List<ListingIndex.ListedJob> page = listingIndex.getPage(SingaporeRegion.ENTIRE, 0, Long.MAX_VALUE,
+                Order.ASCENDING, /* after= */ null, /* offset= */ 0, /* limit= */ 10);
+
+        // Assert.
+        assertEquals(Arrays.asList("east", "north", "central1", "central2", "west"), getJobIds(page));
+        assertEquals(12_000, page.get(0).getSalary());
+    }
+
+    @Test
+    public void getPage_descending_highestPaidFirstAndIdsDescending() {
+        // Act.
+        List<ListingIndex.ListedJob> page = listingIndex.getPage(SingaporeRegion.ENTIRE, 0, Long.MAX_VALUE,
+                Order.DESCENDING, /* after= */ null, /* offset= */ 0, /* limit= */ 10);
+
+        // Assert.
+        assertEquals(Arrays.asList("west", "central2", "central1", "north", "east"), getJobIds(page));
+    }
+
+    @Test
+    public void getPage_salaryLimitsAndRegion_onlyMatchingJobs() {
+        // Act.
+        List<ListingIndex.ListedJob> entirePage = listingIndex.getPage(SingaporeRegion.ENTIRE, 24_000, 36_000,
+                Order.ASCENDING, /* after= */ null, /* offset= */ 0, /* limit= */ 10);
+        List<ListingIndex.ListedJob> centralPage = listingIndex.getPage(SingaporeRegion.CENTRAL, 0, Long.MAX_VALUE,
+                Order.DESCENDING, /* after= */ null, /* offset= */ 0, /* limit= */ 10);
+
+        // Assert.
+        assertEquals(Arrays.asList("north", "central1", "central2"), getJobIds(entirePage));
+        assertEquals(Arrays.asList("central2", "central1"), getJobIds(centralPage));
+    }
+
+    @Test
+    public void getPage_offsetAndCursor_samePages() {
+        for (Order order : Order.values()) {
+            // Arrange.
+            List<ListingIndex.ListedJob> firstPage = listingIndex.getPage(SingaporeRegion.ENTIRE, 0, Long.MAX_VALUE,
+                    order, /* after= */ null, /* offset= */ 0, /* limit= */ 2);
+
+            // Act.
+            List<ListingIndex.ListedJob> pageByCursor = listingIndex.getPage(SingaporeRegion.ENTIRE, 0,
+                    Long.MAX_VALUE, order, firstPage.get(1), /* offset= */ 0, /* limit= */ 2);
+            List<ListingIndex.ListedJob> pageByOffset = listingIndex.getPage(SingaporeRegion.ENTIRE, 0,
+                    Long.MAX_VALUE, order, /* after= */ null, /* offset= */ 2, /* limit= */ 2);
+
+            // Assert.
+            assertEquals(getJobIds(pageByOffset), getJobIds(pageByCursor));
+        }
+    }
+
+    @Test
+    public void getPage_upsertAndRemove_indexPatched() {
+        // Act.
+        listingIndex.onRemove("east");
+        listingIndex.onUpsert("west", createJob(SingaporeRegion.CENTRAL, /* monthlyPay= */ 500));
+        listingIndex.onUpsert("south", createJob(SingaporeRegion.NORTH_EAST, /* monthlyPay= */ 4000));
+        listingIndex.onRemove("unknown");
+
+        // Assert.
+        assertEquals(Arrays.asList("west", "north", "central1", "central2", "south"),
+                getJobIds(listingIndex.getPage(SingaporeRegion.ENTIRE, 0, Long.MAX_VALUE, Order.ASCENDING,
+                        /* after= */ null, /* offset= */ 0, /* limit= */ 10)));
+        assertEquals(Arrays.asList("west", "central1", "central2"),
+                getJobIds(listingIndex.getPage(SingaporeRegion.CENTRAL, 0, Long.MAX_VALUE, Order.ASCENDING,
+                        /* after= */ null, /* offset= */ 0, /* limit= */ 10)));
+        assertTrue(listingIndex.getPage(SingaporeRegion.WEST, 0, Long.MAX_VALUE, Order.ASCENDING,
+                /* after= */ null, /* offset= */ 0, /* limit= */ 10).isEmpty());
+        assertTrue(listingIndex.getPage(SingaporeRegion.EAST, 0, Long.MAX_VALUE, Order.ASCENDING,
+                /* after= */ null, /* offset= */ 0, /* limit= */ 10).isEmpty());
+    }
+
+    private static Job createJob(SingaporeRegion region, int monthlyPay) {
+        return TestJobs.newBuilder().setRegion(region).setMonthlyPay(monthlyPay).build();
+    }
+
+    private static List<String> getJobIds(List<ListingIndex.ListedJob> listedJobs) {
+        List<String> jobIds = new ArrayList<>();
+        for (ListingIndex.ListedJob listedJob : listedJobs) {
+            jobIds.add(listedJob.getJobId());
+        }
+
+        return jobIds;
+    }
+}
@@ -0,0 +1,43 @@
+package com.google.job.data;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+/** Tests for {@link PageToken} class. */
+public final class PageTokenTest {
+    @Test
+    public void decode_encodedForSameQuery_sameToken() {
+        // Arrange.
+        JobQuery jobQuery = new JobQuery().setRegion(SingaporeRegion.WEST).setMinLimit(1000);
+        String token = new PageToken(jobQuery.getQueryHash(), /* offset= */ 20, /* lastValue= */ 52000,
+                /* lastDocumentId= */ "job:1").encode();
+
+        // Act.
+        // A query for the next page differs only by its page size and token
+        PageToken pageToken = PageToken.decode(token,
+                jobQuery.copy().setPageSize(10).setPageToken(token).getQueryHash());
+
+        // Assert.
+        assertEquals(20, pageToken.getOffset());
+        assertEquals(52000, pageToken.getLastValue());
+        assertEquals("job:1", pageToken.getLastDocumentId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_otherOrder_throwsException() {
+        // Arrange.
+        JobQuery jobQuery = new JobQuery().setOrder(Order.DESCENDING);
+        String token = new PageToken(jobQuery.getQueryHash(), /* offset= */ 20, /* lastValue= */ 52000,
+                /* lastDocumentId= */ "job").encode();
+
+        // Act.
+        PageToken.decode(token, jobQuery.copy().setOrder(Order.ASCENDING).getQueryHash());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_malformedToken_throwsException() {
+        // Act.
+        PageToken.decode("not a token", new JobQuery().getQueryHash());
+    }
+}
@@ -0,0 +1,68 @@
+package com.google.job.data;
+
+import com.google.common.collect.ImmutableMap;
+
+/** Builds ACTIVE job posts for tests, with only the fields a test cares about set. */
+public final class TestJobs {
+    private TestJobs() {}
+
+    /** Returns a builder of a software engineer job post in the central region, paying 3000 a month. */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /** Builder of a job post for tests. */
+    public static final class Builder {
+        private SingaporeRegion region = SingaporeRegion.CENTRAL;
+        private int monthlyPay = 3000;
+        private double latitude = 1.3;
+        private double longitude = 103.8;
+        private String jobTitle = "Software Engineer";
+        private String jobDescription = "Programming using java";
+
+        private Builder() {}
+
+        public Builder setRegion(SingaporeRegion region) {
+            this.region = region;
+            return this;
+        }
+
+        public Builder setMonthlyPay(int monthlyPay) {
+            this.monthlyPay = monthlyPay;
+            return this;
+        }
+
+        public Builder setLatitude(double latitude) {
+            this.latitude = latitude;
+            return this;
+        }
+
+        public Builder setLongitude(double longitude) {
+            this.longitude = longitude;
+            return this;
+        }
+
+        public Builder setJobTitle(String jobTitle) {
+            this.jobTitle = jobTitle;
+            return this;
+        }
+
+        public Builder setJobDescription(String jobDescription) {
+            this.jobDescription = jobDescription;
+            return this;
+        }
+
+        public Job build() {
+            return Job.newBuilder()
+                    .setJobStatus(JobStatus.ACTIVE)
+                    .setJobTitle(jobTitle)
+                    .setLocation(new Location("Google", "123456", region, latitude, longitude))
+                    .setJobDescription(jobDescription)
+                    .setJobPay(new JobPayment(0, monthlyPay, PaymentFrequency.MONTHLY))
+                    .setRequirements(ImmutableMap.of())
+                    .setPostExpiry(System.currentTimeMillis())
+                    .setJobDuration(JobDuration.ONE_MONTH)
+                    .build();
+        }
+    }
+}
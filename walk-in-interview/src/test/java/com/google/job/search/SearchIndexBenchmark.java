@@ -0,0 +1,78 @@
+package com.google.job.search;
+
+import com.google.job.data.Job;
+import com.google.job.data.SingaporeRegion;
+import com.google.job.data.TestJobs;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a search of the {@link SearchIndex} over 100k job posts, and prints its estimated memory use.
+ * Run after {@code mvn test-compile} with
+ * {@code java -cp target/classes:target/test-classes:<test classpath> org.openjdk.jmh.Main SearchIndexBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchIndexBenchmark {
+    private static final int JOB_COUNT = 100_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int DESCRIPTION_WORDS = 30;
+    private static final int VOCABULARY_SIZE = 5000;
+
+    private static final String[] TITLES = {"Software Engineer", "Barista", "Cashier", "Tester", "Waiter",
+            "Delivery Driver", "Tutor", "Sales Assistant", "Cleaner", "Receptionist"};
+
+    private SearchIndex searchIndex;
+
+    @Setup
+    public void setUp() {
+        // Words drawn from a vocabulary of a few thousand, the smaller numbers much more often like real text
+        Random random = new Random(42);
+        Map<String, Job> jobsById = new HashMap<>();
+        for (int i = 0; i < JOB_COUNT; i++) {
+            StringBuilder description = new StringBuilder();
+            for (int j = 0; j < DESCRIPTION_WORDS; j++) {
+                description.append("word").append(random.nextInt(1 + random.nextInt(VOCABULARY_SIZE))).append(' ');
+            }
+
+            String title = TITLES[random.nextInt(TITLES.length)];
+            SingaporeRegion region = SingaporeRegion.values()[1 + random.nextInt(SingaporeRegion.values().length - 1)];
+            jobsById.put("job" + i, TestJobs.newBuilder()
+                    .setJobTitle(title)
+                    .setJobDescription(description.toString())
+                    .setRegion(region)
+                    .build());
+        }
+
+        searchIndex = new SearchIndex();
+        searchIndex.onReload(jobsById);
+
+        System.out.printf("%nsearch index: %d terms in %d KB%n",
+                searchIndex.getTermCount(), searchIndex.getMemoryBytes() / 1024);
+    }
+
+    @Benchmark
+    public List<SearchIndex.ScoredJob> searchRareTerm() {
+        return searchIndex.search("word3481", job -> true, /* after= */ null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<SearchIndex.ScoredJob> searchCommonTerms() {
+        return searchIndex.search("software engineer word1", job -> true, /* after= */ null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<SearchIndex.ScoredJob> searchWithRegionFilter() {
+        return searchIndex.search("barista word4",
+                job -> job.getJobLocation().getRegion() == SingaporeRegion.CENTRAL, /* after= */ null, PAGE_SIZE);
+    }
+}
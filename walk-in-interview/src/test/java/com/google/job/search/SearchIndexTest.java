@@ -0,0 +1,129 @@
+package com.google.job.search;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.job.data.*;
+import org.junit.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** Tests for {@link SearchIndex} class. */
+public final class SearchIndexTest {
+    private SearchIndex searchIndex;
+
+    @Before
+    public void setUp() {
+        searchIndex = new SearchIndex();
+        searchIndex.onReload(ImmutableMap.of(
+                "engineer", createJob("Software Engineer", "Programming using java", SingaporeRegion.CENTRAL),
+                "barista", createJob("Barista", "Making coffee for the customers", SingaporeRegion.EAST),
+                "tester", createJob("Tester", "Testing software written in java", SingaporeRegion.WEST),
+                "cashier", createJob("Cashier", "Serving customers at the counter", SingaporeRegion.EAST)));
+    }
+
+    @Test
+    public void search_titleMatch_rankedAboveDescriptionMatch() {
+        // Act.
+        List<SearchIndex.ScoredJob> scoredJobs = searchIndex.search(
+                "software", job -> true, /* after= */ null, /* limit= */ 10);
+
+        // Assert.
+        assertEquals(Arrays.asList("engineer", "tester"), getJobIds(scoredJobs));
+        assertTrue(scoredJobs.get(0).getScore() > scoredJobs.get(1).getScore());
+    }
+
+    @Test
+    public void search_moreTermsMatched_rankedHigher() {
+        // Act.
+        List<SearchIndex.ScoredJob> scoredJobs = searchIndex.search(
+                "Java SOFTWARE tester", job -> true, /* after= */ null, /* limit= */ 10);
+
+        // Assert.
+        assertEquals(Arrays.asList("tester", "engineer"), getJobIds(scoredJobs));
+    }
+
+    @Test
+    public void search_filter_onlyMatchingJobs() {
+        // Act.
+        List<SearchIndex.ScoredJob> scoredJobs = searchIndex.search("customers",
+                job -> job.getJobLocation().getRegion() == SingaporeRegion.EAST, /* after= */ null, /* limit= */ 10);
+
+        // Assert.
+        assertEquals(2, scoredJobs.size());
+    }
+
+    @Test
+    public void search_limitAndAfter_nextJobs() {
+        // Arrange.
+        List<SearchIndex.ScoredJob> firstPage = searchIndex.search(
+                "customers java", job -> true, /* after= */ null, /* limit= */ 2);
+
+        // Act.
+        List<SearchIndex.ScoredJob> secondPage = searchIndex.search(
+                "customers java", job -> true, firstPage.get(1), /* limit= */ 2);
+
+        // Assert.
+        assertEquals(2, firstPage.size());
+        assertEquals(2, secondPage.size());
+        List<String> jobIds = getJobIds(firstPage);
+        jobIds.addAll(getJobIds(secondPage));
+        assertEquals(4, jobIds.stream().distinct().count());
+    }
+
+    @Test
+    public void search_stopWordsOnly_noJobs() {
+        // Act.
+        List<SearchIndex.ScoredJob> scoredJobs = searchIndex.search(
+                "the and", job -> true, /* after= */ null, /* limit= */ 10);
+
+        // Assert.
+        assertTrue(scoredJobs.isEmpty());
+    }
+
+    @Test
+    public void search_upsertAndRemove_indexUpdated() {
+        // Act.
+        searchIndex.onRemove("barista");
+        searchIndex.onUpsert("cashier", createJob("Cashier", "Handling cash", SingaporeRegion.EAST));
+        searchIndex.onUpsert("waiter", createJob("Waiter", "Serving customers", SingaporeRegion.EAST));
+        List<SearchIndex.ScoredJob> scoredJobs = searchIndex.search(
+                "customers coffee", job -> true, /* after= */ null, /* limit= */ 10);
+
+        // Assert.
+        assertEquals(Arrays.asList("waiter"), getJobIds(scoredJobs));
+    }
+
+    @Test
+    public void getMemoryBytes_moreJobs_moreMemory() {
+        // Arrange.
+        long memoryBytes = searchIndex.getMemoryBytes();
+
+        // Act.
+        for (int i = 0; i < 100; i++) {
+            searchIndex.onUpsert("job" + i, createJob("Job " + i, "Description " + i, SingaporeRegion.NORTH));
+        }
+
+        // Assert.
+        assertTrue(searchIndex.getMemoryBytes() > memoryBytes);
+    }
+
+    private static Job createJob(String jobTitle, String jobDescription, SingaporeRegion region) {
+        return TestJobs.newBuilder()
+                .setJobTitle(jobTitle)
+                .setJobDescription(jobDescription)
+                .setRegion(region)
+                .build();
+    }
+
+    private static List<String> getJobIds(List<SearchIndex.ScoredJob> scoredJobs) {
+        List<String> jobIds = new ArrayList<>();
+        for (SearchIndex.ScoredJob scoredJob : scoredJobs) {
+            jobIds.add(scoredJob.getJobId());
+        }
+
+        return jobIds;
+    }
+}
@@ -0,0 +1,79 @@
+package com.google.job.search;
+
+import com.google.job.data.Job;
+import com.google.job.data.TestJobs;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lookups per second of the {@link TitleTrie} over 100k job posts, and prints its heap footprint,
+ * both estimated and measured. Run after {@code mvn test-compile} with
+ * {@code java -cp target/classes:target/test-classes:<test classpath> org.openjdk.jmh.Main TitleTrieBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TitleTrieBenchmark {
+    private static final int JOB_COUNT = 100_000;
+    private static final int SUGGESTIONS = 5;
+
+    private static final String[] SENIORITIES = {"", "Junior ", "Senior ", "Part-time ", "Lead ", "Assistant "};
+    private static final String[] ROLES = {"Software Engineer", "Barista", "Cashier", "Tester", "Waiter",
+            "Delivery Driver", "Tutor", "Sales Assistant", "Cleaner", "Receptionist", "Chef", "Security Guard"};
+
+    private TitleTrie titleTrie;
+
+    @Setup
+    public void setUp() {
+        // Some titles are posted much more often than others, and a long tail only once or twice
+        Random random = new Random(42);
+        Map<String, Job> jobsById = new HashMap<>();
+        for (int i = 0; i < JOB_COUNT; i++) {
+            String title = SENIORITIES[random.nextInt(SENIORITIES.length)] + ROLES[random.nextInt(ROLES.length)]
+                    + " " + random.nextInt(1 + random.nextInt(JOB_COUNT / 100));
+            jobsById.put("job" + i, TestJobs.newBuilder().setJobTitle(title).build());
+        }
+
+        long usedBytesBefore = getUsedBytes();
+        titleTrie = new TitleTrie();
+        titleTrie.onReload(jobsById);
+        long usedBytesAfter = getUsedBytes();
+
+        // Uses the job posts after the measurement, so that they are not collected in the middle of it
+        System.out.printf("%ntitle trie: %d distinct titles of %d job posts, estimated %d KB, measured %d KB%n",
+                titleTrie.getTitleCount(), jobsById.size(), titleTrie.getMemoryBytes() / 1024,
+                (usedBytesAfter - usedBytesBefore) / 1024);
+    }
+
+    @Benchmark
+    public List<TitleSuggestion> suggestOneCharacter() {
+        return titleTrie.suggest("s", SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<TitleSuggestion> suggestWord() {
+        return titleTrie.suggest("senior software", SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<TitleSuggestion> suggestFullTitle() {
+        return titleTrie.suggest("junior barista 12", SUGGESTIONS);
+    }
+
+    private static long getUsedBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,97 @@
+package com.google.job.search;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.job.data.Job;
+import com.google.job.data.TestJobs;
+import org.junit.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** Tests for {@link TitleTrie} class. */
+public final class TitleTrieTest {
+    private TitleTrie titleTrie;
+
+    @Before
+    public void setUp() {
+        titleTrie = new TitleTrie();
+        titleTrie.onReload(ImmutableMap.<String, Job>builder()
+                .put("job1", createJob("Software Engineer"))
+                .put("job2", createJob("software  engineer"))
+                .put("job3", createJob("Software Tester"))
+                .put("job4", createJob("Sales Assistant"))
+                .put("job5", createJob("Sales Assistant"))
+                .put("job6", createJob("Sales Assistant"))
+                .put("job7", createJob("Barista"))
+                .build());
+    }
+
+    @Test
+    public void suggest_prefix_mostPostedFirst() {
+        // Act.
+        List<TitleSuggestion> suggestions = titleTrie.suggest("s", /* limit= */ 5);
+
+        // Assert.
+        assertEquals(Arrays.asList(
+                new TitleSuggestion("Sales Assistant", 3),
+                new TitleSuggestion("software  engineer", 2),
+                new TitleSuggestion("Software Tester", 1)), suggestions);
+    }
+
+    @Test
+    public void suggest_prefixEndsInsideEdge_matchingTitles() {
+        // Act.
+        List<TitleSuggestion> suggestions = titleTrie.suggest("  SOFTWARE   t", /* limit= */ 5);
+
+        // Assert.
+        assertEquals(Arrays.asList(new TitleSuggestion("Software Tester", 1)), suggestions);
+    }
+
+    @Test
+    public void suggest_limit_onlyBestTitles() {
+        // Act.
+        List<TitleSuggestion> suggestions = titleTrie.suggest("", /* limit= */ 1);
+
+        // Assert.
+        assertEquals(Arrays.asList(new TitleSuggestion("Sales Assistant", 3)), suggestions);
+    }
+
+    @Test
+    public void suggest_noMatch_empty() {
+        // Act.
+        List<TitleSuggestion> suggestions = titleTrie.suggest("software developer", /* limit= */ 5);
+
+        // Assert.
+        assertTrue(suggestions.isEmpty());
+    }
+
+    @Test
+    public void suggest_upsertAndRemove_countsUpdated() {
+        // Act.
+        titleTrie.onRemove("job4");
+        titleTrie.onRemove("job5");
+        titleTrie.onUpsert("job6", createJob("Software Tester"));
+        titleTrie.onUpsert("job7", createJob("Software Tester"));
+        titleTrie.onRemove("unknown");
+
+        // Assert.
+        assertEquals(Arrays.asList(
+                new TitleSuggestion("Software Tester", 3),
+                new TitleSuggestion("software  engineer", 2)), titleTrie.suggest("so", /* limit= */ 5));
+        assertTrue(titleTrie.suggest("sa", /* limit= */ 5).isEmpty());
+        assertTrue(titleTrie.suggest("b", /* limit= */ 5).isEmpty());
+        assertEquals(2, titleTrie.getTitleCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void suggest_limitTooLarge_throwsException() {
+        // Act.
+        titleTrie.suggest("s", TitleTrie.MAX_SUGGESTIONS + 1);
+    }
+
+    private static Job createJob(String jobTitle) {
+        return TestJobs.newBuilder().setJobTitle(jobTitle).build();
+    }
+}
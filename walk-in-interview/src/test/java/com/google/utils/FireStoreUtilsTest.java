@@ -0,0 +1,47 @@
+package com.google.utils;
+
+import com.google.cloud.firestore.Firestore;
+import org.junit.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/** Tests for {@link FireStoreUtils} class. */
+public final class FireStoreUtilsTest {
+    private static final int THREAD_COUNT = 32;
+
+    @Test
+    public void getFireStore_concurrentFirstCalls_sameInstance() throws Exception {
+        // Arrange.
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Firestore>> futures = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return FireStoreUtils.getFireStore();
+            }));
+        }
+
+        // Act.
+        // Releases all the threads at once, so that they race to initialize the database
+        start.countDown();
+
+        List<Firestore> firestores = new ArrayList<>();
+        for (Future<Firestore> future : futures) {
+            firestores.add(future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // Assert.
+        Firestore expectedFirestore = FireStoreUtils.getFireStore();
+        assertNotNull(expectedFirestore);
+        for (Firestore firestore : firestores) {
+            assertSame(expectedFirestore, firestore);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.google.utils;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+/** Tests for {@link GeoUtils} class. */
+public final class GeoUtilsTest {
+    @Test
+    public void encodeGeohash_knownPlace_knownGeohash() {
+        // Act.
+        String geohash = GeoUtils.encodeGeohash(57.64911, 10.40744, /* precision= */ 11);
+
+        // Assert.
+        assertEquals("u4pruydqqvj", geohash);
+    }
+
+    @Test
+    public void encodeGeohash_lowerPrecision_prefixOfHigherPrecision() {
+        // Act.
+        String geohash = GeoUtils.encodeGeohash(1.3521, 103.8198, /* precision= */ 9);
+        String cell = GeoUtils.encodeGeohash(1.3521, 103.8198, /* precision= */ 5);
+
+        // Assert.
+        assertTrue(geohash.startsWith(cell));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encodeGeohash_latitudeOutOfRange_throwsException() {
+        // Act.
+        GeoUtils.encodeGeohash(91, 0, /* precision= */ 9);
+    }
+
+    @Test
+    public void distanceMeters_oneDegreeOfLatitude_metersPerDegree() {
+        // Act.
+        double distance = GeoUtils.distanceMeters(1, 103, 2, 103);
+
+        // Assert.
+        assertEquals(GeoUtils.METERS_PER_DEGREE, distance, /* delta= */ 0.01);
+    }
+
+    @Test
+    public void distanceMeters_samePlace_zero() {
+        // Act.
+        double distance = GeoUtils.distanceMeters(1.3521, 103.8198, 1.3521, 103.8198);
+
+        // Assert.
+        assertEquals(0, distance, /* delta= */ 0);
+    }
+}
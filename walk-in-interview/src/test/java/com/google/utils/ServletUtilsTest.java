@@ -0,0 +1,72 @@
+package com.google.utils;
+
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.ApiExceptionFactory;
+import io.grpc.Status;
+import org.junit.*;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/** Tests for {@link ServletUtils} class. */
+public final class ServletUtilsTest {
+    @Test
+    public void getErrorStatus_invalidArgument_badRequest() {
+        // Act.
+        int status = ServletUtils.getErrorStatus(
+                new ExecutionException(new IllegalArgumentException("Invalid jobId")));
+
+        // Assert.
+        assertEquals(HttpServletResponse.SC_BAD_REQUEST, status);
+    }
+
+    @Test
+    public void getErrorStatus_timeout_gatewayTimeout() {
+        // Act.
+        int timeoutStatus = ServletUtils.getErrorStatus(new TimeoutException());
+        int deadlineStatus = ServletUtils.getErrorStatus(
+                new ExecutionException(createApiException(Status.Code.DEADLINE_EXCEEDED)));
+
+        // Assert.
+        assertEquals(HttpServletResponse.SC_GATEWAY_TIMEOUT, timeoutStatus);
+        assertEquals(HttpServletResponse.SC_GATEWAY_TIMEOUT, deadlineStatus);
+    }
+
+    @Test
+    public void getErrorStatus_failedPrecondition_preconditionFailed() {
+        // Act.
+        int status = ServletUtils.getErrorStatus(
+                new ExecutionException(createApiException(Status.Code.FAILED_PRECONDITION)));
+
+        // Assert.
+        assertEquals(HttpServletResponse.SC_PRECONDITION_FAILED, status);
+    }
+
+    @Test
+    public void getErrorStatus_backendUnavailable_serviceUnavailable() {
+        // Act.
+        int status = ServletUtils.getErrorStatus(new ExecutionException(createApiException(Status.Code.UNAVAILABLE)));
+
+        // Assert.
+        assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, status);
+    }
+
+    @Test
+    public void getErrorStatus_otherFailure_internalServerError() {
+        // Act.
+        int stateStatus = ServletUtils.getErrorStatus(new IllegalStateException("not loaded"));
+        int permissionStatus = ServletUtils.getErrorStatus(createApiException(Status.Code.PERMISSION_DENIED));
+
+        // Assert.
+        assertEquals(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, stateStatus);
+        assertEquals(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, permissionStatus);
+    }
+
+    private static Exception createApiException(Status.Code code) {
+        return ApiExceptionFactory.createException(new RuntimeException(code.name()), GrpcStatusCode.of(code),
+                /* retryable= */ false);
+    }
+}